@@ -0,0 +1,93 @@
+package com.habbo.bench;
+
+import com.habbo.client.protocol.BufferPool;
+import com.habbo.client.protocol.ProtocolDecoder;
+import com.habbo.client.protocol.ProtocolEncoder;
+import com.habbo.client.protocol.Utf8View;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * String and primitive encoding through {@link ProtocolEncoder} and {@link ProtocolDecoder}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecBenchmark {
+
+    @Param({"ascii", "multibyte"})
+    public String charset;
+
+    /** Characters per string: 16 for a small frame, 16384 for a large one */
+    @Param({"16", "16384"})
+    public int length;
+
+    private String text;
+    private ProtocolEncoder encoder;
+    private ByteBuffer encodedFrame;
+    private final ProtocolDecoder decoder = new ProtocolDecoder();
+    private final Utf8View view = new Utf8View();
+
+    @Setup
+    public void setUp() throws IOException {
+        text = Payloads.text(charset, length);
+        // Pool buffers large enough that even the biggest frame is recycled
+        encoder = new ProtocolEncoder(new BufferPool(128 * 1024, 16, false));
+
+        encoder.beginFrame();
+        encoder.writeShort((short) 1);
+        encoder.writeInt(42);
+        encoder.writeString(text);
+        ByteBuffer frame = encoder.finishFrame();
+        encodedFrame = ByteBuffer.allocateDirect(frame.remaining()).put(frame);
+        encodedFrame.flip();
+    }
+
+    @Benchmark
+    public ByteBuffer encodeFrame() throws IOException {
+        encoder.beginFrame();
+        encoder.writeShort((short) 1);
+        encoder.writeInt(42);
+        encoder.writeString(text);
+        ByteBuffer frame = encoder.finishFrame();
+        encoder.getPool().release(frame);
+        return frame;
+    }
+
+    @Benchmark
+    public int encodedLength() {
+        return ProtocolEncoder.encodedLength(text);
+    }
+
+    @Benchmark
+    public String decodeString() throws IOException {
+        decoder.reset(encodedFrame, 4, encodedFrame.limit() - 4);
+        decoder.readShort();
+        decoder.readInt();
+        return decoder.readString();
+    }
+
+    @Benchmark
+    public int decodeStringView() throws IOException {
+        decoder.reset(encodedFrame, 4, encodedFrame.limit() - 4);
+        decoder.readShort();
+        decoder.readInt();
+        return decoder.readStringView(view).hashCode();
+    }
+}
@@ -0,0 +1,190 @@
+package com.habbo.bench;
+
+import com.habbo.bench.server.MockHabboServer;
+import com.habbo.client.network.HabboConnection;
+import com.habbo.client.network.TransportMode;
+import com.habbo.client.protocol.messages.AuthenticationMessage;
+import com.habbo.client.protocol.messages.AuthenticationResponseMessage;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * End-to-end loopback benchmark: N {@link HabboConnection}s against a {@link MockHabboServer},
+ * each keeping {@code depth} authentication requests in flight (closed loop).
+ * Reports messages/sec, round-trip latency percentiles and allocation per message.
+ *
+ * <pre>
+ * java -cp habbo-bench/target/benchmarks.jar com.habbo.bench.LoopbackDriver \
+ *     --connections 1,100,10000 --seconds 10 --warmup 3 --depth 1 [--transport nio|blocking]
+ *     [--host 127.0.0.1 --port 30000]   (use an external server instead of the in-process one)
+ * </pre>
+ *
+ * 10,000 connections need about 20,000 file descriptors when the server runs in-process.
+ */
+public final class LoopbackDriver {
+    private static final long MAX_LATENCY_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final String host;
+    private final int port;
+    private final TransportMode mode;
+    private final int depth;
+    private final Recorder latency = new Recorder(MAX_LATENCY_NANOS, 3);
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile boolean running;
+
+    private LoopbackDriver(String host, int port, TransportMode mode, int depth) {
+        this.host = host;
+        this.port = port;
+        this.mode = mode;
+        this.depth = depth;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String connectionCounts = "1,100,10000";
+        int seconds = 10;
+        int warmup = 3;
+        int depth = 1;
+        String host = "127.0.0.1";
+        int port = -1;
+        TransportMode mode = TransportMode.NIO;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--connections": connectionCounts = args[i + 1]; break;
+                case "--seconds": seconds = Integer.parseInt(args[i + 1]); break;
+                case "--warmup": warmup = Integer.parseInt(args[i + 1]); break;
+                case "--depth": depth = Integer.parseInt(args[i + 1]); break;
+                case "--host": host = args[i + 1]; break;
+                case "--port": port = Integer.parseInt(args[i + 1]); break;
+                case "--transport": mode = TransportMode.fromString(args[i + 1], mode); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        MockHabboServer server = null;
+        if (port < 0) {
+            server = new MockHabboServer(0, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+            port = server.getPort();
+        }
+        try {
+            System.out.printf("%-12s %12s %10s %10s %10s %10s %14s %14s %8s%n", "connections", "msgs/sec",
+                    "p50 us", "p99 us", "p999 us", "max us", "client B/msg", "alloc MB/s", "errors");
+            for (String count : connectionCounts.split(",")) {
+                LoopbackDriver driver = new LoopbackDriver(host, port, mode, depth);
+                driver.run(Integer.parseInt(count.trim()), Duration.ofSeconds(warmup), Duration.ofSeconds(seconds));
+            }
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private void run(int connectionCount, Duration warmup, Duration measure) throws InterruptedException {
+        List<HabboConnection> connections = new ArrayList<>(connectionCount);
+        for (int i = 0; i < connectionCount; i++) {
+            HabboConnection connection = new HabboConnection(host, port, mode);
+            connection.setRequestTimeout(Duration.ofSeconds(30));
+            if (!connection.connect()) {
+                System.out.printf("%-12s connected only %d connections, measuring those%n", connectionCount, i);
+                break;
+            }
+            connections.add(connection);
+        }
+
+        running = true;
+        for (int i = 0; i < connections.size(); i++) {
+            AuthenticationMessage request = new AuthenticationMessage("bench" + i, "token-" + i);
+            for (int d = 0; d < depth; d++) {
+                issue(connections.get(i), request);
+            }
+        }
+
+        Thread.sleep(warmup.toMillis());
+        latency.reset();
+        completed.reset();
+        failed.reset();
+        long allocatedBefore = clientAllocatedBytes();
+        long start = System.nanoTime();
+
+        Thread.sleep(measure.toMillis());
+
+        long elapsed = System.nanoTime() - start;
+        long messages = completed.sum();
+        long allocated = clientAllocatedBytes() - allocatedBefore;
+        Histogram histogram = latency.getIntervalHistogram();
+        running = false;
+
+        double seconds = elapsed / 1e9;
+        System.out.printf("%-12d %12.0f %10.1f %10.1f %10.1f %10.1f %14s %14.1f %8d%n",
+                connections.size(),
+                messages / seconds,
+                histogram.getValueAtPercentile(50) / 1e3,
+                histogram.getValueAtPercentile(99) / 1e3,
+                histogram.getValueAtPercentile(99.9) / 1e3,
+                histogram.getMaxValue() / 1e3,
+                allocated < 0 ? "n/a" : String.valueOf(messages == 0 ? 0 : allocated / messages),
+                allocated < 0 ? Double.NaN : allocated / seconds / (1024 * 1024),
+                failed.sum());
+
+        // Let in-flight requests drain before closing
+        Thread.sleep(200);
+        for (HabboConnection connection : connections) {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Send one request and, when it completes, the next; runs until {@link #running} clears
+     */
+    private void issue(HabboConnection connection, AuthenticationMessage request) {
+        if (!running) {
+            return;
+        }
+        long sent = System.nanoTime();
+        CompletableFuture<AuthenticationResponseMessage> reply = connection.sendRequest(request);
+        reply.whenComplete((response, error) -> {
+            if (error != null) {
+                // Do not retry: a dead connection would fail every request immediately
+                failed.increment();
+                return;
+            }
+            latency.recordValue(Math.min(System.nanoTime() - sent, MAX_LATENCY_NANOS));
+            completed.increment();
+            issue(connection, request);
+        });
+    }
+
+    /**
+     * Bytes allocated by all live threads except the in-process mock server's,
+     * or -1 if the JVM does not track per-thread allocation
+     */
+    private static long clientAllocatedBytes() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        long[] ids = threads.getAllThreadIds();
+        long[] allocated = threads.getThreadAllocatedBytes(ids);
+        ThreadInfo[] infos = threads.getThreadInfo(ids);
+        long total = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (infos[i] != null && allocated[i] > 0 && !infos[i].getThreadName().startsWith("MockServer")) {
+                total += allocated[i];
+            }
+        }
+        return total;
+    }
+}
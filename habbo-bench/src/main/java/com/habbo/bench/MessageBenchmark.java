@@ -0,0 +1,98 @@
+package com.habbo.bench;
+
+import com.habbo.client.protocol.BufferPool;
+import com.habbo.client.protocol.ProtocolDecoder;
+import com.habbo.client.protocol.ProtocolEncoder;
+import com.habbo.client.protocol.messages.AuthenticationMessage;
+import com.habbo.client.protocol.messages.AuthenticationResponseMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trips of the authentication messages, through pooled frames and through the
+ * byte[] serialize/deserialize path
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageBenchmark {
+
+    @Param({"ascii", "multibyte"})
+    public String charset;
+
+    /** Characters per string field: 16 for a small frame, 4096 for a large one */
+    @Param({"16", "4096"})
+    public int length;
+
+    private ProtocolEncoder encoder;
+    private final ProtocolDecoder decoder = new ProtocolDecoder();
+    private AuthenticationMessage request;
+    private AuthenticationResponseMessage response;
+    private final AuthenticationMessage decodedRequest = new AuthenticationMessage();
+    private final AuthenticationResponseMessage decodedResponse = new AuthenticationResponseMessage();
+
+    @Setup
+    public void setUp() {
+        encoder = new ProtocolEncoder(new BufferPool(128 * 1024, 16, false));
+        String text = Payloads.text(charset, length);
+
+        request = new AuthenticationMessage(text, text);
+        response = new AuthenticationResponseMessage();
+        response.setStatus(AuthenticationResponseMessage.AuthStatus.SUCCESS);
+        response.setUserId(4242);
+        response.setSessionToken(text);
+        response.setAuthMessage(text);
+    }
+
+    @Benchmark
+    public AuthenticationMessage authenticationFrameRoundTrip() throws IOException {
+        encoder.beginFrame();
+        request.encode(encoder);
+        ByteBuffer frame = encoder.finishFrame();
+        decoder.reset(frame, 6, frame.limit() - 6);
+        decodedRequest.decode(decoder);
+        encoder.getPool().release(frame);
+        return decodedRequest;
+    }
+
+    @Benchmark
+    public AuthenticationResponseMessage responseFrameRoundTrip() throws IOException {
+        encoder.beginFrame();
+        response.encode(encoder);
+        ByteBuffer frame = encoder.finishFrame();
+        decoder.reset(frame, 6, frame.limit() - 6);
+        decodedResponse.decode(decoder);
+        encoder.getPool().release(frame);
+        return decodedResponse;
+    }
+
+    @Benchmark
+    public AuthenticationMessage authenticationSerializeRoundTrip() throws IOException {
+        AuthenticationMessage copy = new AuthenticationMessage();
+        copy.deserialize(request.serialize());
+        return copy;
+    }
+
+    @Benchmark
+    public AuthenticationResponseMessage responseSerializeRoundTrip() throws IOException {
+        AuthenticationResponseMessage copy = new AuthenticationResponseMessage();
+        copy.deserialize(response.serialize());
+        return copy;
+    }
+}
@@ -0,0 +1,30 @@
+package com.habbo.bench;
+
+/**
+ * Deterministic benchmark strings
+ */
+final class Payloads {
+    private static final String ASCII = "habbo-hotel-client-0123456789";
+    // Two- and three-byte UTF-8 sequences plus a surrogate pair
+    private static final String MULTIBYTE = "Grüße ホテル 🏨 ñandú ";
+
+    private Payloads() {
+    }
+
+    /**
+     * A string of {@code length} chars built from the ASCII or multibyte alphabet
+     */
+    static String text(String kind, int length) {
+        String alphabet = "multibyte".equals(kind) ? MULTIBYTE : ASCII;
+        StringBuilder builder = new StringBuilder(length);
+        while (builder.length() < length) {
+            builder.append(alphabet);
+        }
+        builder.setLength(length);
+        // Never end on half of a surrogate pair
+        if (Character.isHighSurrogate(builder.charAt(length - 1))) {
+            builder.setCharAt(length - 1, 'x');
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,61 @@
+package com.habbo.bench;
+
+import com.habbo.bench.server.MockHabboServer;
+import com.habbo.client.session.Session;
+import com.habbo.client.session.SessionManager;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures retained heap per session: N sessions are created, connected and logged in against
+ * an in-process {@link MockHabboServer}, and heap in use is compared after full GCs.
+ *
+ * <pre>
+ * java -cp habbo-bench/target/benchmarks.jar com.habbo.bench.SessionFootprint [sessions=1000]
+ * </pre>
+ */
+public final class SessionFootprint {
+    private SessionFootprint() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        try (MockHabboServer server = new MockHabboServer(0, 1)) {
+            SessionManager manager = new SessionManager();
+            // Warm up class loading, event loops and pools before the baseline
+            Session warm = manager.create("warmup", "127.0.0.1", server.getPort());
+            manager.connectAll(List.of(warm));
+            manager.loginAll(List.of(warm), "password");
+
+            long before = usedHeap();
+            for (int i = 0; i < count; i++) {
+                manager.create("bot-" + i, "127.0.0.1", server.getPort());
+            }
+            long created = usedHeap();
+            Map<String, Boolean> connected = manager.connectAll(manager.getSessions());
+            long afterConnect = usedHeap();
+            Map<String, Boolean> loggedIn = manager.loginAll(manager.getSessions(), "password");
+            long afterLogin = usedHeap();
+
+            System.out.printf("sessions: %d (connected %d, logged in %d)%n", count,
+                    connected.values().stream().filter(ok -> ok).count() - 1,
+                    loggedIn.values().stream().filter(ok -> ok).count() - 1);
+            System.out.printf("created:       %6d bytes/session%n", (created - before) / count);
+            System.out.printf("connected:     %6d bytes/session%n", (afterConnect - before) / count);
+            System.out.printf("authenticated: %6d bytes/session%n", (afterLogin - before) / count);
+            manager.shutdown();
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,250 @@
+package com.habbo.bench.server;
+
+import com.habbo.client.network.FrameDecoder;
+import com.habbo.client.protocol.MessageRegistry;
+import com.habbo.client.protocol.ProtocolEncoder;
+import com.habbo.client.protocol.messages.AuthenticationMessage;
+import com.habbo.client.protocol.messages.AuthenticationResponseMessage;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stand-in Habbo server for loopback benchmarks. Speaks the length-prefixed framing,
+ * answers every {@link AuthenticationMessage} with a successful
+ * {@link AuthenticationResponseMessage} and echoes any other frame.
+ * One acceptor thread hands connections to a fixed set of selector workers.
+ */
+public final class MockHabboServer implements AutoCloseable {
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final ServerSocketChannel serverChannel;
+    private final Worker[] workers;
+    private final Thread acceptor;
+    private final LongAdder framesIn = new LongAdder();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final byte[] authResponseFrame;
+    private volatile boolean running = true;
+
+    public MockHabboServer(int port, int workerCount) throws IOException {
+        this.authResponseFrame = encodeAuthResponse();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress("127.0.0.1", port), 16 * 1024);
+
+        this.workers = new Worker[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Worker("MockServerWorker-" + i);
+        }
+        this.acceptor = new Thread(this::acceptLoop, "MockServerAcceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private static byte[] encodeAuthResponse() throws IOException {
+        AuthenticationResponseMessage response = new AuthenticationResponseMessage();
+        response.setStatus(AuthenticationResponseMessage.AuthStatus.SUCCESS);
+        response.setUserId(1);
+        response.setSessionToken("mock-session");
+        response.setAuthMessage(AuthenticationResponseMessage.AuthStatus.SUCCESS.getMessage());
+
+        ProtocolEncoder encoder = new ProtocolEncoder();
+        encoder.beginFrame();
+        response.encode(encoder);
+        ByteBuffer frame = encoder.finishFrame();
+        byte[] bytes = new byte[frame.remaining()];
+        frame.get(bytes);
+        return bytes;
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    public long getFramesReceived() {
+        return framesIn.sum();
+    }
+
+    private void acceptLoop() {
+        int next = 0;
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.configureBlocking(false);
+                connections.incrementAndGet();
+                workers[next++ % workers.length].add(channel);
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Mock server accept failed: " + e);
+                }
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverChannel.close();
+        for (Worker worker : workers) {
+            worker.shutdown();
+        }
+    }
+
+    /**
+     * Selector thread owning a share of the connections
+     */
+    private final class Worker implements Runnable {
+        private final Selector selector;
+        private final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        private final Thread thread;
+
+        Worker(String name) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void add(SocketChannel channel) {
+            pending.add(channel);
+            selector.wakeup();
+        }
+
+        void shutdown() {
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    SocketChannel channel;
+                    while ((channel = pending.poll()) != null) {
+                        channel.register(selector, SelectionKey.OP_READ, new Connection(channel));
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isValid() && key.isReadable()) {
+                                connection.onReadable(key, readBuffer);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                connection.flush(key);
+                            }
+                        } catch (IOException e) {
+                            connection.close(key);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Mock server worker failed: " + e);
+                }
+            } finally {
+                try {
+                    for (SelectionKey key : selector.keys()) {
+                        key.channel().close();
+                    }
+                    selector.close();
+                } catch (IOException ignored) {
+                    // shutting down
+                }
+            }
+        }
+    }
+
+    /**
+     * Per-connection state: a frame decoder and a growable reply buffer
+     */
+    private final class Connection implements FrameDecoder.FrameHandler {
+        private final SocketChannel channel;
+        private final FrameDecoder decoder = new FrameDecoder();
+        private ByteBuffer out = ByteBuffer.allocate(512);
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void onReadable(SelectionKey key, ByteBuffer shared) throws IOException {
+            ByteBuffer target = decoder.readTarget(shared);
+            int read = channel.read(target);
+            if (read < 0) {
+                close(key);
+                return;
+            }
+            framesIn.add(decoder.decode(target, this));
+            flush(key);
+        }
+
+        @Override
+        public void onFrame(ByteBuffer frame) {
+            if (frame.remaining() >= 2 && MessageRegistry.peekMessageId(frame) == AuthenticationMessage.MESSAGE_ID) {
+                ensure(authResponseFrame.length).put(authResponseFrame);
+            } else {
+                ensure(4 + frame.remaining()).putInt(frame.remaining()).put(frame);
+            }
+        }
+
+        private ByteBuffer ensure(int bytes) {
+            if (out.remaining() < bytes) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes));
+                out.flip();
+                grown.put(out);
+                out = grown;
+            }
+            return out;
+        }
+
+        void flush(SelectionKey key) throws IOException {
+            out.flip();
+            channel.write(out);
+            out.compact();
+            int ops = out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+            if (key.interestOps() != ops) {
+                key.interestOps(ops);
+            }
+        }
+
+        void close(SelectionKey key) {
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // already gone
+            }
+            connections.decrementAndGet();
+        }
+    }
+
+    /**
+     * Run standalone: {@code MockHabboServer [port] [workers]}
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 30000;
+        int workerCount = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        MockHabboServer server = new MockHabboServer(port, workerCount);
+        System.out.println("Mock Habbo server listening on 127.0.0.1:" + server.getPort() + " with " + workerCount + " workers");
+        Thread.currentThread().join();
+    }
+}
@@ -1,27 +1,67 @@
 package com.habbo.client;
 
 import com.habbo.client.cli.CommandInterpreter;
+import com.habbo.client.auth.TokenCache;
+import com.habbo.client.diagnostics.FlightRecording;
+import com.habbo.client.network.DispatchPolicy;
+import com.habbo.client.network.FlushPolicy;
 import com.habbo.client.network.HabboConnection;
+import com.habbo.client.network.TransportMode;
+import com.habbo.client.session.Session;
+import com.habbo.client.session.SessionManager;
+import com.habbo.client.util.Threads;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Main entry point for Habbo CLI application
  */
 public class HabboCLI {
     private static final Logger logger = LoggerFactory.getLogger(HabboCLI.class);
-    private static HabboConnection connection;
+    private static SessionManager sessionManager;
+    private static volatile Session currentSession;
+    // Session a broadcast command runs against, overriding the current session on that thread
+    private static final ThreadLocal<Session> targetSession = new ThreadLocal<>();
     private static CommandInterpreter commandInterpreter;
+    private static ExecutorService commandExecutor;
 
     public static void main(String[] args) {
+        Options options = buildOptions();
+        CommandLine commandLine;
+        try {
+            commandLine = new DefaultParser().parse(options, args);
+        } catch (ParseException e) {
+            System.out.println("Error: " + e.getMessage());
+            new HelpFormatter().printHelp("habbo-cli", options);
+            System.exit(1);
+            return;
+        }
+
+        if (commandLine.hasOption("help")) {
+            new HelpFormatter().printHelp("habbo-cli", options);
+            return;
+        }
+
+        applyOptions(commandLine);
         logger.info("Starting Habbo CLI...");
 
         // Initialize the CLI
         commandInterpreter = new CommandInterpreter();
+        commandExecutor = Threads.newTaskExecutor("HabboCommand");
+        getSessionManager();
 
         try {
             // Display welcome message
@@ -36,6 +76,90 @@ public class HabboCLI {
         }
     }
 
+    /**
+     * Command-line options for the runtime modes
+     */
+    private static Options buildOptions() {
+        Options options = new Options();
+        options.addOption(Option.builder("t")
+                .longOpt("transport")
+                .hasArg()
+                .argName("nio|blocking")
+                .desc("Socket transport for new connections (default: nio)")
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("flush")
+                .hasArg()
+                .argName("policy")
+                .desc("Outbound flush policy: immediate, window:<ms> or size:<bytes>[:<ms>] (default: immediate)")
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("dispatch")
+                .hasArg()
+                .argName("policy")
+                .desc("Inbound dispatch: inline or queue:<capacity>[:block|drop-oldest|disconnect] (default: inline)")
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("token-cache")
+                .hasArg()
+                .argName("file")
+                .desc("Reuse still-valid SSO tokens across restarts from this encrypted file")
+                .build());
+        options.addOption(Option.builder()
+                .longOpt("virtual-threads")
+                .desc("Run receivers, listener callbacks and commands on virtual threads (Java 21+)")
+                .build());
+        options.addOption("h", "help", false, "Show usage");
+        return options;
+    }
+
+    private static void applyOptions(CommandLine commandLine) {
+        if (commandLine.hasOption("transport")) {
+            String value = commandLine.getOptionValue("transport");
+            TransportMode mode = TransportMode.fromString(value, null);
+            if (mode == null) {
+                System.out.println("Unknown transport '" + value + "', using " + TransportMode.getDefault());
+            } else {
+                TransportMode.setDefault(mode);
+            }
+        }
+
+        if (commandLine.hasOption("flush")) {
+            String value = commandLine.getOptionValue("flush");
+            FlushPolicy policy = FlushPolicy.parse(value, null);
+            if (policy == null) {
+                System.out.println("Unknown flush policy '" + value + "', using " + FlushPolicy.getDefault());
+            } else {
+                FlushPolicy.setDefault(policy);
+            }
+        }
+
+        if (commandLine.hasOption("dispatch")) {
+            String value = commandLine.getOptionValue("dispatch");
+            DispatchPolicy policy = DispatchPolicy.parse(value, null);
+            if (policy == null) {
+                System.out.println("Unknown dispatch policy '" + value + "', using " + DispatchPolicy.getDefault());
+            } else {
+                DispatchPolicy.setDefault(policy);
+            }
+        }
+
+        if (commandLine.hasOption("token-cache")) {
+            String value = commandLine.getOptionValue("token-cache");
+            try {
+                TokenCache.setDefault(TokenCache.open(Path.of(value)));
+            } catch (IOException e) {
+                System.out.println("Cannot open token cache '" + value + "': " + e.getMessage());
+            }
+        }
+
+        if (commandLine.hasOption("virtual-threads") && !Threads.setVirtualThreadsEnabled(true)) {
+            System.out.println("Virtual threads need Java 21 or newer; using platform threads.");
+        }
+        logger.info("Transport: {}, flush: {}, dispatch: {}, virtual threads: {}", TransportMode.getDefault(),
+                FlushPolicy.getDefault(), DispatchPolicy.getDefault(), Threads.isVirtualThreadsEnabled());
+    }
+
     /**
      * Display welcome message
      */
@@ -69,11 +193,17 @@ public class HabboCLI {
                 break;
             }
 
+            // Commands run on the command executor (virtual threads when enabled);
+            // the prompt waits so output stays in order
+            final String commandLine = line;
             try {
-                commandInterpreter.executeCommand(line);
-            } catch (Exception e) {
-                logger.error("Error executing command", e);
-                System.out.println("Error: " + e.getMessage());
+                commandExecutor.submit(() -> commandInterpreter.executeCommand(commandLine)).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                logger.error("Error executing command", e.getCause());
+                System.out.println("Error: " + e.getCause().getMessage());
             }
         }
     }
@@ -84,23 +214,67 @@ public class HabboCLI {
     private static void shutdown() {
         logger.info("Shutting down Habbo CLI...");
 
-        if (connection != null && connection.isConnected()) {
-            connection.disconnect();
+        getSessionManager().shutdown();
+        commandExecutor.shutdown();
+        TokenCache tokenCache = TokenCache.getDefault();
+        if (tokenCache != null) {
+            try {
+                tokenCache.close();
+            } catch (IOException e) {
+                logger.warn("Error closing token cache", e);
+            }
+        }
+        Path recording = FlightRecording.stop();
+        if (recording != null) {
+            System.out.println("Flight recording written to " + recording.toAbsolutePath());
         }
 
         System.out.println("Goodbye!");
         System.exit(0);
     }
 
+    /**
+     * Connection of the session commands act on: the broadcast target on this thread, else the current session
+     */
     public static HabboConnection getConnection() {
-        return connection;
+        Session session = getSession();
+        return session == null ? null : session.getConnection();
+    }
+
+    public static Session getSession() {
+        Session target = targetSession.get();
+        return target != null ? target : currentSession;
     }
 
-    public static void setConnection(HabboConnection conn) {
-        connection = conn;
+    public static void setCurrentSession(Session session) {
+        currentSession = session;
+    }
+
+    /**
+     * Run {@code task} on this thread with {@link #getConnection()} pointing at {@code session}
+     */
+    public static void runInSession(Session session, Runnable task) {
+        Session previous = targetSession.get();
+        targetSession.set(session);
+        try {
+            task.run();
+        } finally {
+            targetSession.set(previous);
+        }
+    }
+
+    public static synchronized SessionManager getSessionManager() {
+        if (sessionManager == null) {
+            sessionManager = new SessionManager();
+        }
+        return sessionManager;
     }
 
     public static CommandInterpreter getCommandInterpreter() {
         return commandInterpreter;
     }
+
+    public static ExecutorService getCommandExecutor() {
+        return commandExecutor;
+    }
 }
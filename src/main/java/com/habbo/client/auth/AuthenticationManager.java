@@ -1,63 +1,148 @@
 package com.habbo.client.auth;
 
+import com.habbo.client.diagnostics.AuthenticationEvent;
+import com.habbo.client.util.CoarseClock;
+import com.habbo.client.util.HashedWheelTimer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * Authentication manager for handling user authentication and sessions
+ * <p>
+ * Who is logged in, with which token and how many attempts have failed is one immutable
+ * {@link AuthState}, replaced by compare-and-set on every transition. {@link #isAuthenticated()}
+ * reads that state and the token's current version plus a {@link CoarseClock} read, so polling
+ * many sessions takes no lock, and a token revoked or expired through {@link #getCurrentToken()}
+ * is seen at once.
  */
 public class AuthenticationManager {
     private static final Logger logger = LoggerFactory.getLogger(AuthenticationManager.class);
 
-    private SSOToken currentToken;
-    private String currentUsername;
-    private boolean isAuthenticated;
-    private int maxLoginAttempts = 3;
-    private int loginAttempts = 0;
+    private final AtomicReference<AuthState> state = new AtomicReference<>(AuthState.LOGGED_OUT);
+    private final int maxLoginAttempts = 3;
+    // Cached tokens closer to expiry than this are not worth reusing
+    private static final long MIN_CACHED_LIFETIME_MILLIS = 60_000;
+    private volatile TokenCache tokenCache;
+    private volatile TokenRefreshScheduler refreshScheduler;
+    // The pending proactive refresh, replaced on every login and refresh
+    private final AtomicReference<HashedWheelTimer.Timeout> refreshTimeout = new AtomicReference<>();
+
+    /**
+     * One version of the authentication state; never modified
+     */
+    private static final class AuthState {
+        static final AuthState LOGGED_OUT = new AuthState(null, null, 0);
+
+        final String username;
+        final SSOToken token;
+        final int loginAttempts;
+
+        private AuthState(String username, SSOToken token, int loginAttempts) {
+            this.username = username;
+            this.token = token;
+            this.loginAttempts = loginAttempts;
+        }
+
+        static AuthState authenticated(String username, SSOToken token) {
+            return new AuthState(username, token, 0);
+        }
 
-    public AuthenticationManager() {
-        this.isAuthenticated = false;
+        AuthState withFailedAttempt() {
+            return new AuthState(username, token, loginAttempts + 1);
+        }
+
+        boolean isAuthenticatedAt(long now) {
+            // The token is public and mutable, so its validity is read live rather than cached here
+            return token != null && token.snapshot().isValidAt(now);
+        }
     }
 
     /**
      * Authenticate user with username and password
      * In production, this would validate against Habbo servers
      */
-    public synchronized boolean authenticate(String username, String password) {
-        if (isAuthenticated && currentToken != null && currentToken.isValid()) {
-            logger.warn("User already authenticated: {}", currentUsername);
+    public boolean authenticate(String username, String password) {
+        AuthenticationEvent event = new AuthenticationEvent();
+        event.begin();
+        boolean success = doAuthenticate(username, password);
+        if (event.shouldCommit()) {
+            event.record("authenticate", username, success);
+        }
+        return success;
+    }
+
+    private boolean doAuthenticate(String username, String password) {
+        AuthState current = state.get();
+        if (current.isAuthenticatedAt(CoarseClock.currentTimeMillis())) {
+            logger.warn("User already authenticated: {}", current.username);
             return true;
         }
 
-        if (loginAttempts >= maxLoginAttempts) {
+        if (current.loginAttempts >= maxLoginAttempts) {
             logger.error("Maximum login attempts exceeded");
             return false;
         }
 
-        // Simulate ticket generation from credentials
-        String ticket = generateTicket(username, password);
+        SSOToken token = cachedToken(username, password);
+        boolean reused = token != null;
+        if (!reused) {
+            // Simulate ticket generation from credentials
+            String ticket = generateTicket(username, password);
 
-        if (ticket == null || ticket.isEmpty()) {
-            loginAttempts++;
-            logger.warn("Authentication failed for user: {} ({}/{})", username, loginAttempts, maxLoginAttempts);
-            return false;
+            if (ticket == null || ticket.isEmpty()) {
+                int attempts = state.updateAndGet(AuthState::withFailedAttempt).loginAttempts;
+                logger.warn("Authentication failed for user: {} ({}/{})", username, attempts, maxLoginAttempts);
+                return false;
+            }
+
+            // Create SSO token
+            token = new SSOToken(username, ticket);
+
+            if (!token.validate()) {
+                state.updateAndGet(AuthState::withFailedAttempt);
+                logger.error("Token validation failed for user: {}", username);
+                return false;
+            }
         }
 
-        // Create SSO token
-        SSOToken token = new SSOToken(username, ticket);
+        if (!state.compareAndSet(current, AuthState.authenticated(username, token))) {
+            // Another login or logout got there first; keep its outcome
+            if (!reused) {
+                token.revoke();
+            }
+            logger.warn("Authentication state changed concurrently, discarding token for user: {}", username);
+            return isAuthenticated();
+        }
+        logger.info("User authenticated successfully: {}{}", username, reused ? " (cached token)" : "");
+        if (!reused) {
+            cacheToken(username, token);
+        }
+        scheduleRefresh(state.get());
+        return true;
+    }
 
-        if (token.validate()) {
-            this.currentToken = token;
-            this.currentUsername = username;
-            this.isAuthenticated = true;
-            this.loginAttempts = 0;
-            logger.info("User authenticated successfully: {}", username);
-            return true;
+    /**
+     * A still-valid token for this user from the token cache, if there is one
+     */
+    private SSOToken cachedToken(String username, String password) {
+        TokenCache cache = tokenCache;
+        if (cache == null || username == null || password == null || password.trim().isEmpty()) {
+            return null;
         }
+        TokenCache.Entry entry = cache.get(username);
+        if (entry == null || entry.getExpiresAt() - System.currentTimeMillis() < MIN_CACHED_LIFETIME_MILLIS) {
+            return null;
+        }
+        return SSOToken.restore(username, entry.getToken(), entry.getIssuedAt(), entry.getExpiresAt());
+    }
 
-        loginAttempts++;
-        logger.error("Token validation failed for user: {}", username);
-        return false;
+    private void cacheToken(String username, SSOToken token) {
+        TokenCache cache = tokenCache;
+        if (cache != null) {
+            cache.put(username, token.getToken(), token.getIssuedAt(), token.getExpiresAt());
+        }
     }
 
     /**
@@ -81,86 +166,176 @@ public class AuthenticationManager {
         return ticket;
     }
 
+    /**
+     * Logout current user, removing their token from the token cache
+     */
+    public void logout() {
+        logout(true);
+    }
+
     /**
      * Logout current user
+     *
+     * @param forgetCachedToken false when the login failed for a reason that says nothing about
+     *                          the token, such as a network error, so the cached token stays
+     *                          for the next attempt or a warm restart
      */
-    public synchronized void logout() {
-        if (currentToken != null) {
-            currentToken.revoke();
-        }
-        currentToken = null;
-        currentUsername = null;
-        isAuthenticated = false;
-        loginAttempts = 0;
+    public void logout(boolean forgetCachedToken) {
+        AuthState previous = state.getAndSet(AuthState.LOGGED_OUT);
+        replaceRefresh(null);
+        if (previous.token != null) {
+            TokenCache cache = tokenCache;
+            if (cache != null && forgetCachedToken) {
+                cache.remove(previous.username);
+            }
+            previous.token.revoke();
+        }
         logger.info("User logged out");
     }
 
     /**
      * Refresh authentication token
      */
-    public synchronized boolean refreshToken() {
-        if (currentToken == null || !currentToken.isValid()) {
+    public boolean refreshToken() {
+        AuthenticationEvent event = new AuthenticationEvent();
+        event.begin();
+        AuthState current = state.get();
+        boolean success = doRefreshToken(current);
+        if (event.shouldCommit()) {
+            event.record("refresh", current.username, success);
+        }
+        return success;
+    }
+
+    private boolean doRefreshToken(AuthState current) {
+        if (!current.isAuthenticatedAt(CoarseClock.currentTimeMillis())) {
             logger.warn("Cannot refresh: no valid token");
             return false;
         }
 
-        String newTicket = generateTicket(currentUsername, "refresh");
-        if (currentToken.refresh(newTicket)) {
-            logger.info("Token refreshed for user: {}", currentUsername);
-            return true;
+        SSOToken token = current.token;
+        String newTicket = generateTicket(current.username, "refresh");
+        if (!token.refresh(newTicket)) {
+            return false;
         }
+        // A logout or new login may have replaced the token meanwhile
+        AuthState updated = state.get();
+        if (updated.token != token) {
+            logger.warn("Session changed during token refresh for user: {}", current.username);
+            return false;
+        }
+        logger.info("Token refreshed for user: {}", current.username);
+        cacheToken(current.username, token);
+        scheduleRefresh(updated);
+        return true;
+    }
+
+    /**
+     * Refresh tokens proactively on {@code scheduler} (null stops), starting with the current one
+     */
+    public void setRefreshScheduler(TokenRefreshScheduler scheduler) {
+        this.refreshScheduler = scheduler;
+        AuthState current = state.get();
+        if (scheduler != null && current.token != null) {
+            scheduleRefresh(current);
+        } else {
+            replaceRefresh(null);
+        }
+    }
+
+    /**
+     * Reuse still-valid tokens from {@code cache} on login and keep it up to date; null disables
+     */
+    public void setTokenCache(TokenCache cache) {
+        this.tokenCache = cache;
+    }
 
-        return false;
+    public TokenCache getTokenCache() {
+        return tokenCache;
+    }
+
+    public TokenRefreshScheduler getRefreshScheduler() {
+        return refreshScheduler;
+    }
+
+    private void scheduleRefresh(AuthState current) {
+        TokenRefreshScheduler scheduler = refreshScheduler;
+        if (scheduler != null && current.token != null) {
+            long delay = scheduler.refreshDelayMillis(current.token.snapshot().expiresAt, System.currentTimeMillis());
+            replaceRefresh(scheduler.schedule(this, delay));
+        }
+    }
+
+    /**
+     * Try again later after a scheduled refresh failed
+     */
+    void retryRefresh(long delayMillis) {
+        TokenRefreshScheduler scheduler = refreshScheduler;
+        if (scheduler != null) {
+            replaceRefresh(scheduler.schedule(this, delayMillis));
+        }
+    }
+
+    private void replaceRefresh(HashedWheelTimer.Timeout next) {
+        HashedWheelTimer.Timeout previous = refreshTimeout.getAndSet(next);
+        if (previous != null) {
+            previous.cancel();
+        }
     }
 
     // Getters
     public boolean isAuthenticated() {
-        return isAuthenticated && currentToken != null && currentToken.isValid();
+        return state.get().isAuthenticatedAt(CoarseClock.currentTimeMillis());
     }
 
     public String getCurrentUsername() {
-        return currentUsername;
+        return state.get().username;
     }
 
     public SSOToken getCurrentToken() {
-        return currentToken;
+        return state.get().token;
     }
 
     public int getLoginAttempts() {
-        return loginAttempts;
+        return state.get().loginAttempts;
     }
 
     public int getRemainingLoginAttempts() {
-        return Math.max(0, maxLoginAttempts - loginAttempts);
+        return Math.max(0, maxLoginAttempts - getLoginAttempts());
     }
 
     public String getAuthenticationStatus() {
-        if (!isAuthenticated) {
-            return "Not authenticated";
-        }
-
-        if (currentToken == null) {
-            return "Invalid token";
-        }
+        AuthState current;
+        SSOToken.State token;
+        do {
+            current = state.get();
+            if (current.token == null) {
+                return "Not authenticated";
+            }
+            token = current.token.snapshot();
+            // A logout revokes the token after swapping the state; report the state it left
+        } while (!token.valid && state.get() != current);
 
-        if (!currentToken.isValid()) {
+        long now = CoarseClock.currentTimeMillis();
+        if (!token.isValidAt(now)) {
             return "Token expired";
         }
 
-        long remaining = currentToken.getRemainingTime();
+        long remaining = Math.max(0, token.expiresAt - now);
         long hours = remaining / (60 * 60 * 1000);
         long minutes = (remaining % (60 * 60 * 1000)) / (60 * 1000);
 
-        return "Authenticated as: " + currentUsername + 
+        return "Authenticated as: " + current.username + 
                " (Token expires in " + hours + "h " + minutes + "m)";
     }
 
     @Override
     public String toString() {
+        AuthState current = state.get();
         return "AuthenticationManager{" +
-                "authenticated=" + isAuthenticated +
-                ", user='" + currentUsername + '\'' +
-                ", attempts=" + loginAttempts + "/" + maxLoginAttempts +
+                "authenticated=" + (current.token != null) +
+                ", user='" + current.username + '\'' +
+                ", attempts=" + current.loginAttempts + "/" + maxLoginAttempts +
                 '}';
     }
 }
@@ -1,31 +1,75 @@
 package com.habbo.client.auth;
 
+import com.habbo.client.util.CoarseClock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * SSO Token manager for Habbo authentication
  * Handles Single Sign-On token generation and validation
+ * <p>
+ * The token's value, lifetime and validity form one immutable {@link State}; refresh and
+ * revoke replace it by compare-and-set, so readers take no lock. Expiry is checked against
+ * {@link CoarseClock}.
  */
 public class SSOToken {
     private static final Logger logger = LoggerFactory.getLogger(SSOToken.class);
+    public static final long LIFETIME_MILLIS = 24 * 60 * 60 * 1000; // 24 hours
 
-    private String token;
-    private String username;
-    private int userId;
-    private long issuedAt;
-    private long expiresAt;
-    private boolean isValid;
+    private final String username;
+    private final AtomicReference<State> state;
+    private volatile int userId;
 
     public SSOToken(String username, String ticket) {
         this.username = username;
-        this.issuedAt = System.currentTimeMillis();
-        this.expiresAt = issuedAt + (24 * 60 * 60 * 1000); // 24 hours
-        this.token = generateToken(username, ticket);
-        this.isValid = true;
+        this.state = new AtomicReference<>(State.issue(generateToken(username, ticket)));
         logger.debug("SSO Token created for user: {}", username);
     }
 
+    private SSOToken(String username, State state) {
+        this.username = username;
+        this.state = new AtomicReference<>(state);
+    }
+
+    /**
+     * A token issued earlier, e.g. read back from a {@link TokenCache}
+     */
+    static SSOToken restore(String username, String token, long issuedAt, long expiresAt) {
+        return new SSOToken(username, new State(token, issuedAt, expiresAt, true));
+    }
+
+    /**
+     * One version of the token; never modified
+     */
+    static final class State {
+        final String token;
+        final long issuedAt;
+        final long expiresAt;
+        final boolean valid;
+
+        private State(String token, long issuedAt, long expiresAt, boolean valid) {
+            this.token = token;
+            this.issuedAt = issuedAt;
+            this.expiresAt = expiresAt;
+            this.valid = valid;
+        }
+
+        static State issue(String token) {
+            long now = System.currentTimeMillis();
+            return new State(token, now, now + LIFETIME_MILLIS, true);
+        }
+
+        State invalidated() {
+            return valid ? new State(token, issuedAt, expiresAt, false) : this;
+        }
+
+        boolean isValidAt(long now) {
+            return valid && now <= expiresAt;
+        }
+    }
+
     /**
      * Generate SSO token from username and ticket
      * In real scenario, this would be obtained from Habbo SSO server
@@ -42,15 +86,17 @@ public class SSOToken {
     /**
      * Validate token against server
      */
-    public synchronized boolean validate() {
-        if (!isValid) {
+    public boolean validate() {
+        State current = state.get();
+        if (!current.valid) {
             logger.warn("Token validation failed: token is invalid");
             return false;
         }
 
-        if (System.currentTimeMillis() > expiresAt) {
+        if (System.currentTimeMillis() > current.expiresAt) {
             logger.warn("Token expired for user: {}", username);
-            isValid = false;
+            // A concurrent refresh wins; this only marks the version we looked at
+            state.compareAndSet(current, current.invalidated());
             return false;
         }
 
@@ -61,15 +107,21 @@ public class SSOToken {
     /**
      * Refresh the SSO token
      */
-    public synchronized boolean refresh(String newTicket) {
-        if (!isValid) {
+    public boolean refresh(String newTicket) {
+        State current = state.get();
+        if (!current.valid) {
             logger.warn("Cannot refresh invalid token");
             return false;
         }
 
-        this.token = generateToken(username, newTicket);
-        this.issuedAt = System.currentTimeMillis();
-        this.expiresAt = issuedAt + (24 * 60 * 60 * 1000);
+        State refreshed = State.issue(generateToken(username, newTicket));
+        while (!state.compareAndSet(current, refreshed)) {
+            current = state.get();
+            if (!current.valid) {
+                logger.warn("Token was revoked during refresh for user: {}", username);
+                return false;
+            }
+        }
         logger.info("Token refreshed for user: {}", username);
         return true;
     }
@@ -77,14 +129,21 @@ public class SSOToken {
     /**
      * Revoke the token
      */
-    public synchronized void revoke() {
-        this.isValid = false;
+    public void revoke() {
+        state.updateAndGet(State::invalidated);
         logger.info("Token revoked for user: {}", username);
     }
 
+    /**
+     * Current version of the token, for callers that need several fields consistently
+     */
+    State snapshot() {
+        return state.get();
+    }
+
     // Getters
     public String getToken() {
-        return token;
+        return state.get().token;
     }
 
     public String getUsername() {
@@ -100,19 +159,19 @@ public class SSOToken {
     }
 
     public long getIssuedAt() {
-        return issuedAt;
+        return state.get().issuedAt;
     }
 
     public long getExpiresAt() {
-        return expiresAt;
+        return state.get().expiresAt;
     }
 
     public boolean isValid() {
-        return isValid && System.currentTimeMillis() <= expiresAt;
+        return state.get().isValidAt(CoarseClock.currentTimeMillis());
     }
 
     public long getRemainingTime() {
-        return Math.max(0, expiresAt - System.currentTimeMillis());
+        return Math.max(0, state.get().expiresAt - CoarseClock.currentTimeMillis());
     }
 
     @Override
@@ -0,0 +1,411 @@
+package com.habbo.client.auth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk cache of SSO tokens by username, so a restart can reuse tokens that are still valid
+ * instead of authenticating every account again.
+ * <p>
+ * The file is append-only and memory-mapped: a header, then one record per put or remove, each
+ * {@code [length][crc32][iv + AES-GCM ciphertext]}. The latest record for a username wins, and
+ * the file is rewritten with only live entries when stale records outnumber them. On open,
+ * records are replayed up to the first one that is cut short, fails its checksum or does not
+ * decrypt, and the file is truncated there, so a crash mid-write loses at most that record.
+ * Writes go to the shared mapping, which outlives the process, and are forced to disk only on
+ * {@link #close} and compaction, so logins do not queue behind a sync; a machine crash may lose
+ * the latest records.
+ * Entries are encrypted with a key kept beside the file ({@code <file>.key}, owner-only).
+ * Cache failures are logged and never fail authentication.
+ */
+public final class TokenCache implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(TokenCache.class);
+    private static final int MAGIC = 0x48544B43; // "HTKC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 64 * 1024;
+    private static final int INITIAL_MAP_SIZE = 64 * 1024;
+    private static final int IV_SIZE = 12;
+    private static final int TAG_BITS = 128;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final SecureRandom random = new SecureRandom();
+    private static volatile TokenCache defaultCache;
+
+    static {
+        String path = System.getProperty("habbo.tokencache");
+        if (path != null && !path.isBlank()) {
+            try {
+                defaultCache = open(Path.of(path));
+            } catch (IOException e) {
+                logger.warn("Could not open token cache {}: {}", path, e.toString());
+            }
+        }
+    }
+
+    private final Path file;
+    private final SecretKey key;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private int writePosition;
+    private int records;
+
+    /**
+     * A cached token
+     */
+    public static final class Entry {
+        private final String username;
+        private final String token;
+        private final long issuedAt;
+        private final long expiresAt;
+
+        Entry(String username, String token, long issuedAt, long expiresAt) {
+            this.username = username;
+            this.token = token;
+            this.issuedAt = issuedAt;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public long getIssuedAt() {
+            return issuedAt;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+
+    public TokenCache(Path file, SecretKey key) throws IOException {
+        this.file = file;
+        this.key = key;
+        load();
+        if (records > 64 && records > 2 * entries.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Open {@code file}, creating it and its key file if needed
+     */
+    public static TokenCache open(Path file) throws IOException {
+        return new TokenCache(file, loadOrCreateKey(file.resolveSibling(file.getFileName() + ".key")));
+    }
+
+    /**
+     * Cache used by new sessions: the file named by {@code -Dhabbo.tokencache}, or none
+     */
+    public static TokenCache getDefault() {
+        return defaultCache;
+    }
+
+    public static void setDefault(TokenCache cache) {
+        defaultCache = cache;
+    }
+
+    private static SecretKey loadOrCreateKey(Path keyFile) throws IOException {
+        if (Files.exists(keyFile)) {
+            byte[] bytes = Files.readAllBytes(keyFile);
+            if (bytes.length != 32) {
+                throw new IOException("Token cache key must be 32 bytes: " + keyFile);
+            }
+            return new SecretKeySpec(bytes, "AES");
+        }
+        SecretKey key;
+        try {
+            KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(256, random);
+            key = generator.generateKey();
+        } catch (GeneralSecurityException e) {
+            throw new IOException("AES not available", e);
+        }
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(keyFile, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        }
+        Files.write(keyFile, key.getEncoded());
+        return key;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Cached token for a username, or null
+     */
+    public Entry get(String username) {
+        return entries.get(username);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Remember a token; returns false if it could not be written
+     */
+    public boolean put(String username, String token, long issuedAt, long expiresAt) {
+        return append(PUT, new Entry(username, token, issuedAt, expiresAt));
+    }
+
+    public boolean remove(String username) {
+        return !entries.containsKey(username) || append(REMOVE, new Entry(username, null, 0, 0));
+    }
+
+    /**
+     * Write a record, then apply it to {@link #entries} under the same lock so compaction sees it
+     */
+    private boolean append(byte type, Entry entry) {
+        writeLock.lock();
+        try {
+            if (channel == null) {
+                return false;
+            }
+            byte[] record = encrypt(encode(type, entry));
+            CRC32 crc = new CRC32();
+            crc.update(record);
+            ensureCapacity(RECORD_HEADER_SIZE + record.length);
+            // Length last: until it lands the slot still reads as the zero-filled end of the file
+            mapped.putInt(writePosition + 4, (int) crc.getValue());
+            mapped.put(writePosition + RECORD_HEADER_SIZE, record);
+            mapped.putInt(writePosition, record.length);
+            writePosition += RECORD_HEADER_SIZE + record.length;
+            records++;
+            if (type == PUT) {
+                entries.put(entry.username, entry);
+            } else {
+                entries.remove(entry.username);
+            }
+            if (records > 64 && records > 2 * entries.size()) {
+                compact();
+            }
+            return true;
+        } catch (IOException | GeneralSecurityException e) {
+            logger.warn("Could not write token cache {}: {}", file, e.toString());
+            return false;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void ensureCapacity(int bytes) throws IOException {
+        if (writePosition + bytes <= mapped.capacity()) {
+            return;
+        }
+        long size = mapped.capacity();
+        while (size < writePosition + bytes) {
+            size *= 2;
+        }
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    /**
+     * Replay the file into {@link #entries}, truncate any bad tail and map it for appending
+     */
+    private void load() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Token cache too large: " + file);
+        }
+        ByteBuffer contents = ByteBuffer.allocate((int) size);
+        while (contents.hasRemaining() && channel.read(contents, contents.position()) > 0) {
+            // read fully
+        }
+        contents.flip();
+
+        int end = 0;
+        if (size >= HEADER_SIZE && contents.getInt(0) == MAGIC && contents.getInt(4) == VERSION) {
+            end = replay(contents);
+        } else if (size > 0) {
+            logger.warn("Token cache {} has an unknown header, starting empty", file);
+        }
+        if (end < size) {
+            if (!isZeroFilled(contents, end)) {
+                logger.warn("Truncating token cache {} at byte {} ({} bytes unreadable)", file, end, size - end);
+            }
+            channel.truncate(end);
+        }
+
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(INITIAL_MAP_SIZE, Integer.highestOneBit(end) << 1));
+        if (end < HEADER_SIZE) {
+            mapped.putInt(0, MAGIC).putInt(4, VERSION);
+            end = HEADER_SIZE;
+        }
+        writePosition = end;
+    }
+
+    private static boolean isZeroFilled(ByteBuffer contents, int from) {
+        for (int i = from; i < contents.limit(); i++) {
+            if (contents.get(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return where the valid records end
+     */
+    private int replay(ByteBuffer contents) {
+        int position = HEADER_SIZE;
+        while (position + RECORD_HEADER_SIZE <= contents.limit()) {
+            int length = contents.getInt(position);
+            if (length == 0) {
+                // Zero fill past the last record of a mapped file
+                break;
+            }
+            if (length < 0 || length > MAX_RECORD_SIZE || position + RECORD_HEADER_SIZE + length > contents.limit()) {
+                break;
+            }
+            byte[] record = new byte[length];
+            contents.get(position + RECORD_HEADER_SIZE, record);
+            CRC32 crc = new CRC32();
+            crc.update(record);
+            if ((int) crc.getValue() != contents.getInt(position + 4)) {
+                break;
+            }
+            try {
+                apply(decrypt(record));
+            } catch (IOException | GeneralSecurityException e) {
+                break;
+            }
+            records++;
+            position += RECORD_HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    private void apply(byte[] plain) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(plain));
+        byte type = in.readByte();
+        String username = in.readUTF();
+        if (type == PUT) {
+            entries.put(username, new Entry(username, in.readUTF(), in.readLong(), in.readLong()));
+        } else if (type == REMOVE) {
+            entries.remove(username);
+        } else {
+            throw new IOException("Unknown record type " + type);
+        }
+    }
+
+    private static byte[] encode(byte type, Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(type);
+        out.writeUTF(entry.username);
+        if (type == PUT) {
+            out.writeUTF(entry.token);
+            out.writeLong(entry.issuedAt);
+            out.writeLong(entry.expiresAt);
+        }
+        return bytes.toByteArray();
+    }
+
+    private byte[] encrypt(byte[] plain) throws GeneralSecurityException {
+        byte[] iv = new byte[IV_SIZE];
+        random.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+        byte[] record = new byte[IV_SIZE + cipher.getOutputSize(plain.length)];
+        System.arraycopy(iv, 0, record, 0, IV_SIZE);
+        cipher.doFinal(plain, 0, plain.length, record, IV_SIZE);
+        return record;
+    }
+
+    private byte[] decrypt(byte[] record) throws GeneralSecurityException {
+        if (record.length <= IV_SIZE) {
+            throw new GeneralSecurityException("Record too short");
+        }
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, record, 0, IV_SIZE));
+        return cipher.doFinal(record, IV_SIZE, record.length - IV_SIZE);
+    }
+
+    /**
+     * Rewrite the file with only live entries and swap it in; caller holds the write lock or is the constructor
+     */
+    private void compact() throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        int written = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip());
+            for (Entry entry : entries.values()) {
+                byte[] record = encrypt(encode(PUT, entry));
+                CRC32 crc = new CRC32();
+                crc.update(record);
+                out.write(ByteBuffer.allocate(RECORD_HEADER_SIZE + record.length)
+                        .putInt(record.length).putInt((int) crc.getValue()).put(record).flip());
+                written++;
+            }
+            out.force(true);
+        } catch (GeneralSecurityException e) {
+            Files.deleteIfExists(temp);
+            throw new IOException("Could not encrypt token cache", e);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel.close();
+        // Replaying the compacted file yields the same entries
+        records = 0;
+        load();
+        logger.debug("Compacted token cache {} to {} entries", file, written);
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            if (channel != null) {
+                mapped.force();
+                mapped = null;
+                try {
+                    // Drop the zero fill past the last record; some platforms refuse while the mapping lives
+                    channel.truncate(writePosition);
+                } catch (IOException e) {
+                    logger.debug("Token cache {} left padded: {}", file, e.toString());
+                }
+                channel.close();
+                channel = null;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.habbo.client.auth;
+
+import com.habbo.client.util.HashedWheelTimer;
+import com.habbo.client.util.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Refreshes tokens before they expire, for any number of {@link AuthenticationManager}s,
+ * on one {@link HashedWheelTimer}.
+ * <p>
+ * Each authenticated manager has one timeout, set {@link #getLead()} before its token's
+ * expiry minus a random jitter of up to {@link #getJitter()}, so sessions that logged in
+ * together do not all refresh in the same second. Logging in, refreshing and logging out
+ * replace or cancel that timeout in O(1). Due refreshes queue up and run on the refresh
+ * executor, at most {@link #getMaxConcurrent()} at a time.
+ */
+public final class TokenRefreshScheduler implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(TokenRefreshScheduler.class);
+    public static final Duration DEFAULT_LEAD = Duration.ofSeconds(Long.getLong("habbo.refresh.lead", 300));
+    public static final Duration DEFAULT_JITTER = Duration.ofSeconds(Long.getLong("habbo.refresh.jitter", 60));
+    public static final int DEFAULT_MAX_CONCURRENT = Integer.getInteger("habbo.refresh.concurrency", 8);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+    private static volatile TokenRefreshScheduler shared;
+
+    private final HashedWheelTimer timer;
+    private final Duration lead;
+    private final Duration jitter;
+    private final int maxConcurrent;
+    private final Semaphore permits;
+    private final Queue<AuthenticationManager> due = new ConcurrentLinkedQueue<>();
+    private final ExecutorService executor = Threads.newTaskExecutor("HabboRefresh");
+    private final LongAdder refreshed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile boolean closed;
+
+    public TokenRefreshScheduler(Duration lead, Duration jitter, int maxConcurrent, Duration tick) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent must be at least 1");
+        }
+        this.lead = lead;
+        this.jitter = jitter;
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent);
+        this.timer = new HashedWheelTimer("HabboRefreshTimer", tick.toNanos(), TimeUnit.NANOSECONDS, 512);
+    }
+
+    /**
+     * Process-wide scheduler with the defaults and a one-second tick
+     */
+    public static TokenRefreshScheduler shared() {
+        TokenRefreshScheduler current = shared;
+        if (current == null) {
+            synchronized (TokenRefreshScheduler.class) {
+                current = shared;
+                if (current == null) {
+                    current = new TokenRefreshScheduler(DEFAULT_LEAD, DEFAULT_JITTER, DEFAULT_MAX_CONCURRENT,
+                            Duration.ofSeconds(1));
+                    shared = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Time until a token expiring at {@code expiresAt} should be refreshed
+     */
+    long refreshDelayMillis(long expiresAt, long now) {
+        long spread = jitter.toMillis() > 0 ? ThreadLocalRandom.current().nextLong(jitter.toMillis() + 1) : 0;
+        return Math.max(0, expiresAt - lead.toMillis() - spread - now);
+    }
+
+    /**
+     * @return the pending refresh, or null once the scheduler is closed
+     */
+    HashedWheelTimer.Timeout schedule(AuthenticationManager manager, long delayMillis) {
+        if (closed) {
+            return null;
+        }
+        try {
+            return timer.newTimeout(() -> submit(manager), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (IllegalStateException e) {
+            // Closed after the check; a login must not fail because refreshes have stopped
+            return null;
+        }
+    }
+
+    /**
+     * Runs on the timer thread, so only queues the refresh
+     */
+    private void submit(AuthenticationManager manager) {
+        due.add(manager);
+        drain();
+    }
+
+    private void drain() {
+        while (!due.isEmpty() && permits.tryAcquire()) {
+            AuthenticationManager manager = due.poll();
+            if (manager == null) {
+                permits.release();
+                continue;
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        refresh(manager);
+                    } finally {
+                        permits.release();
+                        drain();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Closed while the refresh was due; nothing more will run
+                permits.release();
+                due.clear();
+                logger.debug("Refresh for {} dropped: scheduler closed", manager.getCurrentUsername());
+                return;
+            }
+        }
+    }
+
+    private void refresh(AuthenticationManager manager) {
+        if (!manager.isAuthenticated()) {
+            return;
+        }
+        try {
+            // A successful refresh reschedules through the manager
+            if (manager.refreshToken()) {
+                refreshed.increment();
+                return;
+            }
+        } catch (RuntimeException e) {
+            logger.error("Token refresh failed for {}", manager.getCurrentUsername(), e);
+        }
+        failed.increment();
+        if (manager.isAuthenticated()) {
+            manager.retryRefresh(RETRY_DELAY.toMillis());
+        }
+    }
+
+    public Duration getLead() {
+        return lead;
+    }
+
+    public Duration getJitter() {
+        return jitter;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * Managers with a refresh scheduled
+     */
+    public long getScheduledCount() {
+        return timer.pendingTimeouts();
+    }
+
+    public long getRefreshedCount() {
+        return refreshed.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        timer.close();
+        executor.shutdown();
+    }
+}
@@ -1,10 +1,23 @@
 package com.habbo.client.cli;
 
 import com.habbo.client.HabboCLI;
+import com.habbo.client.diagnostics.CommandEvent;
+import com.habbo.client.diagnostics.FlightRecording;
+import com.habbo.client.metrics.ClientMetrics;
 import com.habbo.client.network.HabboConnection;
+import com.habbo.client.protocol.messages.AuthenticationResponseMessage;
+import com.habbo.client.session.BulkLogin;
+import com.habbo.client.session.Session;
+import com.habbo.client.session.SessionManager;
+import com.habbo.client.util.TokenBucket;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 /**
@@ -29,6 +42,9 @@ public class CommandInterpreter {
         commands.put("status", new StatusCommand());
         commands.put("login", new LoginCommand());
         commands.put("logout", new LogoutCommand());
+        commands.put("stats", new StatsCommand());
+        commands.put("jfr", new JfrCommand());
+        commands.put("session", new SessionCommand());
     }
 
     /**
@@ -39,6 +55,11 @@ public class CommandInterpreter {
         String commandName = parts[0].toLowerCase();
         String args = parts.length > 1 ? parts[1] : "";
 
+        if (parts[0].startsWith("@")) {
+            executeInSessions(parts[0].substring(1), args);
+            return;
+        }
+
         Command command = commands.get(commandName);
 
         if (command == null) {
@@ -47,14 +68,50 @@ public class CommandInterpreter {
             return;
         }
 
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        boolean success = false;
         try {
             command.execute(args);
+            success = true;
         } catch (Exception e) {
             logger.error("Error executing command: " + commandName, e);
             System.out.println("Error: " + e.getMessage());
+        } finally {
+            if (event.shouldCommit()) {
+                event.record(commandName, success);
+            }
         }
     }
 
+    /**
+     * Run a command against one session ({@code @id}) or every session ({@code @all}), in parallel
+     */
+    private void executeInSessions(String target, String command) {
+        if (target.isEmpty() || command.isEmpty()) {
+            System.out.println("Usage: @<session-id> <command> | @all <command>");
+            return;
+        }
+
+        SessionManager manager = HabboCLI.getSessionManager();
+        if (!"all".equalsIgnoreCase(target)) {
+            Session session = manager.get(target);
+            if (session == null) {
+                System.out.println("❌ Unknown session: " + target);
+                return;
+            }
+            HabboCLI.runInSession(session, () -> executeCommand(command));
+            return;
+        }
+
+        List<Session> sessions = manager.getSessions();
+        manager.forEach(sessions, session -> {
+            HabboCLI.runInSession(session, () -> executeCommand(command));
+            return true;
+        });
+        System.out.println("Ran '" + command.split("\\s+")[0] + "' on " + sessions.size() + " sessions");
+    }
+
     /**
      * Base interface for commands
      */
@@ -72,17 +129,22 @@ public class CommandInterpreter {
             System.out.println("║        Available Commands              ║");
             System.out.println("╚════════════════════════════════════════╝");
             System.out.println();
-            System.out.println("  connect <host:port>    - Connect to Habbo server");
+            System.out.println("  connect <host:port> [id] - Connect a session (default: 'default') and make it current");
             System.out.println("  status                 - Show connection status");
-            System.out.println("  login <user> <pass>    - Login with SSO authentication");
+            System.out.println("  login <user> <pass> [host:port [id]] - Login with SSO authentication, connecting first if given an address");
             System.out.println("  logout                 - Logout from account");
             System.out.println("  disconnect             - Disconnect from server");
+            System.out.println("  stats [reset]          - Show traffic counters and latencies");
+            System.out.println("  jfr start [file]|stop  - Record a Java Flight Recorder file");
+            System.out.println("  session <subcommand>   - Manage sessions (session help)");
+            System.out.println("  @<id>|@all <command>   - Run a command in one session or all sessions");
             System.out.println("  help                   - Show this help message");
             System.out.println("  exit/quit              - Exit the CLI");
             System.out.println();
             System.out.println("Example:");
             System.out.println("  > connect localhost:30000");
             System.out.println("  > login xiony mypassword");
+            System.out.println("  > login bot mypassword localhost:30000 bot");
             System.out.println("  > status");
             System.out.println("  > logout");
             System.out.println();
@@ -95,12 +157,13 @@ public class CommandInterpreter {
     private class ConnectCommand implements Command {
         @Override
         public void execute(String args) {
-            if (args.isEmpty()) {
-                System.out.println("Usage: connect <host:port>");
+            String[] words = args.trim().split("\\s+");
+            if (args.isEmpty() || words.length > 2) {
+                System.out.println("Usage: connect <host:port> [session-id]");
                 return;
             }
 
-            String[] parts = args.split(":");
+            String[] parts = words[0].split(":");
             if (parts.length != 2) {
                 System.out.println("Invalid format. Use: connect <host:port>");
                 return;
@@ -116,11 +179,15 @@ public class CommandInterpreter {
                 return;
             }
 
-            HabboConnection connection = new HabboConnection(host, port);
-            if (connection.connect()) {
-                HabboCLI.setConnection(connection);
-                System.out.println("✅ Connected to " + host + ":" + port);
+            String id = words.length > 1 ? words[1] : "default";
+            SessionManager manager = HabboCLI.getSessionManager();
+            manager.remove(id);
+            Session session = manager.create(id, host, port);
+            if (session.getConnection().connect()) {
+                HabboCLI.setCurrentSession(session);
+                System.out.println("✅ Connected to " + host + ":" + port + " (session " + id + ")");
             } else {
+                manager.remove(id);
                 System.out.println("❌ Failed to connect to " + host + ":" + port);
             }
         }
@@ -171,20 +238,24 @@ public class CommandInterpreter {
     private class LoginCommand implements Command {
         @Override
         public void execute(String args) {
-            HabboConnection connection = HabboCLI.getConnection();
-            if (connection == null || !connection.isConnected()) {
-                System.out.println("❌ Not connected to any server. Use 'connect' first.");
+            String[] parts = args.trim().split("\\s+");
+            if (parts.length < 2 || parts.length > 4) {
+                System.out.println("Usage: login <username> <password> [host:port [session-id]]");
                 return;
             }
 
-            String[] parts = args.split("\\s+");
-            if (parts.length < 2) {
-                System.out.println("Usage: login <username> <password>");
+            String username = parts[0];
+            String password = parts[1];
+            if (parts.length > 2) {
+                connectAndLogin(username, password, parts[2], parts.length > 3 ? parts[3] : "default");
                 return;
             }
 
-            String username = parts[0];
-            String password = parts[1];
+            HabboConnection connection = HabboCLI.getConnection();
+            if (connection == null || !connection.isConnected()) {
+                System.out.println("❌ Not connected to any server. Use 'connect' first, or 'login <username> <password> <host:port>'.");
+                return;
+            }
 
             System.out.println("🔐 Attempting to login as: " + username);
             
@@ -202,6 +273,34 @@ public class CommandInterpreter {
                 }
             }
         }
+
+        /**
+         * New session that sends its login with the handshake
+         */
+        private void connectAndLogin(String username, String password, String address, String id) {
+            String[] hostPort = address.split(":");
+            if (hostPort.length != 2) {
+                System.out.println("Invalid format. Use: login <username> <password> <host:port>");
+                return;
+            }
+            SessionManager manager = HabboCLI.getSessionManager();
+            manager.remove(id);
+            Session session = manager.create(id, hostPort[0], Integer.parseInt(hostPort[1]));
+            System.out.println("🔐 Connecting to " + address + " and logging in as: " + username);
+            AuthenticationResponseMessage.AuthStatus status = session.getConnection().connectAndLogin(username, password);
+            if (!session.isConnected()) {
+                manager.remove(id);
+                System.out.println("❌ Failed to connect to " + address);
+                return;
+            }
+            HabboCLI.setCurrentSession(session);
+            if (status == AuthenticationResponseMessage.AuthStatus.SUCCESS) {
+                System.out.println("✅ Logged in (session " + id + ")");
+                System.out.println("📊 " + session.getAuthManager().getAuthenticationStatus());
+            } else {
+                System.out.println("❌ Login failed: " + status.getMessage() + " (connected as session " + id + ")");
+            }
+        }
     }
 
     /**
@@ -224,4 +323,167 @@ public class CommandInterpreter {
             }
         }
     }
+
+    /**
+     * Stats command
+     */
+    private class StatsCommand implements Command {
+        @Override
+        public void execute(String args) {
+            ClientMetrics metrics = ClientMetrics.global();
+            if ("reset".equalsIgnoreCase(args.trim())) {
+                metrics.reset();
+                System.out.println("✅ Statistics reset");
+                return;
+            }
+
+            System.out.println("📊 Client statistics");
+            System.out.print(metrics.report());
+        }
+    }
+
+    /**
+     * Flight recording command
+     */
+    private class JfrCommand implements Command {
+        @Override
+        public void execute(String args) throws Exception {
+            String[] parts = args.trim().split("\\s+", 2);
+            switch (parts[0].toLowerCase()) {
+                case "start":
+                    Path file = parts.length > 1 ? Paths.get(parts[1])
+                            : Paths.get("habbo-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".jfr");
+                    FlightRecording.start(file);
+                    System.out.println("⏺️  Recording to " + file.toAbsolutePath());
+                    break;
+                case "stop":
+                    Path written = FlightRecording.stop();
+                    if (written == null) {
+                        System.out.println("❌ No recording in progress");
+                    } else {
+                        System.out.println("✅ Recording written to " + written.toAbsolutePath());
+                    }
+                    break;
+                case "status":
+                    Path destination = FlightRecording.getDestination();
+                    System.out.println(destination == null ? "Not recording" : "⏺️  Recording to " + destination.toAbsolutePath());
+                    break;
+                default:
+                    System.out.println("Usage: jfr start [file] | jfr stop | jfr status");
+            }
+        }
+    }
+
+    /**
+     * Session management command
+     */
+    private class SessionCommand implements Command {
+        @Override
+        public void execute(String args) throws Exception {
+            String[] parts = args.trim().split("\\s+");
+            SessionManager manager = HabboCLI.getSessionManager();
+            switch (parts[0].toLowerCase()) {
+                case "list":
+                    Session current = HabboCLI.getSession();
+                    for (Session session : manager.getSessions()) {
+                        System.out.println((session == current ? "* " : "  ") + session);
+                    }
+                    System.out.println(manager.size() + " session(s)");
+                    break;
+                case "use":
+                    if (parts.length < 2 || manager.get(parts[1]) == null) {
+                        System.out.println("❌ Unknown session. Usage: session use <id>");
+                        return;
+                    }
+                    HabboCLI.setCurrentSession(manager.get(parts[1]));
+                    System.out.println("✅ Current session: " + parts[1]);
+                    break;
+                case "close":
+                    if (parts.length < 2 || !manager.remove(parts[1])) {
+                        System.out.println("❌ Unknown session. Usage: session close <id>");
+                        return;
+                    }
+                    if (HabboCLI.getSession() != null && HabboCLI.getSession().getId().equals(parts[1])) {
+                        HabboCLI.setCurrentSession(null);
+                    }
+                    System.out.println("✅ Closed session " + parts[1]);
+                    break;
+                case "bulk":
+                    bulkConnect(manager, parts);
+                    break;
+                case "login-all":
+                    if (parts.length < 2) {
+                        System.out.println("Usage: session login-all <password>  (each session logs in as its ID)");
+                        return;
+                    }
+                    printResults("Logged in", manager.loginAll(manager.getSessions(), parts[1]));
+                    break;
+                case "login-file":
+                    loginFromFile(manager, parts);
+                    break;
+                case "logout-all":
+                    printResults("Logged out", manager.logoutAll(manager.getSessions()));
+                    break;
+                case "limit":
+                    if (parts.length > 1) {
+                        manager.setMaxConcurrency(Integer.parseInt(parts[1]));
+                    }
+                    System.out.println("Bulk operations run " + manager.getMaxConcurrency() + " sessions at a time");
+                    break;
+                default:
+                    System.out.println("Usage: session list | use <id> | close <id> | limit [n]");
+                    System.out.println("       session bulk <prefix> <count> <host:port>  - create and connect <prefix>-1..<count>");
+                    System.out.println("       session login-all <password> | logout-all");
+                    System.out.println("       session login-file <file> <host:port> [rate] [burst] [max-failures]"
+                            + "  - log in every username:password in <file>");
+            }
+        }
+
+        private void bulkConnect(SessionManager manager, String[] parts) {
+            String[] address = parts.length == 4 ? parts[3].split(":") : new String[0];
+            if (address.length != 2) {
+                System.out.println("Usage: session bulk <prefix> <count> <host:port>");
+                return;
+            }
+            int count = Integer.parseInt(parts[2]);
+            int port = Integer.parseInt(address[1]);
+            List<Session> created = new ArrayList<>(count);
+            for (int i = 1; i <= count; i++) {
+                String id = parts[1] + "-" + i;
+                if (manager.get(id) == null) {
+                    created.add(manager.create(id, address[0], port));
+                }
+            }
+            printResults("Connected", manager.connectAll(created));
+        }
+
+        private void loginFromFile(SessionManager manager, String[] parts) throws IOException {
+            String[] address = parts.length >= 3 ? parts[2].split(":") : new String[0];
+            if (address.length != 2) {
+                System.out.println("Usage: session login-file <file> <host:port> [rate] [burst] [max-failures]");
+                return;
+            }
+            double rate = parts.length > 3 ? Double.parseDouble(parts[3]) : 50;
+            int burst = parts.length > 4 ? Integer.parseInt(parts[4]) : (int) Math.max(1, rate);
+            int budget = parts.length > 5 ? Integer.parseInt(parts[5]) : BulkLogin.UNLIMITED_FAILURES;
+            List<BulkLogin.Credential> credentials = BulkLogin.readCredentials(Paths.get(parts[1]));
+            System.out.println("🔐 Logging in " + credentials.size() + " accounts at up to " + rate + "/s");
+            BulkLogin.Report report = new BulkLogin(manager, new TokenBucket(rate, burst), budget)
+                    .run(credentials, address[0], Integer.parseInt(address[1]));
+            System.out.println(report.format());
+        }
+
+        private void printResults(String action, Map<String, Boolean> results) {
+            List<String> failed = new ArrayList<>();
+            for (Map.Entry<String, Boolean> result : results.entrySet()) {
+                if (!result.getValue()) {
+                    failed.add(result.getKey());
+                }
+            }
+            System.out.println("✅ " + action + " " + (results.size() - failed.size()) + "/" + results.size() + " sessions");
+            if (!failed.isEmpty()) {
+                System.out.println("❌ Failed: " + String.join(", ", failed));
+            }
+        }
+    }
 }
@@ -0,0 +1,32 @@
+package com.habbo.client.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A login or token refresh in {@code AuthenticationManager}
+ */
+@Name("com.habbo.client.Authentication")
+@Label("Habbo Authentication")
+@Category({"Habbo", "Authentication"})
+@Description("Local authentication or token refresh")
+public final class AuthenticationEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Username")
+    String username;
+
+    @Label("Success")
+    boolean success;
+
+    public void record(String operation, String username, boolean success) {
+        this.operation = operation;
+        this.username = username;
+        this.success = success;
+        commit();
+    }
+}
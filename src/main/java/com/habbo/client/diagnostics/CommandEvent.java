@@ -0,0 +1,28 @@
+package com.habbo.client.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One CLI command. Only the command name is recorded; arguments may hold credentials.
+ */
+@Name("com.habbo.client.Command")
+@Label("Habbo Command")
+@Category({"Habbo", "CLI"})
+@Description("Execution of a CLI command")
+public final class CommandEvent extends Event {
+    @Label("Command")
+    String command;
+
+    @Label("Success")
+    boolean success;
+
+    public void record(String command, boolean success) {
+        this.command = command;
+        this.success = success;
+        commit();
+    }
+}
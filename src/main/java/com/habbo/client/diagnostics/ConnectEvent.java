@@ -0,0 +1,36 @@
+package com.habbo.client.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A {@code HabboConnection.connect()} attempt, spanning the TCP connect
+ */
+@Name("com.habbo.client.Connect")
+@Label("Habbo Connect")
+@Category({"Habbo", "Network"})
+@Description("Connection attempt to a Habbo server")
+public final class ConnectEvent extends Event {
+    @Label("Host")
+    String host;
+
+    @Label("Port")
+    int port;
+
+    @Label("Transport")
+    String transport;
+
+    @Label("Success")
+    boolean success;
+
+    public void record(String host, int port, String transport, boolean success) {
+        this.host = host;
+        this.port = port;
+        this.transport = transport;
+        this.success = success;
+        commit();
+    }
+}
@@ -0,0 +1,33 @@
+package com.habbo.client.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A connection closed, by the client or by the peer
+ */
+@Name("com.habbo.client.Disconnect")
+@Label("Habbo Disconnect")
+@Category({"Habbo", "Network"})
+@Description("Connection to a Habbo server closed")
+public final class DisconnectEvent extends Event {
+    @Label("Host")
+    String host;
+
+    @Label("Port")
+    int port;
+
+    @Label("Cause")
+    @Description("Error that closed the connection, empty for a requested disconnect")
+    String cause;
+
+    public void record(String host, int port, Throwable cause) {
+        this.host = host;
+        this.port = port;
+        this.cause = cause == null ? "" : cause.toString();
+        commit();
+    }
+}
@@ -0,0 +1,89 @@
+package com.habbo.client.diagnostics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Starts and stops the single in-process flight recording driven by the {@code jfr} command.
+ * Uses the JDK's "profile" settings; the client's own events are always enabled.
+ */
+public final class FlightRecording {
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecording.class);
+    private static final ReentrantLock lock = new ReentrantLock();
+    private static Recording current;
+    private static Path destination;
+
+    private FlightRecording() {
+    }
+
+    /**
+     * Start recording; the file is written when {@link #stop()} is called
+     *
+     * @throws IllegalStateException if a recording is already running
+     */
+    public static void start(Path file) throws IOException {
+        lock.lock();
+        try {
+            if (current != null) {
+                throw new IllegalStateException("Already recording to " + destination);
+            }
+            Recording recording;
+            try {
+                recording = new Recording(Configuration.getConfiguration("profile"));
+            } catch (ParseException e) {
+                throw new IOException("Cannot load JFR profile settings", e);
+            }
+            recording.setName("habbo-cli");
+            recording.setToDisk(true);
+            recording.setDestination(file);
+            recording.start();
+            current = recording;
+            destination = file;
+            logger.info("Flight recording started: {}", file);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stop recording and write the file
+     *
+     * @return the file written, or null if nothing was recording
+     */
+    public static Path stop() {
+        lock.lock();
+        try {
+            if (current == null) {
+                return null;
+            }
+            Path written = destination;
+            current.stop();
+            current.close();
+            current = null;
+            destination = null;
+            logger.info("Flight recording written: {}", written);
+            return written;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * File of the running recording, or null
+     */
+    public static Path getDestination() {
+        lock.lock();
+        try {
+            return destination;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
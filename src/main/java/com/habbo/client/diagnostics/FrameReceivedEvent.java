@@ -0,0 +1,32 @@
+package com.habbo.client.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One inbound frame, timed while it is decoded and handled on the I/O thread
+ */
+@Name("com.habbo.client.FrameReceived")
+@Label("Habbo Frame Received")
+@Category({"Habbo", "Protocol"})
+@Description("Inbound frame, timed across decoding and dispatch")
+@StackTrace(false)
+public final class FrameReceivedEvent extends Event {
+    @Label("Message ID")
+    int messageId;
+
+    @Label("Size")
+    @DataAmount
+    int size;
+
+    public void record(int messageId, int size) {
+        this.messageId = messageId;
+        this.size = size;
+        commit();
+    }
+}
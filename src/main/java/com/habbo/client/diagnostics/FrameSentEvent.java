@@ -0,0 +1,36 @@
+package com.habbo.client.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One outbound frame, from being queued until its last byte was written
+ */
+@Name("com.habbo.client.FrameSent")
+@Label("Habbo Frame Sent")
+@Category({"Habbo", "Protocol"})
+@Description("Outbound frame, timed from enqueue to written")
+@StackTrace(false)
+public final class FrameSentEvent extends Event {
+    @Label("Message ID")
+    int messageId;
+
+    @Label("Size")
+    @DataAmount
+    int size;
+
+    @Label("Success")
+    boolean success;
+
+    public void record(int messageId, int size, boolean success) {
+        this.messageId = messageId;
+        this.size = size;
+        this.success = success;
+        commit();
+    }
+}
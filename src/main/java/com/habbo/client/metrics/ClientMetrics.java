@@ -0,0 +1,282 @@
+package com.habbo.client.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide client counters and latency histograms. Every recording method is
+ * lock-free and allocation-free, so instrumentation stays on in production.
+ * The {@link #global()} instance is also exported over JMX.
+ */
+public final class ClientMetrics implements ClientMetricsMXBean {
+    private static final Logger logger = LoggerFactory.getLogger(ClientMetrics.class);
+    public static final String OBJECT_NAME = "com.habbo.client:type=ClientMetrics";
+    private static final int MESSAGE_ID_COUNT = 0x10000;
+    private static final ClientMetrics GLOBAL = new ClientMetrics();
+
+    static {
+        GLOBAL.registerMBean();
+    }
+
+    private final LongAdder framesIn = new LongAdder();
+    private final LongAdder framesOut = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder sendFailures = new LongAdder();
+    private final LongAdder decodeErrors = new LongAdder();
+    // A gauge, so reset() leaves it alone
+    private final LongAdder inboundQueueDepth = new LongAdder();
+    private final LongAdder inboundDropped = new LongAdder();
+    private final LongAdder inboundOverflows = new LongAdder();
+    private final LongAdder userCacheHits = new LongAdder();
+    private final LongAdder userCacheMisses = new LongAdder();
+    private final LongAdder userCacheEvictions = new LongAdder();
+    private final AtomicLongArray decodeErrorsById = new AtomicLongArray(MESSAGE_ID_COUNT);
+    private final LatencyHistogram sendQueueWait = new LatencyHistogram("send-queue-wait");
+    private final LatencyHistogram writeTime = new LatencyHistogram("write-time");
+    private final LatencyHistogram requestRoundTrip = new LatencyHistogram("request-round-trip");
+
+    public static ClientMetrics global() {
+        return GLOBAL;
+    }
+
+    private void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (JMException | SecurityException e) {
+            logger.warn("Could not register {} with JMX: {}", OBJECT_NAME, e.toString());
+        }
+    }
+
+    /**
+     * A frame arrived; {@code bytes} includes the length prefix
+     */
+    public void frameReceived(int bytes) {
+        framesIn.increment();
+        bytesIn.add(bytes);
+    }
+
+    /**
+     * A frame was fully written after waiting {@code queueNanos} in the send queue and
+     * {@code writeNanos} between its first write attempt and the last byte
+     */
+    public void frameSent(int bytes, long queueNanos, long writeNanos) {
+        framesOut.increment();
+        bytesOut.add(bytes);
+        sendQueueWait.record(queueNanos);
+        writeTime.record(writeNanos);
+    }
+
+    public void sendFailed() {
+        sendFailures.increment();
+    }
+
+    public void decodeFailed(int messageId) {
+        decodeErrors.increment();
+        if (messageId >= 0 && messageId < MESSAGE_ID_COUNT) {
+            decodeErrorsById.incrementAndGet(messageId);
+        }
+    }
+
+    public void requestCompleted(long roundTripNanos) {
+        requestRoundTrip.record(roundTripNanos);
+    }
+
+    /**
+     * Frames entered ({@code delta > 0}) or left an inbound dispatch queue
+     */
+    public void inboundQueued(long delta) {
+        inboundQueueDepth.add(delta);
+    }
+
+    /**
+     * A queued inbound frame was discarded to make room for a newer one
+     */
+    public void inboundDropped() {
+        inboundDropped.increment();
+    }
+
+    /**
+     * A connection was closed because its inbound dispatch queue was full
+     */
+    public void inboundOverflowed() {
+        inboundOverflows.increment();
+    }
+
+    /**
+     * A user cache lookup found ({@code hit}) or did not find its user
+     */
+    public void userCacheLookup(boolean hit) {
+        (hit ? userCacheHits : userCacheMisses).increment();
+    }
+
+    public void userCacheEvicted() {
+        userCacheEvictions.increment();
+    }
+
+    public long getDecodeErrors(int messageId) {
+        return decodeErrorsById.get(messageId);
+    }
+
+    public LatencyHistogram getSendQueueWait() {
+        return sendQueueWait;
+    }
+
+    public LatencyHistogram getWriteTime() {
+        return writeTime;
+    }
+
+    public LatencyHistogram getRequestRoundTrip() {
+        return requestRoundTrip;
+    }
+
+    @Override
+    public long getFramesIn() {
+        return framesIn.sum();
+    }
+
+    @Override
+    public long getFramesOut() {
+        return framesOut.sum();
+    }
+
+    @Override
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    @Override
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    @Override
+    public long getSendFailures() {
+        return sendFailures.sum();
+    }
+
+    @Override
+    public long getDecodeErrors() {
+        return decodeErrors.sum();
+    }
+
+    @Override
+    public long getInboundQueueDepth() {
+        return inboundQueueDepth.sum();
+    }
+
+    @Override
+    public long getInboundDropped() {
+        return inboundDropped.sum();
+    }
+
+    @Override
+    public long getInboundOverflows() {
+        return inboundOverflows.sum();
+    }
+
+    @Override
+    public long getUserCacheHits() {
+        return userCacheHits.sum();
+    }
+
+    @Override
+    public long getUserCacheMisses() {
+        return userCacheMisses.sum();
+    }
+
+    @Override
+    public long getUserCacheEvictions() {
+        return userCacheEvictions.sum();
+    }
+
+    @Override
+    public double getSendQueueWaitP50Micros() {
+        return sendQueueWait.snapshot().getValueAtPercentile(50) / 1e3;
+    }
+
+    @Override
+    public double getSendQueueWaitP99Micros() {
+        return sendQueueWait.snapshot().getValueAtPercentile(99) / 1e3;
+    }
+
+    @Override
+    public double getWriteTimeP50Micros() {
+        return writeTime.snapshot().getValueAtPercentile(50) / 1e3;
+    }
+
+    @Override
+    public double getWriteTimeP99Micros() {
+        return writeTime.snapshot().getValueAtPercentile(99) / 1e3;
+    }
+
+    @Override
+    public double getRequestRoundTripP50Micros() {
+        return requestRoundTrip.snapshot().getValueAtPercentile(50) / 1e3;
+    }
+
+    @Override
+    public double getRequestRoundTripP99Micros() {
+        return requestRoundTrip.snapshot().getValueAtPercentile(99) / 1e3;
+    }
+
+    @Override
+    public double getRequestRoundTripP999Micros() {
+        return requestRoundTrip.snapshot().getValueAtPercentile(99.9) / 1e3;
+    }
+
+    @Override
+    public String report() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("frames in:  %d (%d bytes)%n", getFramesIn(), getBytesIn()));
+        out.append(String.format("frames out: %d (%d bytes)%n", getFramesOut(), getBytesOut()));
+        out.append(String.format("send failures: %d%n", getSendFailures()));
+        out.append(String.format("decode errors: %d", getDecodeErrors()));
+        String separator = " (";
+        for (int id = 0; id < MESSAGE_ID_COUNT; id++) {
+            long errors = decodeErrorsById.get(id);
+            if (errors > 0) {
+                out.append(separator).append(String.format("0x%04x: %d", id, errors));
+                separator = ", ";
+            }
+        }
+        out.append(separator.equals(", ") ? ")" : "").append(System.lineSeparator());
+        out.append(String.format("inbound queued: %d (dropped %d, overflow disconnects %d)%n",
+                getInboundQueueDepth(), getInboundDropped(), getInboundOverflows()));
+        long lookups = getUserCacheHits() + getUserCacheMisses();
+        out.append(String.format("user cache: %d hits, %d misses (%.1f%% hit rate), %d evictions%n",
+                getUserCacheHits(), getUserCacheMisses(), lookups == 0 ? 0.0 : 100.0 * getUserCacheHits() / lookups,
+                getUserCacheEvictions()));
+        for (LatencyHistogram histogram : new LatencyHistogram[]{sendQueueWait, writeTime, requestRoundTrip}) {
+            out.append(String.format("%-19s %s%n", histogram.getName() + ":", histogram.snapshot().format()));
+        }
+        return out.toString();
+    }
+
+    @Override
+    public void reset() {
+        framesIn.reset();
+        framesOut.reset();
+        bytesIn.reset();
+        bytesOut.reset();
+        sendFailures.reset();
+        decodeErrors.reset();
+        inboundDropped.reset();
+        inboundOverflows.reset();
+        userCacheHits.reset();
+        userCacheMisses.reset();
+        userCacheEvictions.reset();
+        for (int id = 0; id < MESSAGE_ID_COUNT; id++) {
+            decodeErrorsById.set(id, 0);
+        }
+        sendQueueWait.reset();
+        writeTime.reset();
+        requestRoundTrip.reset();
+    }
+}
@@ -0,0 +1,55 @@
+package com.habbo.client.metrics;
+
+/**
+ * JMX view of {@link ClientMetrics}, registered as {@value ClientMetrics#OBJECT_NAME}.
+ * Latencies are in microseconds.
+ */
+public interface ClientMetricsMXBean {
+    long getFramesIn();
+
+    long getFramesOut();
+
+    long getBytesIn();
+
+    long getBytesOut();
+
+    long getSendFailures();
+
+    long getDecodeErrors();
+
+    /**
+     * Frames waiting in inbound dispatch queues across all connections
+     */
+    long getInboundQueueDepth();
+
+    long getInboundDropped();
+
+    long getInboundOverflows();
+
+    long getUserCacheHits();
+
+    long getUserCacheMisses();
+
+    long getUserCacheEvictions();
+
+    double getSendQueueWaitP50Micros();
+
+    double getSendQueueWaitP99Micros();
+
+    double getWriteTimeP50Micros();
+
+    double getWriteTimeP99Micros();
+
+    double getRequestRoundTripP50Micros();
+
+    double getRequestRoundTripP99Micros();
+
+    double getRequestRoundTripP999Micros();
+
+    /**
+     * Multi-line report, as printed by the {@code stats} command
+     */
+    String report();
+
+    void reset();
+}
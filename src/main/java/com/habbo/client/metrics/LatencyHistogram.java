@@ -0,0 +1,149 @@
+package com.habbo.client.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-memory latency histogram in nanoseconds, bucketed like HdrHistogram: exact below
+ * {@value #SUB_BUCKETS} ns, then {@value #HALF_BUCKETS} linear buckets per power of two
+ * (under 1.6% relative error) up to about 18 minutes. Recording is lock-free and never allocates.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKETS = 128;
+    private static final int HALF_BUCKETS = SUB_BUCKETS / 2;
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final long MAX_VALUE = (1L << 40) - 1;
+    private static final int BUCKET_COUNT = indexOf(MAX_VALUE) + 1;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Record one value; negative values count as zero and values beyond the range as the maximum
+     */
+    public void record(long nanos) {
+        long value = nanos < 0 ? 0 : Math.min(nanos, MAX_VALUE);
+        counts.incrementAndGet(indexOf(value));
+        count.increment();
+        sum.add(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // retry until our value is recorded or a larger one wins
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    /**
+     * Copy the current counts; concurrent recording may be partly included
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(copy, total, sum.sum(), max.get());
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * Largest value that maps to bucket {@code index}
+     */
+    static long highestValueAt(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long low = (long) (index - (shift << SUB_BUCKET_BITS)) << shift;
+        return low + (1L << shift) - 1;
+    }
+
+    /**
+     * Point-in-time view of a histogram
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Value at or below which {@code percentile} percent of recordings fall (0 when empty)
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueAt(i), max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * One-line summary in microseconds, e.g. for the {@code stats} command
+         */
+        public String format() {
+            return String.format("n=%d mean=%.1fus p50=%.1fus p99=%.1fus p999=%.1fus max=%.1fus",
+                    count, getMean() / 1e3, micros(getValueAtPercentile(50)), micros(getValueAtPercentile(99)),
+                    micros(getValueAtPercentile(99.9)), micros(max));
+        }
+
+        private static double micros(long nanos) {
+            return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+        }
+    }
+}
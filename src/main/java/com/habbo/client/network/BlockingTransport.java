@@ -0,0 +1,182 @@
+package com.habbo.client.network;
+
+import com.habbo.client.protocol.BufferPool;
+import com.habbo.client.util.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Legacy transport: a blocking socket plus one receiver thread per connection.
+ * The receiver is a virtual thread when {@link Threads} has them enabled.
+ * Writes are done by whichever sending thread wins the writer flag, so there is
+ * no writer thread and no lock for senders to queue on.
+ */
+final class BlockingTransport implements Transport {
+    private static final Logger logger = LoggerFactory.getLogger(BlockingTransport.class);
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final OutboundQueue outbound;
+    private final AtomicBoolean writing = new AtomicBoolean();
+    private SocketChannel channel;
+    private Handler handler;
+    private final AtomicBoolean open = new AtomicBoolean();
+    // The receiver parks on readsResumed while reads are suspended
+    private final ReentrantLock readLock = new ReentrantLock();
+    private final Condition readsResumed = readLock.newCondition();
+    private boolean readsSuspended;
+
+    BlockingTransport(FlushPolicy flushPolicy) {
+        this.outbound = new OutboundQueue(flushPolicy, this::flushNow);
+    }
+
+    @Override
+    public void connect(String host, int port, Handler handler) throws IOException {
+        this.handler = handler;
+        channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        open.set(true);
+
+        startReceivingThread();
+    }
+
+    @Override
+    public CompletableFuture<Void> write(ByteBuffer header, ByteBuffer body, BufferPool recycler) {
+        if (!open.get()) {
+            if (recycler != null) {
+                recycler.release(body);
+            }
+            return CompletableFuture.failedFuture(new ClosedChannelException());
+        }
+        CompletableFuture<Void> result = outbound.enqueue(header, body, recycler);
+        if (!open.get()) {
+            outbound.failQueued(new ClosedChannelException());
+        }
+        return result;
+    }
+
+    /**
+     * Drain the outbound queue on the calling thread unless another thread is already writing,
+     * in which case that thread picks up our frames
+     */
+    private void flushNow() {
+        do {
+            if (!writing.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                if (open.get()) {
+                    outbound.writeTo(channel);
+                } else {
+                    outbound.failAll(new ClosedChannelException());
+                }
+            } catch (IOException e) {
+                logger.error("Error sending data to server", e);
+                outbound.failAll(e);
+                closeWithError(e);
+            } finally {
+                writing.set(false);
+            }
+        } while (open.get() && outbound.hasQueued());
+    }
+
+    /**
+     * Start a thread to receive messages from the server.
+     * Each read fills as much of a 64 KB buffer as the socket has ready.
+     */
+    private void startReceivingThread() {
+        Thread receiverThread = Threads.newThread("HabboReceiver", () -> {
+            ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+            FrameDecoder frameDecoder = new FrameDecoder();
+            try {
+                while (open.get()) {
+                    awaitReadsResumed();
+                    ByteBuffer target = frameDecoder.readTarget(readBuffer);
+                    if (channel.read(target) < 0) {
+                        throw new EOFException("Connection closed by server");
+                    }
+                    frameDecoder.decode(target, handler);
+                }
+            } catch (IOException e) {
+                closeWithError(e);
+            } catch (InterruptedException e) {
+                closeWithError(new IOException("Receiver interrupted", e));
+            }
+        });
+        receiverThread.start();
+    }
+
+    private void awaitReadsResumed() throws InterruptedException {
+        readLock.lock();
+        try {
+            while (readsSuspended && open.get()) {
+                readsResumed.await();
+            }
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public void suspendReads() {
+        readLock.lock();
+        try {
+            readsSuspended = true;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public void resumeReads() {
+        readLock.lock();
+        try {
+            readsSuspended = false;
+            readsResumed.signalAll();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private void closeWithError(IOException cause) {
+        if (open.compareAndSet(true, false)) {
+            closeChannel();
+            handler.onClosed(cause);
+        }
+    }
+
+    @Override
+    public void close() {
+        open.set(false);
+        closeChannel();
+        flushNow();
+        // Release a receiver parked on suspended reads
+        resumeReads();
+    }
+
+    private void closeChannel() {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            logger.debug("Error closing socket", e);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open.get();
+    }
+}
@@ -0,0 +1,130 @@
+package com.habbo.client.network;
+
+/**
+ * Decides where inbound frames are handled: inline on the I/O thread, or through a bounded
+ * per-connection queue drained by a shared worker pool
+ */
+public final class DispatchPolicy {
+
+    public enum Mode {
+        /**
+         * Handle each frame on the I/O thread as it is decoded, without copying it
+         */
+        INLINE,
+
+        /**
+         * Copy frames into a per-connection queue; workers deliver them in order, one at a time
+         */
+        QUEUED
+    }
+
+    /**
+     * What to do with a frame that arrives while the connection's queue is full
+     */
+    public enum Overflow {
+        /**
+         * Stop reading the socket until the queue is half drained, letting TCP push back on the server
+         */
+        BLOCK_READS,
+
+        /**
+         * Discard the oldest queued frame to make room
+         */
+        DROP_OLDEST,
+
+        /**
+         * Close the connection
+         */
+        DISCONNECT
+    }
+
+    private static final DispatchPolicy INLINE = new DispatchPolicy(Mode.INLINE, 0, null);
+    private static volatile DispatchPolicy defaultPolicy = parse(System.getProperty("habbo.dispatch"), INLINE);
+
+    private final Mode mode;
+    private final int capacity;
+    private final Overflow overflow;
+
+    private DispatchPolicy(Mode mode, int capacity, Overflow overflow) {
+        this.mode = mode;
+        this.capacity = capacity;
+        this.overflow = overflow;
+    }
+
+    public static DispatchPolicy inline() {
+        return INLINE;
+    }
+
+    public static DispatchPolicy queued(int capacity, Overflow overflow) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        return new DispatchPolicy(Mode.QUEUED, capacity, overflow);
+    }
+
+    public static DispatchPolicy getDefault() {
+        return defaultPolicy;
+    }
+
+    public static void setDefault(DispatchPolicy policy) {
+        defaultPolicy = policy;
+    }
+
+    /**
+     * Parse {@code inline} or {@code queue:<capacity>[:block|drop-oldest|disconnect]} (block by default),
+     * returning the fallback for a missing or malformed value
+     */
+    public static DispatchPolicy parse(String value, DispatchPolicy fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        String[] parts = value.trim().toLowerCase().split(":");
+        try {
+            switch (parts[0]) {
+                case "inline":
+                    return INLINE;
+                case "queue":
+                    Overflow overflow = parts.length > 2 ? parseOverflow(parts[2]) : Overflow.BLOCK_READS;
+                    return overflow == null ? fallback : queued(Integer.parseInt(parts[1]), overflow);
+                default:
+                    return fallback;
+            }
+        } catch (RuntimeException e) {
+            return fallback;
+        }
+    }
+
+    private static Overflow parseOverflow(String value) {
+        switch (value) {
+            case "block":
+            case "block-reads":
+                return Overflow.BLOCK_READS;
+            case "drop-oldest":
+                return Overflow.DROP_OLDEST;
+            case "disconnect":
+                return Overflow.DISCONNECT;
+            default:
+                return null;
+        }
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public Overflow getOverflow() {
+        return overflow;
+    }
+
+    @Override
+    public String toString() {
+        if (mode == Mode.INLINE) {
+            return "inline";
+        }
+        return "queue:" + capacity + ":" + overflow.name().toLowerCase().replace('_', '-');
+    }
+}
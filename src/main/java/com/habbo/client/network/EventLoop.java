@@ -0,0 +1,127 @@
+package com.habbo.client.network;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Single-threaded selector loop that drives many non-blocking channels.
+ * All channel registration and interest changes happen on the loop thread.
+ */
+final class EventLoop implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(EventLoop.class);
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    private final Thread thread;
+    private volatile boolean running = true;
+    private ByteBuffer readBuffer;
+
+    EventLoop(String name) throws IOException {
+        this.selector = Selector.open();
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Events delivered to the attachment of a registered channel
+     */
+    interface Handler {
+        void onReadable();
+
+        void onWritable();
+    }
+
+    boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Run a task on the loop thread
+     */
+    void execute(Runnable task) {
+        tasks.add(task);
+        if (!inEventLoop() && wakeupPending.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Register a channel; must be called on the loop thread
+     */
+    SelectionKey register(SelectableChannel channel, int ops, Handler handler) throws ClosedChannelException {
+        return channel.register(selector, ops, handler);
+    }
+
+    /**
+     * Read buffer shared by every channel on this loop; only used on the loop thread
+     */
+    ByteBuffer readBuffer() {
+        if (readBuffer == null) {
+            readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        }
+        return readBuffer;
+    }
+
+    int registeredChannels() {
+        return selector.keys().size();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select(this::processKey);
+                wakeupPending.set(false);
+                runTasks();
+            } catch (IOException e) {
+                logger.error("Selector failure in {}", thread.getName(), e);
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error in {}", thread.getName(), e);
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            logger.debug("Error closing selector", e);
+        }
+    }
+
+    private void processKey(SelectionKey key) {
+        Handler handler = (Handler) key.attachment();
+        if (key.isValid() && key.isReadable()) {
+            handler.onReadable();
+        }
+        if (key.isValid() && key.isWritable()) {
+            handler.onWritable();
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("Event loop task failed", e);
+            }
+        }
+    }
+
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+}
@@ -0,0 +1,64 @@
+package com.habbo.client.network;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed set of selector event loops; connections are spread over them round-robin
+ */
+public final class EventLoopGroup {
+    private static volatile EventLoopGroup shared;
+
+    private final EventLoop[] loops;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public EventLoopGroup(int loopCount) {
+        if (loopCount < 1) {
+            throw new IllegalArgumentException("loopCount must be positive: " + loopCount);
+        }
+        this.loops = new EventLoop[loopCount];
+        try {
+            for (int i = 0; i < loopCount; i++) {
+                loops[i] = new EventLoop("HabboEventLoop-" + i);
+            }
+        } catch (IOException e) {
+            shutdown();
+            throw new UncheckedIOException("Failed to open selector", e);
+        }
+    }
+
+    /**
+     * Process-wide group, one loop per core unless {@code habbo.nio.loops} says otherwise
+     */
+    public static EventLoopGroup shared() {
+        EventLoopGroup group = shared;
+        if (group == null) {
+            synchronized (EventLoopGroup.class) {
+                group = shared;
+                if (group == null) {
+                    int loops = Integer.getInteger("habbo.nio.loops", Runtime.getRuntime().availableProcessors());
+                    group = new EventLoopGroup(Math.max(1, loops));
+                    shared = group;
+                }
+            }
+        }
+        return group;
+    }
+
+    EventLoop next() {
+        return loops[Math.floorMod(next.getAndIncrement(), loops.length)];
+    }
+
+    public int size() {
+        return loops.length;
+    }
+
+    public void shutdown() {
+        for (EventLoop loop : loops) {
+            if (loop != null) {
+                loop.shutdown();
+            }
+        }
+    }
+}
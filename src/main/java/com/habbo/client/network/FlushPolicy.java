@@ -0,0 +1,119 @@
+package com.habbo.client.network;
+
+import java.time.Duration;
+
+/**
+ * Decides when queued outbound frames are written to the socket
+ */
+public final class FlushPolicy {
+
+    public enum Mode {
+        /**
+         * Write as soon as a frame is queued; frames queued while a write is running are batched
+         */
+        IMMEDIATE,
+
+        /**
+         * Nagle-like: the first frame opens a window, everything queued inside it goes out in one write
+         */
+        TIME_WINDOW,
+
+        /**
+         * Write once enough bytes are queued, or when the maximum delay runs out
+         */
+        SIZE_THRESHOLD
+    }
+
+    private static final FlushPolicy IMMEDIATE = new FlushPolicy(Mode.IMMEDIATE, 0, 0);
+    private static volatile FlushPolicy defaultPolicy = parse(System.getProperty("habbo.flush"), IMMEDIATE);
+
+    private final Mode mode;
+    private final long delayNanos;
+    private final int thresholdBytes;
+
+    private FlushPolicy(Mode mode, long delayNanos, int thresholdBytes) {
+        this.mode = mode;
+        this.delayNanos = delayNanos;
+        this.thresholdBytes = thresholdBytes;
+    }
+
+    public static FlushPolicy immediate() {
+        return IMMEDIATE;
+    }
+
+    public static FlushPolicy timeWindow(Duration window) {
+        return new FlushPolicy(Mode.TIME_WINDOW, positive(window), 0);
+    }
+
+    public static FlushPolicy sizeThreshold(int bytes, Duration maxDelay) {
+        if (bytes < 1) {
+            throw new IllegalArgumentException("Threshold must be positive: " + bytes);
+        }
+        return new FlushPolicy(Mode.SIZE_THRESHOLD, positive(maxDelay), bytes);
+    }
+
+    public static FlushPolicy getDefault() {
+        return defaultPolicy;
+    }
+
+    public static void setDefault(FlushPolicy policy) {
+        defaultPolicy = policy;
+    }
+
+    /**
+     * Parse {@code immediate}, {@code window:<ms>} or {@code size:<bytes>[:<ms>]},
+     * returning the fallback for a missing or malformed value
+     */
+    public static FlushPolicy parse(String value, FlushPolicy fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        String[] parts = value.trim().toLowerCase().split(":");
+        try {
+            switch (parts[0]) {
+                case "immediate":
+                    return IMMEDIATE;
+                case "window":
+                    return timeWindow(Duration.ofMillis(Long.parseLong(parts[1])));
+                case "size":
+                    long delay = parts.length > 2 ? Long.parseLong(parts[2]) : 5;
+                    return sizeThreshold(Integer.parseInt(parts[1]), Duration.ofMillis(delay));
+                default:
+                    return fallback;
+            }
+        } catch (RuntimeException e) {
+            return fallback;
+        }
+    }
+
+    private static long positive(Duration duration) {
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Delay must be positive: " + duration);
+        }
+        return duration.toNanos();
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public long getDelayNanos() {
+        return delayNanos;
+    }
+
+    public int getThresholdBytes() {
+        return thresholdBytes;
+    }
+
+    @Override
+    public String toString() {
+        switch (mode) {
+            case TIME_WINDOW:
+                return "window:" + Duration.ofNanos(delayNanos).toMillis() + "ms";
+            case SIZE_THRESHOLD:
+                return "size:" + thresholdBytes + "B/" + Duration.ofNanos(delayNanos).toMillis() + "ms";
+            default:
+                return "immediate";
+        }
+    }
+}
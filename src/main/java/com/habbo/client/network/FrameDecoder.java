@@ -0,0 +1,132 @@
+package com.habbo.client.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Incremental decoder for length-prefixed frames.
+ * <p>
+ * Transports read into a large reusable buffer (shared per event loop or per receiver)
+ * and every complete frame in it is handed to the {@link FrameHandler} as a view of
+ * that buffer, without copying. Only the bytes of a frame that is split across reads
+ * are moved into a small per-connection buffer, which is released once the frame
+ * completes, so idle connections hold no read buffer at all.
+ */
+public final class FrameDecoder {
+    private static final int HEADER_LENGTH = 4;
+
+    private final int maxFrameLength;
+    private ByteBuffer partial;
+
+    public FrameDecoder() {
+        this(Transport.MAX_FRAME_LENGTH);
+    }
+
+    public FrameDecoder(int maxFrameLength) {
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    /**
+     * Receives decoded frames. The buffer is positioned at the frame body and limited
+     * to its end; it is only valid for the duration of the call.
+     */
+    @FunctionalInterface
+    public interface FrameHandler {
+        void onFrame(ByteBuffer frame);
+    }
+
+    /**
+     * Buffer the next read should fill: the pending partial frame if there is one,
+     * otherwise the caller's shared buffer (which must be clear)
+     */
+    public ByteBuffer readTarget(ByteBuffer shared) {
+        return partial != null ? partial : shared;
+    }
+
+    /**
+     * Deliver every complete frame in {@code target} (as filled by the last read,
+     * still in write mode). Leftover bytes are retained for the next read and
+     * {@code target} is left ready to be filled again.
+     *
+     * @return number of frames delivered
+     */
+    public int decode(ByteBuffer target, FrameHandler handler) throws IOException {
+        target.flip();
+        int frames = deliverFrames(target, handler);
+
+        if (target == partial) {
+            if (target.hasRemaining()) {
+                target.compact();
+                partial = ensureCapacity(target, requiredLength(target, 0, target.position()));
+            } else {
+                partial = null;
+            }
+        } else {
+            if (target.hasRemaining()) {
+                int required = requiredLength(target, target.position(), target.remaining());
+                partial = ByteBuffer.allocate(required);
+                partial.put(target);
+            }
+            target.clear();
+        }
+        return frames;
+    }
+
+    /**
+     * Whether bytes of an incomplete frame are buffered
+     */
+    public boolean hasPartialFrame() {
+        return partial != null;
+    }
+
+    private int deliverFrames(ByteBuffer in, FrameHandler handler) throws IOException {
+        int frames = 0;
+        int limit = in.limit();
+        while (in.remaining() >= HEADER_LENGTH) {
+            int start = in.position();
+            int length = checkLength(in.getInt(start));
+            int end = start + HEADER_LENGTH + length;
+            if (end > limit) {
+                break;
+            }
+            in.limit(end).position(start + HEADER_LENGTH);
+            try {
+                handler.onFrame(in);
+            } finally {
+                in.limit(limit).position(end);
+            }
+            frames++;
+        }
+        return frames;
+    }
+
+    /**
+     * Bytes needed to hold the frame starting at {@code offset}, given {@code available} bytes of it
+     */
+    private int requiredLength(ByteBuffer buffer, int offset, int available) throws IOException {
+        if (available < HEADER_LENGTH) {
+            return HEADER_LENGTH;
+        }
+        return HEADER_LENGTH + checkLength(buffer.getInt(offset));
+    }
+
+    private int checkLength(int length) throws IOException {
+        if (length < 0 || length > maxFrameLength) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        return length;
+    }
+
+    /**
+     * Grow a buffer in write mode so it can hold {@code required} bytes in total
+     */
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, int required) {
+        if (buffer.capacity() >= required) {
+            return buffer;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(required);
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+}
@@ -1,33 +1,72 @@
 package com.habbo.client.network;
 
 import com.habbo.client.auth.AuthenticationManager;
+import com.habbo.client.diagnostics.ConnectEvent;
+import com.habbo.client.diagnostics.DisconnectEvent;
+import com.habbo.client.diagnostics.FrameReceivedEvent;
+import com.habbo.client.diagnostics.FrameSentEvent;
+import com.habbo.client.metrics.ClientMetrics;
+import com.habbo.client.protocol.MessageRegistry;
+import com.habbo.client.protocol.ProtocolEncoder;
+import com.habbo.client.protocol.ProtocolMessage;
 import com.habbo.client.protocol.messages.AuthenticationMessage;
 import com.habbo.client.protocol.messages.AuthenticationResponseMessage;
+import com.habbo.client.util.Threads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.*;
-import java.net.Socket;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
- * Connection handler for Habbo server communication
+ * Connection handler for Habbo server communication.
+ * The socket itself is owned by a {@link Transport} chosen through {@link TransportMode}.
  */
 public class HabboConnection {
     private static final Logger logger = LoggerFactory.getLogger(HabboConnection.class);
+    private static final MessageRegistry<HabboConnection> DEFAULT_REGISTRY = new MessageRegistry<HabboConnection>()
+            .register(AuthenticationMessage.MESSAGE_ID, AuthenticationMessage::new)
+            .register(AuthenticationResponseMessage.MESSAGE_ID, AuthenticationResponseMessage::new);
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static volatile ExecutorService loginExecutor;
 
     private String host;
     private int port;
-    private Socket socket;
-    private DataInputStream inputStream;
-    private DataOutputStream outputStream;
-    private boolean connected;
-    private boolean authenticated;
+    private final TransportMode transportMode;
+    private FlushPolicy flushPolicy = FlushPolicy.getDefault();
+    private DispatchPolicy dispatchPolicy = DispatchPolicy.getDefault();
+    private volatile Transport transport;
+    private volatile TransportHandler transportHandler;
+    private volatile MessagePublisher publisher;
+    private volatile boolean connected;
+    private volatile boolean authenticated;
+    // A login is waiting for the server's reply; guarded by the state lock
+    private boolean loggingIn;
     private ConnectionListener connectionListener;
+    private volatile MessageRegistry<HabboConnection> messageRegistry = DEFAULT_REGISTRY;
     private AuthenticationManager authManager;
+    private final PendingRequests pendingRequests = new PendingRequests();
+    private volatile Duration requestTimeout = DEFAULT_REQUEST_TIMEOUT;
+    // Guards connection state; a ReentrantLock so blocking I/O under it does not pin virtual threads
+    private final ReentrantLock stateLock = new ReentrantLock();
 
     public HabboConnection(String host, int port) {
+        this(host, port, TransportMode.getDefault());
+    }
+
+    public HabboConnection(String host, int port, TransportMode transportMode) {
         this.host = host;
         this.port = port;
+        this.transportMode = transportMode;
         this.connected = false;
         this.authenticated = false;
         this.authManager = new AuthenticationManager();
@@ -36,16 +75,34 @@ public class HabboConnection {
     /**
      * Connect to the Habbo server
      */
-    public synchronized boolean connect() {
+    public boolean connect() {
+        return connect(null);
+    }
+
+    /**
+     * @param firstWrite runs once the socket is open, before the listener hears of it, so
+     *                   whatever it sends goes out ahead of anything else
+     */
+    private boolean connect(Runnable firstWrite) {
+        ConnectEvent event = new ConnectEvent();
+        event.begin();
+        stateLock.lock();
         try {
-            socket = new Socket(host, port);
-            inputStream = new DataInputStream(socket.getInputStream());
-            outputStream = new DataOutputStream(socket.getOutputStream());
+            transport = createTransport();
+            transportHandler = new TransportHandler(transport, dispatchPolicy);
+            if (publisher != null) {
+                // Carry a subscriber's lack of demand over to the new socket before it reads
+                publisher.updateDemand();
+            }
+            transport.connect(host, port, transportHandler);
             connected = true;
-            logger.info("Connected to {}:{}", host, port);
-
-            // Start receiving thread
-            startReceivingThread();
+            logger.info("Connected to {}:{} ({})", host, port, transportMode);
+            if (firstWrite != null) {
+                firstWrite.run();
+            }
+            if (event.shouldCommit()) {
+                event.record(host, port, transportMode.name(), true);
+            }
 
             if (connectionListener != null) {
                 connectionListener.onConnected();
@@ -53,84 +110,199 @@ public class HabboConnection {
             return true;
         } catch (IOException e) {
             logger.error("Failed to connect to {}:{}", host, port, e);
+            transport.close();
             connected = false;
+            if (event.shouldCommit()) {
+                event.record(host, port, transportMode.name(), false);
+            }
             return false;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    private Transport createTransport() {
+        if (transportMode == TransportMode.BLOCKING) {
+            return new BlockingTransport(flushPolicy);
         }
+        return new NioTransport(EventLoopGroup.shared().next(), flushPolicy);
     }
 
     /**
      * Disconnect from the server
      */
-    public synchronized void disconnect() {
+    public void disconnect() {
+        disconnect(true);
+    }
+
+    /**
+     * Disconnect from the server, logging out first if authenticated
+     *
+     * @param forgetCachedToken false to keep the session's token in the token cache for the next start
+     */
+    public void disconnect(boolean forgetCachedToken) {
+        stateLock.lock();
         try {
-            // Logout first if authenticated
             if (authenticated) {
-                logout();
+                logout(forgetCachedToken);
             }
 
             connected = false;
-            if (socket != null && !socket.isClosed()) {
-                socket.close();
+            if (transport != null) {
+                transport.close();
             }
             logger.info("Disconnected from {}:{}", host, port);
+            DisconnectEvent event = new DisconnectEvent();
+            if (event.shouldCommit()) {
+                event.record(host, port, null);
+            }
 
-            if (connectionListener != null) {
-                connectionListener.onDisconnected();
+            TransportHandler handler = transportHandler;
+            if (handler != null) {
+                handler.afterQueuedFrames(this::notifyDisconnected, new ClosedChannelException());
+            } else {
+                notifyDisconnected(new ClosedChannelException());
             }
-        } catch (IOException e) {
-            logger.error("Error disconnecting from server", e);
+        } finally {
+            stateLock.unlock();
         }
     }
 
     /**
-     * Send data to the server
+     * Queue data for the server. The call never blocks on the socket.
+     *
+     * @return completes when the frame has been written, or fails if the connection is lost first
      */
-    public synchronized boolean send(byte[] data) {
-        if (!connected || outputStream == null) {
+    public CompletableFuture<Void> send(byte[] data) {
+        Transport current = transport;
+        if (!connected || current == null) {
             logger.warn("Cannot send data: not connected");
-            return false;
+            ClientMetrics.global().sendFailed();
+            return CompletableFuture.failedFuture(new IllegalStateException("Not connected"));
         }
 
+        FrameSentEvent event = new FrameSentEvent();
+        event.begin();
+        ByteBuffer header = ByteBuffer.allocate(4).putInt(0, data.length);
+        int messageId = data.length >= 2 ? ((data[0] & 0xFF) << 8) | (data[1] & 0xFF) : -1;
+        return traceSent(event, current.write(header, ByteBuffer.wrap(data)), messageId, 4 + data.length);
+    }
+
+    /**
+     * Encode a message into a pooled frame buffer and queue it. The length prefix is
+     * written in place and the buffer returns to its pool once the frame is written.
+     */
+    public CompletableFuture<Void> send(ProtocolMessage message) {
+        Transport current = transport;
+        if (!connected || current == null) {
+            logger.warn("Cannot send {}: not connected", message.getClass().getSimpleName());
+            ClientMetrics.global().sendFailed();
+            return CompletableFuture.failedFuture(new IllegalStateException("Not connected"));
+        }
+
+        FrameSentEvent event = new FrameSentEvent();
+        event.begin();
+        ProtocolEncoder encoder = ProtocolEncoder.acquire();
+        encoder.beginFrame();
         try {
-            outputStream.writeInt(data.length);
-            outputStream.write(data);
-            outputStream.flush();
-            return true;
-        } catch (IOException e) {
-            logger.error("Error sending data to server", e);
-            connected = false;
-            return false;
+            message.encode(encoder);
+        } catch (IOException | RuntimeException e) {
+            encoder.reset();
+            ClientMetrics.global().sendFailed();
+            return CompletableFuture.failedFuture(e);
         }
+        ByteBuffer frame = encoder.finishFrame();
+        int size = frame.remaining();
+        return traceSent(event, current.write(null, frame, encoder.getPool()), message.getMessageId(), size);
     }
 
     /**
-     * Start a thread to receive messages from the server
+     * Commit a frame-sent event once the write settles; without a recording this attaches nothing
      */
-    private void startReceivingThread() {
-        Thread receiverThread = new Thread(() -> {
-            try {
-                while (connected) {
-                    int messageLength = inputStream.readInt();
-                    byte[] messageData = new byte[messageLength];
-                    inputStream.readFully(messageData);
+    private static CompletableFuture<Void> traceSent(FrameSentEvent event, CompletableFuture<Void> written,
+                                                     int messageId, int size) {
+        if (event.isEnabled()) {
+            written.whenComplete((ignored, e) -> event.record(messageId, size, e == null));
+        }
+        return written;
+    }
 
-                    if (connectionListener != null) {
-                        connectionListener.onMessageReceived(messageData);
-                    }
-                }
-            } catch (IOException e) {
-                if (connected) {
-                    logger.error("Error receiving message from server", e);
-                }
-                connected = false;
-                if (connectionListener != null) {
-                    connectionListener.onDisconnected();
-                }
+    /**
+     * Send a message and wait for the reply named by {@link ProtocolMessage#getResponseMessageId()},
+     * using the connection's request timeout
+     */
+    public <R extends ProtocolMessage> CompletableFuture<R> sendRequest(ProtocolMessage request) {
+        return sendRequest(request, request.getResponseMessageId(), requestTimeout);
+    }
+
+    /**
+     * Send a message and complete with the next reply carrying {@code responseId}.
+     * Any number of requests may be in flight; replies of one type are matched to requests in
+     * send order. The future fails with a {@link TimeoutException} if no reply arrives within
+     * {@code timeout} (null or zero waits indefinitely), or with an {@link IOException} if the
+     * connection is lost. It completes on the I/O thread, so dependent stages that block
+     * should use the {@code *Async} variants.
+     */
+    public <R extends ProtocolMessage> CompletableFuture<R> sendRequest(ProtocolMessage request, int responseId,
+                                                                       Duration timeout) {
+        if (responseId < 0 || responseId > MessageRegistry.MAX_MESSAGE_ID) {
+            throw new IllegalArgumentException(request.getClass().getSimpleName() + " has no response ID: " + responseId);
+        }
+        Transport current = transport;
+        if (!connected || current == null) {
+            logger.warn("Cannot send {}: not connected", request.getClass().getSimpleName());
+            ClientMetrics.global().sendFailed();
+            return CompletableFuture.failedFuture(new IllegalStateException("Not connected"));
+        }
+
+        FrameSentEvent event = new FrameSentEvent();
+        event.begin();
+        ProtocolEncoder encoder = ProtocolEncoder.acquire();
+        encoder.beginFrame();
+        try {
+            request.encode(encoder);
+        } catch (IOException | RuntimeException e) {
+            encoder.reset();
+            ClientMetrics.global().sendFailed();
+            return CompletableFuture.failedFuture(e);
+        }
+        ByteBuffer frame = encoder.finishFrame();
+        int size = frame.remaining();
+
+        CompletableFuture<R> reply;
+        CompletableFuture<Void> written;
+        // Register and queue as one step so the order of waiting requests matches the wire
+        pendingRequests.lock().lock();
+        try {
+            reply = pendingRequests.register(responseId, timeout);
+            written = current.write(null, frame, encoder.getPool());
+        } finally {
+            pendingRequests.lock().unlock();
+        }
+        traceSent(event, written, request.getMessageId(), size).whenComplete((ignored, e) -> {
+            if (e != null) {
+                pendingRequests.fail(responseId, reply, e);
             }
         });
-        receiverThread.setName("HabboReceiver");
-        receiverThread.setDaemon(true);
-        receiverThread.start();
+        return reply;
+    }
+
+    /**
+     * Requests sent with {@link #sendRequest(ProtocolMessage)} and still waiting for a reply
+     */
+    public int getPendingRequestCount() {
+        return pendingRequests.size();
+    }
+
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    /**
+     * Default time {@link #sendRequest(ProtocolMessage)} waits for a reply; null waits indefinitely
+     */
+    public void setRequestTimeout(Duration requestTimeout) {
+        this.requestTimeout = requestTimeout;
     }
 
     public boolean isConnected() {
@@ -144,68 +316,287 @@ public class HabboConnection {
     /**
      * Authenticate with the server using SSO token
      */
-    public synchronized boolean authenticate(String username, String password) {
-        if (!connected) {
-            logger.warn("Cannot authenticate: not connected to server");
-            return false;
+    public boolean authenticate(String username, String password) {
+        return login(username, password) == AuthenticationResponseMessage.AuthStatus.SUCCESS;
+    }
+
+    /**
+     * Authenticate with the server and report why it failed. Failing locally is
+     * {@code INVALID_CREDENTIALS}; not being connected, no reply in time or a transport
+     * error is {@code SERVER_ERROR}.
+     */
+    public AuthenticationResponseMessage.AuthStatus login(String username, String password) {
+        CompletableFuture<AuthenticationResponseMessage> reply;
+        Transport sentOn;
+        stateLock.lock();
+        try {
+            if (!connected) {
+                logger.warn("Cannot authenticate: not connected to server");
+                return AuthenticationResponseMessage.AuthStatus.SERVER_ERROR;
+            }
+
+            if (authenticated) {
+                logger.warn("Already authenticated as: {}", authManager.getCurrentUsername());
+                return AuthenticationResponseMessage.AuthStatus.SUCCESS;
+            }
+
+            if (loggingIn) {
+                logger.warn("Cannot authenticate {}: a login is already in progress", username);
+                return AuthenticationResponseMessage.AuthStatus.SERVER_ERROR;
+            }
+
+            // Authenticate locally first
+            if (!authManager.authenticate(username, password)) {
+                logger.error("Local authentication failed for user: {}", username);
+                return AuthenticationResponseMessage.AuthStatus.INVALID_CREDENTIALS;
+            }
+            reply = sendLogin(username);
+            sentOn = transport;
+            loggingIn = true;
+        } finally {
+            stateLock.unlock();
         }
+        return awaitLogin(username, reply, sentOn);
+    }
 
-        if (authenticated) {
-            logger.warn("Already authenticated as: {}", authManager.getCurrentUsername());
-            return true;
+    /**
+     * Connect and log in as one step. The SSO ticket is generated on another thread while the
+     * TCP handshake is in flight, and the authentication frame is the first thing written to
+     * the new socket, so the session is ready one server round trip after the handshake.
+     * If already connected this is {@link #login}. Statuses are as for {@link #login}.
+     */
+    public AuthenticationResponseMessage.AuthStatus connectAndLogin(String username, String password) {
+        CompletableFuture<AuthenticationResponseMessage> reply = new CompletableFuture<>();
+        Transport sentOn;
+        stateLock.lock();
+        try {
+            if (connected) {
+                sentOn = null;
+            } else if (loggingIn) {
+                logger.warn("Cannot authenticate {}: a login is already in progress", username);
+                return AuthenticationResponseMessage.AuthStatus.SERVER_ERROR;
+            } else {
+                CompletableFuture<Boolean> local = CompletableFuture.supplyAsync(
+                        () -> authManager.authenticate(username, password), loginExecutor());
+                boolean opened = connect(() -> {
+                    if (localResult(local)) {
+                        sendLogin(username).whenComplete((response, error) -> {
+                            if (error != null) {
+                                reply.completeExceptionally(error);
+                            } else {
+                                reply.complete(response);
+                            }
+                        });
+                    }
+                });
+                if (!opened) {
+                    if (localResult(local)) {
+                        // The server never saw the token, so keep it cached
+                        authManager.logout(false);
+                    }
+                    return AuthenticationResponseMessage.AuthStatus.SERVER_ERROR;
+                }
+                if (!localResult(local)) {
+                    logger.error("Local authentication failed for user: {}", username);
+                    return AuthenticationResponseMessage.AuthStatus.INVALID_CREDENTIALS;
+                }
+                sentOn = transport;
+                loggingIn = true;
+            }
+        } finally {
+            stateLock.unlock();
         }
+        // Already connected: an ordinary login, which takes the lock itself
+        return sentOn == null ? login(username, password) : awaitLogin(username, reply, sentOn);
+    }
 
-        // Authenticate locally first
-        if (!authManager.authenticate(username, password)) {
-            logger.error("Local authentication failed for user: {}", username);
+    private static boolean localResult(CompletableFuture<Boolean> local) {
+        try {
+            return local.join();
+        } catch (CompletionException e) {
+            logger.error("Local authentication failed", e.getCause());
             return false;
         }
+    }
+
+    private static ExecutorService loginExecutor() {
+        ExecutorService current = loginExecutor;
+        if (current == null) {
+            synchronized (HabboConnection.class) {
+                current = loginExecutor;
+                if (current == null) {
+                    current = Threads.newTaskExecutor("HabboLogin");
+                    loginExecutor = current;
+                }
+            }
+        }
+        return current;
+    }
 
+    /**
+     * Send the authentication message for the token the auth manager now holds
+     */
+    private CompletableFuture<AuthenticationResponseMessage> sendLogin(String username) {
         try {
-            // Create and send authentication message
-            AuthenticationMessage authMsg = new AuthenticationMessage(
-                username, 
-                authManager.getCurrentToken().getToken()
-            );
-            byte[] messageData = authMsg.serialize();
-            
-            if (send(messageData)) {
-                authenticated = true;
-                logger.info("Authentication message sent for user: {}", username);
+            return sendRequest(new AuthenticationMessage(username, authManager.getCurrentToken().getToken()));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Wait for the server's answer to {@link #sendLogin} without the state lock, so a
+     * disconnect is not held up, then settle the login under it
+     *
+     * @param sentOn the transport the login went out on; a reconnect meanwhile fails the login
+     */
+    private AuthenticationResponseMessage.AuthStatus awaitLogin(String username,
+                                                                CompletableFuture<AuthenticationResponseMessage> reply,
+                                                                Transport sentOn) {
+        AuthenticationResponseMessage response = null;
+        Throwable failure = null;
+        try {
+            response = reply.join();
+        } catch (CompletionException e) {
+            failure = e.getCause();
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+
+        stateLock.lock();
+        try {
+            loggingIn = false;
+            if (failure == null && (!connected || transport != sentOn)) {
+                failure = new ClosedChannelException();
+            }
+            if (failure != null) {
+                if (failure instanceof TimeoutException) {
+                    logger.error("No authentication response from server: {}", failure.getMessage());
+                } else if (failure instanceof ClosedChannelException) {
+                    logger.error("Connection closed during authentication for user: {}", username);
+                } else {
+                    logger.error("Error sending authentication message", failure);
+                }
+                // A transport failure says nothing about the token; keep it cached
+                authManager.logout(false);
+                return AuthenticationResponseMessage.AuthStatus.SERVER_ERROR;
+            }
+            if (!response.isSuccessful()) {
+                logger.error("Server rejected authentication for user {}: {}", username,
+                        response.getStatus() != null ? response.getStatus().getMessage() : "unknown status");
+                authManager.logout();
+                return response.getStatus() != null ? response.getStatus()
+                        : AuthenticationResponseMessage.AuthStatus.SERVER_ERROR;
+            }
+            authenticated = true;
+            logger.info("Authenticated as user: {} (id {})", username, response.getUserId());
+            return AuthenticationResponseMessage.AuthStatus.SUCCESS;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    /**
+     * Logout from the server
+     */
+    public boolean logout() {
+        return logout(true);
+    }
+
+    private boolean logout(boolean forgetCachedToken) {
+        stateLock.lock();
+        try {
+            if (!authenticated) {
+                logger.warn("Not authenticated, cannot logout");
+                return false;
+            }
+
+            try {
+                authManager.logout(forgetCachedToken);
+                authenticated = false;
+                logger.info("User logged out");
                 return true;
+            } catch (Exception e) {
+                logger.error("Error during logout", e);
+                return false;
             }
-        } catch (Exception e) {
-            logger.error("Error during authentication", e);
-            authManager.logout();
+        } finally {
+            stateLock.unlock();
         }
+    }
 
-        return false;
+    private void notifyDisconnected(IOException cause) {
+        pendingRequests.failAll(cause);
+        if (publisher != null) {
+            publisher.close(cause);
+        }
+        if (connectionListener != null) {
+            connectionListener.onDisconnected();
+        }
     }
 
     /**
-     * Logout from the server
+     * Messages received on this connection. The socket is read only while every subscriber
+     * has outstanding demand, so a subscriber that falls behind slows the server down instead
+     * of buffering without bound. Subscribers complete when the connection closes and may
+     * subscribe again after reconnecting. Messages are delivered on the thread handling
+     * frames (see {@link DispatchPolicy}).
      */
-    public synchronized boolean logout() {
-        if (!authenticated) {
-            logger.warn("Not authenticated, cannot logout");
-            return false;
+    public Flow.Publisher<ProtocolMessage> messages() {
+        MessagePublisher current = publisher;
+        if (current == null) {
+            stateLock.lock();
+            try {
+                current = publisher;
+                if (current == null) {
+                    current = new MessagePublisher(this);
+                    publisher = current;
+                }
+            } finally {
+                stateLock.unlock();
+            }
         }
+        return current;
+    }
 
-        try {
-            authManager.logout();
-            authenticated = false;
-            logger.info("User logged out");
-            return true;
-        } catch (Exception e) {
-            logger.error("Error during logout", e);
-            return false;
+    void holdReadsForDemand(boolean hold) {
+        TransportHandler handler = transportHandler;
+        if (handler != null) {
+            handler.holdReads(TransportHandler.HOLD_DEMAND, hold);
         }
     }
 
+    /**
+     * Frames received but not yet handled; always 0 under {@link DispatchPolicy.Mode#INLINE}
+     */
+    public int getInboundQueueDepth() {
+        TransportHandler handler = transportHandler;
+        return handler == null || handler.inbound == null ? 0 : handler.inbound.size();
+    }
+
     public void setConnectionListener(ConnectionListener listener) {
         this.connectionListener = listener;
     }
 
+    /**
+     * Registry shared by connections that have not been given their own; knows the built-in messages
+     */
+    public static MessageRegistry<HabboConnection> defaultRegistry() {
+        return DEFAULT_REGISTRY;
+    }
+
+    public MessageRegistry<HabboConnection> getMessageRegistry() {
+        return messageRegistry;
+    }
+
+    /**
+     * Frames whose ID has a handler in this registry are decoded and dispatched to it;
+     * all other frames go to the {@link ConnectionListener}
+     */
+    public void setMessageRegistry(MessageRegistry<HabboConnection> messageRegistry) {
+        this.messageRegistry = messageRegistry;
+    }
+
     public String getHost() {
         return host;
     }
@@ -214,10 +605,184 @@ public class HabboConnection {
         return port;
     }
 
+    public TransportMode getTransportMode() {
+        return transportMode;
+    }
+
+    public FlushPolicy getFlushPolicy() {
+        return flushPolicy;
+    }
+
+    /**
+     * Set when queued frames are written; applies from the next {@link #connect()}
+     */
+    public void setFlushPolicy(FlushPolicy flushPolicy) {
+        this.flushPolicy = flushPolicy;
+    }
+
+    public DispatchPolicy getDispatchPolicy() {
+        return dispatchPolicy;
+    }
+
+    /**
+     * Set where received frames are handled; applies from the next {@link #connect()}
+     */
+    public void setDispatchPolicy(DispatchPolicy dispatchPolicy) {
+        this.dispatchPolicy = dispatchPolicy;
+    }
+
     public AuthenticationManager getAuthManager() {
         return authManager;
     }
 
+    /**
+     * Bridges transport callbacks to the connection listener, inline on the I/O thread
+     * or through an {@link InboundQueue} depending on the {@link DispatchPolicy}
+     */
+    private class TransportHandler implements Transport.Handler, InboundQueue.Owner {
+        static final int HOLD_QUEUE = 1;
+        static final int HOLD_DEMAND = 2;
+
+        private final Transport owner;
+        private final InboundQueue inbound;
+        // Reasons reads are suspended; the socket reads only while none is set
+        private final ReentrantLock readHoldLock = new ReentrantLock();
+        private int readHolds;
+
+        TransportHandler(Transport owner, DispatchPolicy policy) {
+            this.owner = owner;
+            this.inbound = policy.getMode() == DispatchPolicy.Mode.QUEUED ? new InboundQueue(policy, this) : null;
+        }
+
+        @Override
+        public void onFrame(ByteBuffer frame) {
+            ClientMetrics.global().frameReceived(frame.remaining() + 4);
+            if (inbound != null) {
+                inbound.offer(frame);
+            } else {
+                deliver(frame);
+            }
+        }
+
+        @Override
+        public void deliver(ByteBuffer frame) {
+            ConnectionListener listener = connectionListener;
+            int size = frame.remaining() + 4;
+            FrameReceivedEvent event = new FrameReceivedEvent();
+            event.begin();
+            int messageId = frame.remaining() >= 2 ? MessageRegistry.peekMessageId(frame) : -1;
+            try {
+                if (frame.remaining() >= 2 && completeRequest(frame)) {
+                    return;
+                }
+                MessagePublisher messages = publisher;
+                if (messages != null && messages.hasSubscribers() && frame.remaining() >= 2) {
+                    // Decode once and hand the same message to subscribers and the handler
+                    ProtocolMessage message = messageRegistry.decode(frame);
+                    if (message != null) {
+                        messages.publish(message);
+                        if (messageRegistry.dispatch(HabboConnection.this, message)) {
+                            return;
+                        }
+                    }
+                } else if (frame.remaining() >= 2 && messageRegistry.dispatch(HabboConnection.this, frame)) {
+                    return;
+                }
+                if (listener != null) {
+                    listener.onFrameReceived(frame);
+                }
+            } catch (Exception e) {
+                // A failing handler or listener must not take down the shared read path
+                logger.error("Error handling message {}", messageId, e);
+                if (listener != null) {
+                    listener.onError(e);
+                }
+            } finally {
+                if (event.shouldCommit()) {
+                    event.record(messageId, size);
+                }
+            }
+        }
+
+        /**
+         * Replies claimed by a waiting request complete its future and are not dispatched further
+         */
+        private boolean completeRequest(ByteBuffer frame) {
+            int messageId = MessageRegistry.peekMessageId(frame);
+            if (!pendingRequests.isAwaiting(messageId)) {
+                return false;
+            }
+            ProtocolMessage response;
+            try {
+                response = messageRegistry.decode(frame);
+            } catch (IOException | RuntimeException e) {
+                return pendingRequests.complete(messageId, null, e);
+            }
+            return response != null && pendingRequests.complete(messageId, response, null);
+        }
+
+        /**
+         * Run the disconnect notification once frames already received have been handled,
+         * so replies still in the queue complete their requests first
+         */
+        void afterQueuedFrames(Consumer<IOException> task, IOException cause) {
+            if (inbound != null) {
+                inbound.execute(() -> task.accept(cause));
+            } else {
+                task.accept(cause);
+            }
+        }
+
+        void holdReads(int reason, boolean hold) {
+            readHoldLock.lock();
+            try {
+                int before = readHolds;
+                readHolds = hold ? before | reason : before & ~reason;
+                if (before == 0 && readHolds != 0) {
+                    owner.suspendReads();
+                } else if (before != 0 && readHolds == 0) {
+                    owner.resumeReads();
+                }
+            } finally {
+                readHoldLock.unlock();
+            }
+        }
+
+        @Override
+        public void suspendReads() {
+            holdReads(HOLD_QUEUE, true);
+        }
+
+        @Override
+        public void resumeReads() {
+            holdReads(HOLD_QUEUE, false);
+        }
+
+        @Override
+        public void overflowed() {
+            logger.warn("Inbound queue for {}:{} is full, closing the connection", host, port);
+            owner.close();
+            onClosed(new IOException("Inbound queue overflow"));
+        }
+
+        @Override
+        public void onClosed(IOException cause) {
+            if (!connected || transport != owner) {
+                return;
+            }
+            if (cause != null) {
+                logger.error("Error receiving message from server", cause);
+            }
+            connected = false;
+            DisconnectEvent event = new DisconnectEvent();
+            if (event.shouldCommit()) {
+                event.record(host, port, cause);
+            }
+            afterQueuedFrames(HabboConnection.this::notifyDisconnected,
+                    cause != null ? cause : new ClosedChannelException());
+        }
+    }
+
     /**
      * Interface for connection events
      */
@@ -226,5 +791,16 @@ public class HabboConnection {
         void onDisconnected();
         void onMessageReceived(byte[] data);
         void onError(Exception e);
+
+        /**
+         * Called with each frame as a view of the receive buffer, valid only during the call.
+         * The default copies it into an array for {@link #onMessageReceived(byte[])};
+         * override to read frames without copying.
+         */
+        default void onFrameReceived(ByteBuffer frame) {
+            byte[] data = new byte[frame.remaining()];
+            frame.get(data);
+            onMessageReceived(data);
+        }
     }
 }
@@ -0,0 +1,227 @@
+package com.habbo.client.network;
+
+import com.habbo.client.metrics.ClientMetrics;
+import com.habbo.client.util.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded inbound ring for one connection, drained by the shared dispatch pool.
+ * <p>
+ * The I/O thread copies each frame in; at most one worker drains a connection at a time,
+ * so frames are delivered in arrival order while different connections run in parallel.
+ * A worker hands the connection back to the pool every {@value #DRAIN_BUDGET} frames so
+ * a busy connection cannot starve the others. What happens when the ring is full is
+ * decided by the connection's {@link DispatchPolicy.Overflow}.
+ */
+final class InboundQueue {
+    private static final Logger logger = LoggerFactory.getLogger(InboundQueue.class);
+    private static final int DRAIN_BUDGET = 64;
+    private static volatile ExecutorService workers;
+
+    /**
+     * The connection side of the queue
+     */
+    interface Owner {
+        /**
+         * Handle one frame; runs on a dispatch worker
+         */
+        void deliver(ByteBuffer frame);
+
+        /**
+         * Called with the queue's lock held; must not block
+         */
+        void suspendReads();
+
+        /**
+         * Called with the queue's lock held; must not block
+         */
+        void resumeReads();
+
+        /**
+         * The ring was full under {@link DispatchPolicy.Overflow#DISCONNECT}; runs on the I/O thread
+         */
+        void overflowed();
+    }
+
+    private final int capacity;
+    private final DispatchPolicy.Overflow overflow;
+    private final Owner owner;
+    private final ClientMetrics metrics = ClientMetrics.global();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Runnable drainTask = this::drain;
+    private final ReentrantLock lock = new ReentrantLock();
+    // Entries are frame copies (byte[]) or ordered tasks (Runnable); guarded by lock
+    private Object[] ring;
+    private int head;
+    private int size;
+    private boolean readsSuspended;
+    private boolean overflowed;
+
+    InboundQueue(DispatchPolicy policy, Owner owner) {
+        this.capacity = policy.getCapacity();
+        this.overflow = policy.getOverflow();
+        this.owner = owner;
+        this.ring = new Object[Integer.highestOneBit(Math.max(1, capacity - 1)) << 1];
+    }
+
+    private static ExecutorService workers() {
+        ExecutorService current = workers;
+        if (current == null) {
+            synchronized (InboundQueue.class) {
+                current = workers;
+                if (current == null) {
+                    current = Threads.newTaskExecutor("HabboDispatch");
+                    workers = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Copy a frame view into the ring; called on the I/O thread
+     */
+    void offer(ByteBuffer frame) {
+        byte[] copy = new byte[frame.remaining()];
+        frame.get(frame.position(), copy);
+
+        boolean disconnect = false;
+        lock.lock();
+        try {
+            if (overflowed) {
+                return;
+            }
+            if (size >= capacity && overflow == DispatchPolicy.Overflow.DISCONNECT) {
+                overflowed = true;
+                disconnect = true;
+            } else {
+                if (size >= capacity && overflow == DispatchPolicy.Overflow.DROP_OLDEST && dropOldestFrame()) {
+                    metrics.inboundDropped();
+                    metrics.inboundQueued(-1);
+                }
+                // Under BLOCK_READS the ring grows past capacity for the rest of the current read
+                push(copy);
+                if (overflow == DispatchPolicy.Overflow.BLOCK_READS && size >= capacity && !readsSuspended) {
+                    // Under the lock so a concurrent drain cannot resume before we suspend
+                    readsSuspended = true;
+                    owner.suspendReads();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (disconnect) {
+            metrics.inboundOverflowed();
+            owner.overflowed();
+            return;
+        }
+        metrics.inboundQueued(1);
+        schedule();
+    }
+
+    /**
+     * Run a task after every frame queued so far, e.g. the disconnect notification
+     */
+    void execute(Runnable task) {
+        lock.lock();
+        try {
+            push(task);
+        } finally {
+            lock.unlock();
+        }
+        schedule();
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void push(Object entry) {
+        if (size == ring.length) {
+            // Only reachable past capacity under BLOCK_READS or for tasks
+            Object[] grown = new Object[ring.length * 2];
+            for (int i = 0; i < size; i++) {
+                grown[i] = ring[(head + i) & (ring.length - 1)];
+            }
+            ring = grown;
+            head = 0;
+        }
+        ring[(head + size) & (ring.length - 1)] = entry;
+        size++;
+    }
+
+    /**
+     * Remove the oldest frame, wherever it sits among queued tasks, keeping the rest in order
+     *
+     * @return false if only tasks are queued
+     */
+    private boolean dropOldestFrame() {
+        int mask = ring.length - 1;
+        for (int i = 0; i < size; i++) {
+            if (ring[(head + i) & mask] instanceof byte[]) {
+                // Shift the tasks ahead of it up by one slot
+                for (int j = i; j > 0; j--) {
+                    ring[(head + j) & mask] = ring[(head + j - 1) & mask];
+                }
+                ring[head] = null;
+                head = (head + 1) & mask;
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            workers().execute(drainTask);
+        }
+    }
+
+    private void drain() {
+        for (int budget = DRAIN_BUDGET; budget > 0; budget--) {
+            Object entry;
+            lock.lock();
+            try {
+                if (size == 0) {
+                    // Cleared under the lock, so an offer either sees it cleared or we saw its frame
+                    scheduled.set(false);
+                    return;
+                }
+                entry = ring[head];
+                ring[head] = null;
+                head = (head + 1) & (ring.length - 1);
+                size--;
+                if (readsSuspended && size <= capacity / 2) {
+                    readsSuspended = false;
+                    owner.resumeReads();
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                if (entry instanceof byte[]) {
+                    metrics.inboundQueued(-1);
+                    owner.deliver(ByteBuffer.wrap((byte[]) entry));
+                } else {
+                    ((Runnable) entry).run();
+                }
+            } catch (RuntimeException e) {
+                logger.error("Error dispatching inbound frame", e);
+            }
+        }
+        workers().execute(drainTask);
+    }
+}
@@ -0,0 +1,191 @@
+package com.habbo.client.network;
+
+import com.habbo.client.protocol.ProtocolMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Messages received by one {@link HabboConnection}, as a {@link Flow.Publisher}.
+ * <p>
+ * While any subscriber has no outstanding demand the connection stops reading its socket,
+ * so a slow subscriber pushes back on the server through TCP instead of growing a buffer.
+ * Only what was already read when demand ran out is buffered, at most one read's worth.
+ * Replies claimed by {@link HabboConnection#sendRequest} and frames whose ID is not
+ * registered are not published. Subscribers complete when the connection closes, after
+ * their buffered messages; an error close is signalled with {@code onError}.
+ * Every subscriber receives the same message instances, which must be treated as read-only.
+ */
+final class MessagePublisher implements Flow.Publisher<ProtocolMessage> {
+    private static final Logger logger = LoggerFactory.getLogger(MessagePublisher.class);
+
+    private final HabboConnection connection;
+    private final CopyOnWriteArrayList<MessageSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    // Demand is computed and applied as one step, so the last caller always leaves the right hold
+    private final ReentrantLock demandLock = new ReentrantLock();
+
+    MessagePublisher(HabboConnection connection) {
+        this.connection = connection;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ProtocolMessage> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        MessageSubscription subscription = new MessageSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        if (!subscription.cancelled) {
+            subscriptions.add(subscription);
+        }
+        updateDemand();
+    }
+
+    boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    /**
+     * Called on the thread handling frames, in arrival order
+     */
+    void publish(ProtocolMessage message) {
+        for (MessageSubscription subscription : subscriptions) {
+            subscription.offer(message);
+        }
+        updateDemand();
+    }
+
+    /**
+     * End every current subscription; a {@link ClosedChannelException} is an orderly close
+     */
+    void close(Throwable cause) {
+        for (MessageSubscription subscription : subscriptions) {
+            subscriptions.remove(subscription);
+            subscription.terminate(cause instanceof ClosedChannelException ? null : cause);
+        }
+        updateDemand();
+    }
+
+    /**
+     * Hold the connection's reads while any subscriber is out of demand
+     */
+    void updateDemand() {
+        demandLock.lock();
+        try {
+            boolean starved = false;
+            for (MessageSubscription subscription : subscriptions) {
+                if (subscription.requested.get() == 0) {
+                    starved = true;
+                    break;
+                }
+            }
+            connection.holdReadsForDemand(starved);
+        } finally {
+            demandLock.unlock();
+        }
+    }
+
+    private void remove(MessageSubscription subscription) {
+        if (subscriptions.remove(subscription)) {
+            updateDemand();
+        }
+    }
+
+    /**
+     * Buffers messages until requested; signals are serialized by the work-in-progress counter
+     */
+    private final class MessageSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super ProtocolMessage> subscriber;
+        private final Queue<ProtocolMessage> buffer = new ConcurrentLinkedQueue<>();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean done;
+        private volatile Throwable error;
+        private volatile boolean cancelled;
+
+        MessageSubscription(Flow.Subscriber<? super ProtocolMessage> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        void offer(ProtocolMessage message) {
+            if (!done && !cancelled) {
+                buffer.offer(message);
+                drain();
+            }
+        }
+
+        void terminate(Throwable cause) {
+            error = cause;
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                buffer.clear();
+                terminate(new IllegalArgumentException("Demand must be positive: " + n));
+                remove(this);
+                return;
+            }
+            requested.accumulateAndGet(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            drain();
+            updateDemand();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            buffer.clear();
+            remove(this);
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                long demand = requested.get();
+                long emitted = 0;
+                while (emitted != demand && !cancelled) {
+                    ProtocolMessage message = buffer.poll();
+                    if (message == null) {
+                        break;
+                    }
+                    try {
+                        subscriber.onNext(message);
+                    } catch (RuntimeException e) {
+                        logger.error("Subscriber failed in onNext, cancelling", e);
+                        cancel();
+                    }
+                    emitted++;
+                }
+                if (cancelled) {
+                    return;
+                }
+                if (done && buffer.isEmpty()) {
+                    cancelled = true;
+                    Throwable cause = error;
+                    if (cause == null) {
+                        subscriber.onComplete();
+                    } else {
+                        subscriber.onError(cause);
+                    }
+                    return;
+                }
+                if (emitted != 0 && demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
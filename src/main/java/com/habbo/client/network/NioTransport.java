@@ -0,0 +1,214 @@
+package com.habbo.client.network;
+
+import com.habbo.client.protocol.BufferPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Non-blocking transport driven by an {@link EventLoop}; no thread is dedicated to the connection.
+ * The loop thread is the single writer for the outbound queue.
+ */
+final class NioTransport implements Transport, EventLoop.Handler {
+    private static final Logger logger = LoggerFactory.getLogger(NioTransport.class);
+
+    private final EventLoop loop;
+    private final OutboundQueue outbound;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicBoolean open = new AtomicBoolean();
+    private final Runnable flushTask = this::flushNow;
+    private final FrameDecoder frameDecoder = new FrameDecoder();
+    private SocketChannel channel;
+    private SelectionKey key;
+    private Handler handler;
+    private volatile boolean readsSuspended;
+    private final Runnable applyReadInterest = this::applyReadInterest;
+
+    NioTransport(EventLoop loop, FlushPolicy flushPolicy) {
+        this.loop = loop;
+        this.outbound = new OutboundQueue(flushPolicy, this::requestFlush);
+    }
+
+    @Override
+    public void connect(String host, int port, Handler handler) throws IOException {
+        this.handler = handler;
+        this.channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channel.configureBlocking(false);
+        open.set(true);
+
+        CompletableFuture<Void> registered = new CompletableFuture<>();
+        Runnable registration = () -> {
+            try {
+                key = loop.register(channel, readsSuspended ? 0 : SelectionKey.OP_READ, this);
+                registered.complete(null);
+            } catch (ClosedChannelException e) {
+                registered.completeExceptionally(e);
+            }
+        };
+        if (loop.inEventLoop()) {
+            registration.run();
+        } else {
+            loop.execute(registration);
+        }
+
+        try {
+            registered.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new IOException("Interrupted while registering channel", e);
+        } catch (ExecutionException e) {
+            close();
+            throw new IOException("Failed to register channel", e.getCause());
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> write(ByteBuffer header, ByteBuffer body, BufferPool recycler) {
+        if (!open.get()) {
+            if (recycler != null) {
+                recycler.release(body);
+            }
+            return CompletableFuture.failedFuture(new ClosedChannelException());
+        }
+        CompletableFuture<Void> result = outbound.enqueue(header, body, recycler);
+        if (!open.get()) {
+            // Closed while enqueuing; the loop may already have failed the queue
+            outbound.failQueued(new ClosedChannelException());
+        }
+        return result;
+    }
+
+    /**
+     * Called by the outbound queue when its flush policy wants the frames written
+     */
+    private void requestFlush() {
+        if (loop.inEventLoop()) {
+            flushNow();
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            loop.execute(flushTask);
+        }
+    }
+
+    private void flushNow() {
+        flushScheduled.set(false);
+        if (!open.get() || key == null) {
+            return;
+        }
+        try {
+            if (outbound.writeTo(channel)) {
+                if ((key.interestOps() & SelectionKey.OP_WRITE) != 0) {
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+                }
+            } else {
+                // Socket buffer is full; resume when the selector says writable
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            }
+        } catch (IOException e) {
+            closeWithError(e);
+        }
+    }
+
+    @Override
+    public void suspendReads() {
+        readsSuspended = true;
+        updateReadInterest();
+    }
+
+    @Override
+    public void resumeReads() {
+        readsSuspended = false;
+        updateReadInterest();
+    }
+
+    private void updateReadInterest() {
+        if (loop.inEventLoop()) {
+            applyReadInterest();
+        } else {
+            loop.execute(applyReadInterest);
+        }
+    }
+
+    /**
+     * Match OP_READ to the latest suspend/resume call; loop thread only
+     */
+    private void applyReadInterest() {
+        if (!open.get() || key == null || !key.isValid()) {
+            return;
+        }
+        int ops = readsSuspended ? key.interestOps() & ~SelectionKey.OP_READ : key.interestOps() | SelectionKey.OP_READ;
+        if (ops != key.interestOps()) {
+            key.interestOps(ops);
+        }
+    }
+
+    @Override
+    public void onWritable() {
+        flushNow();
+    }
+
+    @Override
+    public void onReadable() {
+        try {
+            ByteBuffer target = frameDecoder.readTarget(loop.readBuffer());
+            int read = channel.read(target);
+            if (read < 0) {
+                target.clear();
+                closeWithError(null);
+                return;
+            }
+            frameDecoder.decode(target, handler);
+        } catch (IOException e) {
+            loop.readBuffer().clear();
+            closeWithError(e);
+        }
+    }
+
+    private void closeWithError(IOException cause) {
+        if (open.compareAndSet(true, false)) {
+            closeChannel();
+            handler.onClosed(cause);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (open.compareAndSet(true, false)) {
+            if (loop.inEventLoop()) {
+                closeChannel();
+            } else {
+                loop.execute(this::closeChannel);
+            }
+        }
+    }
+
+    private void closeChannel() {
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            logger.debug("Error closing channel", e);
+        }
+        outbound.failAll(new ClosedChannelException());
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open.get();
+    }
+}
@@ -0,0 +1,223 @@
+package com.habbo.client.network;
+
+import com.habbo.client.metrics.ClientMetrics;
+import com.habbo.client.protocol.BufferPool;
+import com.habbo.client.util.Threads;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outbound frames for one connection.
+ * <p>
+ * Any thread may enqueue (lock-free); exactly one writer at a time drains the queue with
+ * gathering writes of up to {@value #MAX_BATCH} frames. The {@link FlushPolicy} decides
+ * when the owning transport is asked to run that writer.
+ */
+final class OutboundQueue {
+    private static final int MAX_BATCH = 64;
+    private static final int INITIAL_BATCH = 4;
+
+    private final Queue<PendingWrite> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final AtomicBoolean timerArmed = new AtomicBoolean();
+    private final FlushPolicy policy;
+    private final ClientMetrics metrics = ClientMetrics.global();
+    private final Runnable flushAction;
+    private final Runnable timerTask;
+
+    // Writer-side state, only touched by the thread currently draining. The arrays start
+    // small and double up to MAX_BATCH when a batch fills, so quiet connections stay cheap.
+    private ByteBuffer[] batch = new ByteBuffer[INITIAL_BATCH * 2];
+    private PendingWrite[] batchWrites = new PendingWrite[INITIAL_BATCH];
+    private int[] batchEnds = new int[INITIAL_BATCH];
+    private int batchLength;
+    private int batchOffset;
+    private int writeCount;
+    private int completedWrites;
+
+    OutboundQueue(FlushPolicy policy, Runnable flushAction) {
+        this.policy = policy;
+        this.flushAction = flushAction;
+        this.timerTask = () -> {
+            timerArmed.set(false);
+            flushAction.run();
+        };
+    }
+
+    /**
+     * Queue a frame. {@code header} is the length prefix, or null if {@code body} already carries it.
+     * A pooled {@code body} goes back to {@code recycler} once written or failed.
+     */
+    CompletableFuture<Void> enqueue(ByteBuffer header, ByteBuffer body, BufferPool recycler) {
+        PendingWrite write = new PendingWrite(header, body, recycler);
+        queue.add(write);
+        long queued = queuedBytes.addAndGet(write.bytes);
+
+        switch (policy.getMode()) {
+            case TIME_WINDOW:
+                armTimer();
+                break;
+            case SIZE_THRESHOLD:
+                if (queued >= policy.getThresholdBytes()) {
+                    flushAction.run();
+                } else {
+                    armTimer();
+                }
+                break;
+            default:
+                flushAction.run();
+                break;
+        }
+        return write.promise;
+    }
+
+    private void armTimer() {
+        if (timerArmed.compareAndSet(false, true)) {
+            Threads.scheduler().schedule(timerTask, policy.getDelayNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    boolean hasQueued() {
+        return !queue.isEmpty();
+    }
+
+    long getQueuedBytes() {
+        return queuedBytes.get();
+    }
+
+    /**
+     * Drain queued frames into the channel. Must only be called by the single writer.
+     *
+     * @return true when everything was written, false when the channel stopped accepting bytes
+     */
+    boolean writeTo(GatheringByteChannel channel) throws IOException {
+        while (true) {
+            if (batchOffset == batchLength && !fillBatch()) {
+                return true;
+            }
+
+            long written = channel.write(batch, batchOffset, batchLength - batchOffset);
+            queuedBytes.addAndGet(-written);
+            while (batchOffset < batchLength && !batch[batchOffset].hasRemaining()) {
+                batch[batchOffset++] = null;
+            }
+            completeWritten();
+
+            if (batchOffset < batchLength && written == 0) {
+                return false;
+            }
+        }
+    }
+
+    private boolean fillBatch() {
+        batchLength = 0;
+        batchOffset = 0;
+        writeCount = 0;
+        completedWrites = 0;
+
+        long now = System.nanoTime();
+        PendingWrite write;
+        while (writeCount < MAX_BATCH && (write = queue.poll()) != null) {
+            if (writeCount == batchWrites.length) {
+                growBatch();
+            }
+            write.startedAt = now;
+            if (write.header != null) {
+                batch[batchLength++] = write.header;
+            }
+            batch[batchLength++] = write.body;
+            batchWrites[writeCount] = write;
+            batchEnds[writeCount++] = batchLength;
+        }
+        return writeCount > 0;
+    }
+
+    private void growBatch() {
+        int frames = Math.min(MAX_BATCH, batchWrites.length * 2);
+        batch = Arrays.copyOf(batch, frames * 2);
+        batchWrites = Arrays.copyOf(batchWrites, frames);
+        batchEnds = Arrays.copyOf(batchEnds, frames);
+    }
+
+    private void completeWritten() {
+        long now = 0;
+        while (completedWrites < writeCount && batchEnds[completedWrites] <= batchOffset) {
+            PendingWrite write = batchWrites[completedWrites];
+            if (now == 0) {
+                now = System.nanoTime();
+            }
+            metrics.frameSent(write.bytes, write.startedAt - write.enqueuedAt, now - write.startedAt);
+            write.complete(null);
+            batchWrites[completedWrites++] = null;
+        }
+    }
+
+    /**
+     * Fail the in-progress batch and everything queued. Writer thread only.
+     */
+    void failAll(Throwable cause) {
+        while (completedWrites < writeCount) {
+            metrics.sendFailed();
+            batchWrites[completedWrites].complete(cause);
+            batchWrites[completedWrites++] = null;
+        }
+        for (int i = batchOffset; i < batchLength; i++) {
+            batch[i] = null;
+        }
+        batchOffset = batchLength;
+        failQueued(cause);
+    }
+
+    /**
+     * Fail frames that have not been picked up by the writer; safe from any thread
+     */
+    void failQueued(Throwable cause) {
+        PendingWrite write;
+        while ((write = queue.poll()) != null) {
+            queuedBytes.addAndGet(-write.bytes);
+            metrics.sendFailed();
+            write.complete(cause);
+        }
+    }
+
+    private static final class PendingWrite {
+        final ByteBuffer header;
+        final ByteBuffer body;
+        final BufferPool recycler;
+        final int bytes;
+        final CompletableFuture<Void> promise = new CompletableFuture<>();
+        final long enqueuedAt = System.nanoTime();
+        // Set by the writer when the frame joins a batch
+        long startedAt;
+
+        PendingWrite(ByteBuffer header, ByteBuffer body, BufferPool recycler) {
+            this.header = header;
+            this.body = body;
+            this.recycler = recycler;
+            this.bytes = (header == null ? 0 : header.remaining()) + body.remaining();
+        }
+
+        /**
+         * Recycle the body and settle the promise; {@code cause} is null on success
+         */
+        void complete(Throwable cause) {
+            if (recycler != null) {
+                recycler.release(body);
+            }
+            if (cause == null) {
+                promise.complete(null);
+            } else {
+                promise.completeExceptionally(cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.habbo.client.network;
+
+import com.habbo.client.metrics.ClientMetrics;
+import com.habbo.client.protocol.ProtocolMessage;
+import com.habbo.client.util.Threads;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Requests waiting for a reply, matched by response message ID.
+ * The protocol carries no correlation ID, so replies of one type are matched to their
+ * requests in the order those requests were written. A request that times out keeps its
+ * place in line for one more timeout, so a late reply is consumed and dropped rather than
+ * handed to the next one; after that it is removed, so a reply that never comes cannot hold up
+ * the line for good. A request whose frame could not be written is removed at once.
+ */
+final class PendingRequests {
+    private final Map<Integer, ArrayDeque<Pending>> waiting = new HashMap<>();
+    // Held across register-and-write so queue order always matches wire order
+    private final ReentrantLock lock = new ReentrantLock();
+    // Written under the lock; read without it so frames skip the lock when nothing is waiting
+    private volatile int outstanding;
+
+    ReentrantLock lock() {
+        return lock;
+    }
+
+    /**
+     * Add a request expecting {@code responseId}; the caller holds {@link #lock()} and writes the frame next
+     */
+    <R extends ProtocolMessage> CompletableFuture<R> register(int responseId, Duration timeout) {
+        Pending pending = new Pending(responseId);
+        waiting.computeIfAbsent(responseId, id -> new ArrayDeque<>()).addLast(pending);
+        outstanding++;
+        if (timeout != null && !timeout.isZero() && !timeout.isNegative()) {
+            long nanos = timeout.toNanos();
+            pending.timeout = Threads.scheduler().schedule(() -> {
+                pending.future.completeExceptionally(
+                        new TimeoutException("No response " + responseId + " within " + timeout.toMillis() + "ms"));
+                // Keep the place for a late reply a while longer, then give it up
+                Threads.scheduler().schedule(() -> remove(pending), nanos, TimeUnit.NANOSECONDS);
+            }, nanos, TimeUnit.NANOSECONDS);
+        }
+        @SuppressWarnings("unchecked")
+        CompletableFuture<R> future = (CompletableFuture<R>) pending.future;
+        return future;
+    }
+
+    /**
+     * Give up on a request whose frame was not written, so no reply will come for it
+     */
+    void fail(int responseId, CompletableFuture<?> reply, Throwable cause) {
+        Pending failed = null;
+        lock.lock();
+        try {
+            ArrayDeque<Pending> queue = waiting.get(responseId);
+            if (queue != null) {
+                for (Pending pending : queue) {
+                    if (pending.future == reply) {
+                        failed = pending;
+                        removeLocked(pending);
+                        break;
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (failed != null) {
+            failed.complete(null, cause);
+        } else {
+            reply.completeExceptionally(cause);
+        }
+    }
+
+    private void remove(Pending pending) {
+        lock.lock();
+        try {
+            removeLocked(pending);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void removeLocked(Pending pending) {
+        ArrayDeque<Pending> queue = waiting.get(pending.responseId);
+        if (queue != null && queue.remove(pending)) {
+            outstanding--;
+            if (queue.isEmpty()) {
+                waiting.remove(pending.responseId);
+            }
+        }
+    }
+
+    /**
+     * Whether a reply with this ID would be claimed by a waiting request
+     */
+    boolean isAwaiting(int responseId) {
+        if (outstanding == 0) {
+            return false;
+        }
+        lock.lock();
+        try {
+            ArrayDeque<Pending> queue = waiting.get(responseId);
+            return queue != null && !queue.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hand a reply, or the error decoding it, to the oldest request waiting for that ID.
+     *
+     * @return false if no request was waiting for this ID
+     */
+    boolean complete(int responseId, ProtocolMessage response, Throwable cause) {
+        Pending pending;
+        lock.lock();
+        try {
+            ArrayDeque<Pending> queue = waiting.get(responseId);
+            pending = queue != null ? queue.pollFirst() : null;
+            if (pending == null) {
+                return false;
+            }
+            outstanding--;
+            if (queue.isEmpty()) {
+                waiting.remove(responseId);
+            }
+        } finally {
+            lock.unlock();
+        }
+        pending.complete(response, cause);
+        return true;
+    }
+
+    /**
+     * Fail every waiting request, e.g. when the connection closes
+     */
+    void failAll(IOException cause) {
+        ArrayDeque<Pending> failed = new ArrayDeque<>();
+        lock.lock();
+        try {
+            if (outstanding == 0) {
+                return;
+            }
+            for (ArrayDeque<Pending> queue : waiting.values()) {
+                failed.addAll(queue);
+            }
+            waiting.clear();
+            outstanding = 0;
+        } finally {
+            lock.unlock();
+        }
+        for (Pending pending : failed) {
+            pending.complete(null, cause);
+        }
+    }
+
+    int size() {
+        return outstanding;
+    }
+
+    private static final class Pending {
+        final int responseId;
+        final CompletableFuture<ProtocolMessage> future = new CompletableFuture<>();
+        final long sentAt = System.nanoTime();
+        ScheduledFuture<?> timeout;
+
+        Pending(int responseId) {
+            this.responseId = responseId;
+        }
+
+        void complete(ProtocolMessage response, Throwable cause) {
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            if (cause != null) {
+                future.completeExceptionally(cause);
+            } else {
+                ClientMetrics.global().requestCompleted(System.nanoTime() - sentAt);
+                future.complete(response);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.habbo.client.network;
+
+import com.habbo.client.protocol.BufferPool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Byte transport underneath a {@link HabboConnection}.
+ * Implementations own the socket and deliver complete length-prefixed frames
+ * through a {@link FrameDecoder}. Outbound frames go through an {@link OutboundQueue}.
+ */
+public interface Transport {
+
+    /**
+     * Largest frame body accepted from the server
+     */
+    int MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+
+    /**
+     * Open the connection; returns once the socket is connected and reading
+     */
+    void connect(String host, int port, Handler handler) throws IOException;
+
+    /**
+     * Queue one frame for writing. {@code header} holds the 4-byte length prefix,
+     * or is null when {@code body} already starts with it.
+     *
+     * @return completes once the frame is handed to the socket, or fails if the transport closes first
+     */
+    default CompletableFuture<Void> write(ByteBuffer header, ByteBuffer body) {
+        return write(header, body, null);
+    }
+
+    /**
+     * Like {@link #write(ByteBuffer, ByteBuffer)}, releasing {@code body} to {@code recycler}
+     * (if not null) once it has been written or dropped
+     */
+    CompletableFuture<Void> write(ByteBuffer header, ByteBuffer body, BufferPool recycler);
+
+    /**
+     * Stop reading from the socket until {@link #resumeReads()}, so TCP flow control pushes back
+     * on the server. Frames from a read already in progress are still delivered. Safe from any
+     * thread and never blocks.
+     */
+    void suspendReads();
+
+    void resumeReads();
+
+    /**
+     * Close the socket. Does not notify the handler.
+     */
+    void close();
+
+    boolean isOpen();
+
+    /**
+     * Callbacks from the transport to its owning connection.
+     * Frames are views of the transport's read buffer, valid only during the call.
+     */
+    interface Handler extends FrameDecoder.FrameHandler {
+
+        /**
+         * Called once when the remote side closes or an I/O error occurs
+         */
+        void onClosed(IOException cause);
+    }
+}
@@ -0,0 +1,41 @@
+package com.habbo.client.network;
+
+/**
+ * Selects how a {@link HabboConnection} talks to the socket
+ */
+public enum TransportMode {
+    /**
+     * Non-blocking channels multiplexed on shared selector event loops
+     */
+    NIO,
+
+    /**
+     * Legacy blocking socket with one receiver thread per connection
+     */
+    BLOCKING;
+
+    private static volatile TransportMode defaultMode = fromString(System.getProperty("habbo.transport"), NIO);
+
+    public static TransportMode getDefault() {
+        return defaultMode;
+    }
+
+    public static void setDefault(TransportMode mode) {
+        defaultMode = mode;
+    }
+
+    /**
+     * Parse a mode name, falling back when the value is missing or unknown
+     */
+    public static TransportMode fromString(String value, TransportMode fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        for (TransportMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value.trim())) {
+                return mode;
+            }
+        }
+        return fallback;
+    }
+}
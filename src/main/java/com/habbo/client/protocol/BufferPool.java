@@ -0,0 +1,90 @@
+package com.habbo.client.protocol;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free pool of equally sized buffers for outbound frames.
+ * Requests larger than the pooled size get a fresh buffer that is simply dropped on release.
+ */
+public final class BufferPool {
+    private static final int PROBES = 8;
+    private static final BufferPool SHARED = new BufferPool(
+            Integer.getInteger("habbo.buffers.size", 4096),
+            Integer.getInteger("habbo.buffers.pooled", 1024),
+            Boolean.getBoolean("habbo.buffers.direct"));
+
+    private final int bufferSize;
+    private final boolean direct;
+    private final AtomicReferenceArray<ByteBuffer> slots;
+
+    public BufferPool(int bufferSize, int maxPooled, boolean direct) {
+        if (bufferSize < 16 || maxPooled < 1) {
+            throw new IllegalArgumentException("Invalid pool size: " + bufferSize + " x " + maxPooled);
+        }
+        this.bufferSize = bufferSize;
+        this.direct = direct;
+        this.slots = new AtomicReferenceArray<>(maxPooled);
+    }
+
+    /**
+     * Process-wide pool used by {@link ProtocolEncoder#acquire()}; tuned with
+     * {@code habbo.buffers.size}, {@code habbo.buffers.pooled} and {@code habbo.buffers.direct}
+     */
+    public static BufferPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Get a cleared buffer with at least {@code minCapacity} bytes
+     */
+    public ByteBuffer acquire(int minCapacity) {
+        if (minCapacity > bufferSize) {
+            return allocate(minCapacity);
+        }
+        int start = probeStart();
+        for (int i = 0; i < PROBES; i++) {
+            int index = (start + i) % slots.length();
+            ByteBuffer buffer = slots.get(index);
+            if (buffer != null && slots.compareAndSet(index, buffer, null)) {
+                return buffer.clear();
+            }
+        }
+        return allocate(bufferSize);
+    }
+
+    /**
+     * Return a buffer; the caller must not touch it afterwards
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer.capacity() != bufferSize || buffer.isDirect() != direct) {
+            return;
+        }
+        int start = probeStart();
+        for (int i = 0; i < PROBES; i++) {
+            int index = (start + i) % slots.length();
+            if (slots.get(index) == null && slots.compareAndSet(index, null, buffer)) {
+                return;
+            }
+        }
+        // Pool is full around this thread's slots; let the GC have it
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public boolean isDirect() {
+        return direct;
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    private int probeStart() {
+        // Spread threads over the slots so they rarely contend on the same CAS
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 33) % slots.length();
+    }
+}
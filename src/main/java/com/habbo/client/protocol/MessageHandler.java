@@ -0,0 +1,12 @@
+package com.habbo.client.protocol;
+
+/**
+ * Handles one decoded message type
+ *
+ * @param <C> context the message arrived on, e.g. the connection
+ * @param <M> message type
+ */
+@FunctionalInterface
+public interface MessageHandler<C, M extends ProtocolMessage> {
+    void handle(C context, M message) throws Exception;
+}
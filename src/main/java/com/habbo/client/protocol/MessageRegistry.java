@@ -0,0 +1,181 @@
+package com.habbo.client.protocol;
+
+import com.habbo.client.metrics.ClientMetrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Maps 16-bit message IDs to message factories and handlers.
+ * <p>
+ * Lookup is a single index into dense arrays sized for every possible ID, so dispatch
+ * costs the same for any message and never boxes. A registry is meant to be shared by
+ * many connections; the connection is passed to handlers as the context. Register
+ * everything before traffic starts; registration is synchronized and published through
+ * a volatile write, dispatch takes no lock.
+ *
+ * @param <C> context passed to handlers
+ */
+public final class MessageRegistry<C> {
+    public static final int MAX_MESSAGE_ID = 0xFFFF;
+
+    private final Supplier<?>[] factories = new Supplier<?>[MAX_MESSAGE_ID + 1];
+    private final MessageHandler<?, ?>[] handlers = new MessageHandler<?, ?>[MAX_MESSAGE_ID + 1];
+    private final LongAdder[] dispatched = new LongAdder[MAX_MESSAGE_ID + 1];
+    private final LongAdder unknown = new LongAdder();
+    private final ThreadLocal<ProtocolDecoder> decoders = ThreadLocal.withInitial(ProtocolDecoder::new);
+    // Bumped on every registration; readers check it first (the "version >= 0" tests),
+    // which makes the plain array writes visible to them
+    private volatile int version;
+
+    /**
+     * Register how to create a message type
+     */
+    public synchronized <M extends ProtocolMessage> MessageRegistry<C> register(int messageId, Supplier<M> factory) {
+        checkId(messageId);
+        factories[messageId] = factory;
+        if (dispatched[messageId] == null) {
+            dispatched[messageId] = new LongAdder();
+        }
+        version++;
+        return this;
+    }
+
+    /**
+     * Register a factory together with its handler
+     */
+    public synchronized <M extends ProtocolMessage> MessageRegistry<C> register(int messageId, Supplier<M> factory,
+                                                                                MessageHandler<? super C, ? super M> handler) {
+        register(messageId, factory);
+        handlers[messageId] = handler;
+        version++;
+        return this;
+    }
+
+    /**
+     * Set or replace (null removes) the handler for an already registered message.
+     * The handler must accept the type the registered factory creates.
+     */
+    public synchronized MessageRegistry<C> setHandler(int messageId, MessageHandler<? super C, ?> handler) {
+        checkId(messageId);
+        if (factories[messageId] == null) {
+            throw new IllegalStateException("No factory registered for message " + messageId);
+        }
+        handlers[messageId] = handler;
+        version++;
+        return this;
+    }
+
+    /**
+     * Message ID of a frame positioned at its body, without moving the position
+     */
+    public static int peekMessageId(ByteBuffer frame) {
+        return frame.getShort(frame.position()) & 0xFFFF;
+    }
+
+    public boolean isRegistered(int messageId) {
+        return version >= 0 && factories[messageId] != null;
+    }
+
+    /**
+     * Create an empty message for an ID, or null if it is unknown
+     */
+    public ProtocolMessage newMessage(int messageId) {
+        Supplier<?> factory = version >= 0 ? factories[messageId] : null;
+        return factory == null ? null : (ProtocolMessage) factory.get();
+    }
+
+    /**
+     * Decode a frame into its registered message type, or return null (and count it) if the ID is unknown.
+     * The frame's position is not moved.
+     */
+    public ProtocolMessage decode(ByteBuffer frame) throws IOException {
+        if (frame.remaining() < 2) {
+            throw new IOException("Frame too short for a message ID: " + frame.remaining() + " bytes");
+        }
+        int messageId = peekMessageId(frame);
+        ProtocolMessage message = newMessage(messageId);
+        if (message == null) {
+            unknown.increment();
+            return null;
+        }
+        ProtocolDecoder decoder = decoders.get().reset(frame);
+        try {
+            decoder.skip(2);
+            message.decode(decoder);
+        } catch (IOException | RuntimeException e) {
+            ClientMetrics.global().decodeFailed(messageId);
+            throw e;
+        }
+        return message;
+    }
+
+    /**
+     * Decode a frame and run its handler.
+     *
+     * @return false if the ID is unknown or has no handler; the frame is left untouched
+     */
+    @SuppressWarnings("unchecked")
+    public boolean dispatch(C context, ByteBuffer frame) throws Exception {
+        if (frame.remaining() < 2) {
+            throw new IOException("Frame too short for a message ID: " + frame.remaining() + " bytes");
+        }
+        int messageId = peekMessageId(frame);
+        MessageHandler<C, ProtocolMessage> handler = version >= 0
+                ? (MessageHandler<C, ProtocolMessage>) handlers[messageId] : null;
+        if (handler == null) {
+            if (factories[messageId] == null) {
+                unknown.increment();
+            }
+            return false;
+        }
+
+        ProtocolMessage message = decode(frame);
+        dispatched[messageId].increment();
+        handler.handle(context, message);
+        return true;
+    }
+
+    /**
+     * Run the handler for a message already decoded with {@link #decode}, so a frame that is
+     * also published elsewhere is decoded only once
+     *
+     * @return false if the message's ID has no handler
+     */
+    @SuppressWarnings("unchecked")
+    public boolean dispatch(C context, ProtocolMessage message) throws Exception {
+        int messageId = message.getMessageId();
+        checkId(messageId);
+        MessageHandler<C, ProtocolMessage> handler = version >= 0
+                ? (MessageHandler<C, ProtocolMessage>) handlers[messageId] : null;
+        if (handler == null) {
+            return false;
+        }
+        dispatched[messageId].increment();
+        handler.handle(context, message);
+        return true;
+    }
+
+    /**
+     * Messages of an ID that reached a handler
+     */
+    public long getDispatchedCount(int messageId) {
+        LongAdder counter = dispatched[messageId];
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Frames skipped because no factory was registered for their ID
+     */
+    public long getUnknownCount() {
+        return unknown.sum();
+    }
+
+    private static void checkId(int messageId) {
+        if (messageId < 0 || messageId > MAX_MESSAGE_ID) {
+            throw new IllegalArgumentException("Message ID out of range: " + messageId);
+        }
+    }
+}
@@ -1,56 +1,146 @@
 package com.habbo.client.protocol;
 
-import java.io.*;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 
 /**
- * Protocol decoder for parsing incoming Habbo protocol messages
+ * Protocol decoder for parsing incoming Habbo protocol messages.
+ * <p>
+ * A flyweight over a {@link ByteBuffer} region: {@link #reset(ByteBuffer)} points it at
+ * a new frame (heap or direct) and all reads are absolute gets, so the buffer's own
+ * position is never touched and decoding allocates nothing beyond the values returned.
+ * One decoder can be reused for every frame on a thread.
  */
 public class ProtocolDecoder {
-    private ByteArrayInputStream buffer;
-    private DataInputStream dataStream;
+    private ByteBuffer buffer;
+    private int position;
+    private int limit;
+    private byte[] scratch;
+    private Utf8View view;
+
+    /**
+     * Create an empty decoder; call {@link #reset(ByteBuffer)} before reading
+     */
+    public ProtocolDecoder() {
+        reset(ByteBuffer.allocate(0));
+    }
 
     public ProtocolDecoder(byte[] data) {
-        this.buffer = new ByteArrayInputStream(data);
-        this.dataStream = new DataInputStream(buffer);
+        reset(ByteBuffer.wrap(data));
+    }
+
+    public ProtocolDecoder(ByteBuffer data) {
+        reset(data);
+    }
+
+    /**
+     * Decode the remaining bytes of {@code data} (position to limit)
+     */
+    public ProtocolDecoder reset(ByteBuffer data) {
+        return reset(data, data.position(), data.remaining());
+    }
+
+    /**
+     * Decode {@code length} bytes of {@code data} starting at absolute index {@code offset}
+     */
+    public ProtocolDecoder reset(ByteBuffer data, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > data.limit()) {
+            throw new IndexOutOfBoundsException("Region " + offset + "+" + length + " outside limit " + data.limit());
+        }
+        this.buffer = data.order() == ByteOrder.BIG_ENDIAN ? data : data.duplicate().order(ByteOrder.BIG_ENDIAN);
+        this.position = offset;
+        this.limit = offset + length;
+        return this;
+    }
+
+    private int advance(int count) throws EOFException {
+        int start = position;
+        if (count > limit - start) {
+            throw new EOFException("Need " + count + " bytes, " + (limit - start) + " remaining");
+        }
+        position = start + count;
+        return start;
     }
 
     public int readInt() throws IOException {
-        return dataStream.readInt();
+        return buffer.getInt(advance(4));
     }
 
     public short readShort() throws IOException {
-        return dataStream.readShort();
+        return buffer.getShort(advance(2));
     }
 
     public byte readByte() throws IOException {
-        return dataStream.readByte();
+        return buffer.get(advance(1));
     }
 
+    /**
+     * Read a string written as an unsigned 16-bit byte length followed by UTF-8
+     */
     public String readString() throws IOException {
-        int length = dataStream.readShort();
+        int length = readShort() & 0xFFFF;
         if (length == 0) {
             return "";
         }
-        byte[] stringBytes = new byte[length];
-        dataStream.readFully(stringBytes);
-        return new String(stringBytes, "UTF-8");
+        int start = advance(length);
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = scratch(length);
+        buffer.get(start, bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read a string as a view over the frame without decoding it.
+     * The returned view is owned by this decoder and is repointed by the next call
+     * to this method; use {@link #readStringView(Utf8View)} to keep several at once.
+     */
+    public Utf8View readStringView() throws IOException {
+        if (view == null) {
+            view = new Utf8View();
+        }
+        return readStringView(view);
+    }
+
+    /**
+     * Point {@code target} at the next string in the frame
+     */
+    public Utf8View readStringView(Utf8View target) throws IOException {
+        int length = readShort() & 0xFFFF;
+        int start = advance(length);
+        return target.set(buffer, start, length);
     }
 
     public byte[] readBytes(int length) throws IOException {
         byte[] data = new byte[length];
-        dataStream.readFully(data);
+        buffer.get(advance(length), data, 0, length);
         return data;
     }
 
+    public void skip(int length) throws IOException {
+        advance(length);
+    }
+
     public byte[] getRemainingBytes() throws IOException {
-        return dataStream.readAllBytes();
+        return readBytes(limit - position);
     }
 
     public boolean hasMoreData() {
-        try {
-            return buffer.available() > 0;
-        } catch (Exception e) {
-            return false;
+        return position < limit;
+    }
+
+    public int remaining() {
+        return limit - position;
+    }
+
+    private byte[] scratch(int length) {
+        if (scratch == null || scratch.length < length) {
+            scratch = new byte[Math.max(length, 64)];
         }
+        return scratch;
     }
 }
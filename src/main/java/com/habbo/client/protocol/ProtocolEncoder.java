@@ -1,54 +1,223 @@
 package com.habbo.client.protocol;
 
-import java.io.*;
+import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 
 /**
- * Protocol encoder for converting messages to Habbo protocol format
+ * Protocol encoder for converting messages to Habbo protocol format.
+ * <p>
+ * Writes straight into a {@link ByteBuffer}. For sending, use the per-thread encoder from
+ * {@link #acquire()}: {@link #beginFrame()} reserves the 4-byte length prefix,
+ * {@link #finishFrame()} backpatches it and hands over the buffer, which the transport
+ * returns to the {@link BufferPool} once it has been written. No intermediate copies.
  */
 public class ProtocolEncoder {
-    private ByteArrayOutputStream buffer;
-    private DataOutputStream dataStream;
+    private static final int HEADER_LENGTH = 4;
+    private static final int INITIAL_CAPACITY = 256;
+    private static final ThreadLocal<ProtocolEncoder> POOLED =
+            ThreadLocal.withInitial(() -> new ProtocolEncoder(BufferPool.shared()));
+
+    private final BufferPool pool;
+    private ByteBuffer buffer;
+    private byte[] wrapped;
 
     public ProtocolEncoder() {
-        this.buffer = new ByteArrayOutputStream();
-        this.dataStream = new DataOutputStream(buffer);
+        this(null);
+    }
+
+    /**
+     * Encoder whose buffers come from (and grow through) {@code pool}
+     */
+    public ProtocolEncoder(BufferPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Encoder that writes into {@code target}; when exactly filled, {@link #getBytes()}
+     * returns {@code target} itself instead of a copy
+     */
+    public static ProtocolEncoder wrap(byte[] target) {
+        ProtocolEncoder encoder = new ProtocolEncoder(null);
+        encoder.buffer = ByteBuffer.wrap(target);
+        encoder.wrapped = target;
+        return encoder;
+    }
+
+    /**
+     * The calling thread's pooled encoder. Finish each frame before starting the next.
+     */
+    public static ProtocolEncoder acquire() {
+        return POOLED.get();
+    }
+
+    /**
+     * Pool the frames from {@link #finishFrame()} should be released to, or null
+     */
+    public BufferPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Start a frame, reserving room for its length prefix
+     */
+    public void beginFrame() {
+        reset();
+        ensure(HEADER_LENGTH);
+        buffer.position(HEADER_LENGTH);
+    }
+
+    /**
+     * Write the frame length into the reserved prefix and hand the buffer over,
+     * flipped for reading. The encoder takes a new buffer for the next frame.
+     */
+    public ByteBuffer finishFrame() {
+        ByteBuffer frame = buffer;
+        frame.putInt(0, frame.position() - HEADER_LENGTH);
+        frame.flip();
+        buffer = null;
+        return frame;
     }
 
     public void writeInt(int value) throws IOException {
-        dataStream.writeInt(value);
+        ensure(4);
+        buffer.putInt(value);
     }
 
     public void writeShort(short value) throws IOException {
-        dataStream.writeShort(value);
+        ensure(2);
+        buffer.putShort(value);
     }
 
     public void writeByte(byte value) throws IOException {
-        dataStream.writeByte(value);
+        ensure(1);
+        buffer.put(value);
     }
 
+    /**
+     * Write an unsigned 16-bit byte length followed by the UTF-8 bytes, encoded in place
+     */
     public void writeString(String value) throws IOException {
         if (value == null) {
-            dataStream.writeShort(0);
-        } else {
-            byte[] bytes = value.getBytes("UTF-8");
-            dataStream.writeShort(bytes.length);
-            dataStream.write(bytes);
+            writeShort((short) 0);
+            return;
+        }
+        int chars = value.length();
+        int worstCase = 2 + chars * 3;
+        // Reserve the exact length unless the worst case already fits, so an exactly sized
+        // target (see MessageCodec#serialize) is filled rather than outgrown
+        ensure(buffer != null && buffer.remaining() >= worstCase ? worstCase : encodedLength(value));
+        int lengthPosition = buffer.position();
+        int position = lengthPosition + 2;
+
+        for (int i = 0; i < chars; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put(position++, (byte) c);
+            } else if (c < 0x800) {
+                buffer.put(position++, (byte) (0xC0 | (c >> 6)));
+                buffer.put(position++, (byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < chars && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put(position++, (byte) (0xF0 | (codePoint >> 18)));
+                buffer.put(position++, (byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put(position++, (byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put(position++, (byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate, replaced the same way String.getBytes does
+                buffer.put(position++, (byte) '?');
+            } else {
+                buffer.put(position++, (byte) (0xE0 | (c >> 12)));
+                buffer.put(position++, (byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put(position++, (byte) (0x80 | (c & 0x3F)));
+            }
+        }
+
+        int byteLength = position - lengthPosition - 2;
+        if (byteLength > 0xFFFF) {
+            throw new IOException("String too long for protocol: " + byteLength + " bytes");
         }
+        buffer.putShort(lengthPosition, (short) byteLength);
+        buffer.position(position);
     }
 
     public void writeBytes(byte[] data) throws IOException {
-        dataStream.write(data);
+        ensure(data.length);
+        buffer.put(data);
+    }
+
+    /**
+     * Number of bytes {@link #writeString(String)} writes for {@code value}, including its length prefix
+     */
+    public static int encodedLength(String value) {
+        if (value == null) {
+            return 2;
+        }
+        int bytes = 0;
+        int chars = value.length();
+        for (int i = 0; i < chars; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < chars && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return 2 + bytes;
+    }
+
+    /**
+     * Make sure at least {@code bytes} more fit, e.g. once with a precomputed message size
+     */
+    public void ensureCapacity(int bytes) {
+        ensure(bytes);
     }
 
     public byte[] getBytes() throws IOException {
-        dataStream.flush();
-        return buffer.toByteArray();
+        if (buffer == null) {
+            return new byte[0];
+        }
+        if (wrapped != null && buffer.array() == wrapped && buffer.position() == wrapped.length) {
+            byte[] result = wrapped;
+            wrapped = null;
+            buffer = null;
+            return result;
+        }
+        byte[] bytes = new byte[buffer.position()];
+        buffer.get(0, bytes, 0, bytes.length);
+        return bytes;
     }
 
     public void reset() {
-        buffer = new ByteArrayOutputStream();
-        dataStream = new DataOutputStream(buffer);
+        if (buffer != null) {
+            buffer.clear();
+        }
+    }
+
+    private void ensure(int bytes) {
+        if (buffer == null) {
+            buffer = allocate(bytes);
+            return;
+        }
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        ByteBuffer larger = allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+        buffer.flip();
+        larger.put(buffer);
+        if (pool != null) {
+            pool.release(buffer);
+        }
+        buffer = larger;
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return pool != null ? pool.acquire(capacity) : ByteBuffer.allocate(Math.max(INITIAL_CAPACITY, capacity));
     }
 }
@@ -1,6 +1,6 @@
 package com.habbo.client.protocol;
 
-import java.io.*;
+import java.io.IOException;
 import java.nio.ByteBuffer;
 
 /**
@@ -19,15 +19,43 @@ public abstract class ProtocolMessage {
      */
     public abstract byte[] serialize() throws IOException;
 
+    /**
+     * Write the message (ID and fields) into an encoder, e.g. a pooled frame.
+     * The default copies the output of {@link #serialize()}; messages override it
+     * to write their fields directly.
+     */
+    public void encode(ProtocolEncoder encoder) throws IOException {
+        encoder.writeBytes(serialize());
+    }
+
     /**
      * Deserialize message from bytes
      */
     public abstract void deserialize(byte[] data) throws IOException;
 
+    /**
+     * Read the message fields from a decoder positioned just after the message ID.
+     * The default rebuilds the frame for {@link #deserialize(byte[])}; messages override
+     * it to read their fields directly.
+     */
+    public void decode(ProtocolDecoder decoder) throws IOException {
+        byte[] body = decoder.getRemainingBytes();
+        ByteBuffer frame = ByteBuffer.allocate(2 + body.length);
+        frame.putShort((short) messageId).put(body);
+        deserialize(frame.array());
+    }
+
     public int getMessageId() {
         return messageId;
     }
 
+    /**
+     * ID of the message the server sends in reply, or -1 if this message gets no reply
+     */
+    public int getResponseMessageId() {
+        return -1;
+    }
+
     public void setMessageData(byte[] data) {
         this.messageData = data;
     }
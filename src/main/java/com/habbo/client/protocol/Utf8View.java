@@ -0,0 +1,214 @@
+package com.habbo.client.protocol;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Read-only {@link CharSequence} over UTF-8 bytes in a buffer.
+ * <p>
+ * Comparing with a {@code String} and hashing walk the bytes directly, so handlers can
+ * match names without building a String. {@link #hashCode()} equals the hash of the
+ * decoded String. A view is only valid while the underlying frame is.
+ */
+public final class Utf8View implements CharSequence {
+    private static final long MALFORMED = -1L;
+
+    private ByteBuffer buffer;
+    private int offset;
+    private int byteLength;
+    private int ascii; // 0 = unknown, 1 = ascii, 2 = multibyte
+    private String decoded;
+
+    Utf8View set(ByteBuffer buffer, int offset, int byteLength) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.byteLength = byteLength;
+        this.ascii = 0;
+        this.decoded = null;
+        return this;
+    }
+
+    public int byteLength() {
+        return byteLength;
+    }
+
+    /**
+     * Whether every byte is 7-bit ASCII (one char per byte)
+     */
+    public boolean isAscii() {
+        if (ascii == 0) {
+            ascii = 1;
+            for (int i = 0; i < byteLength; i++) {
+                if (buffer.get(offset + i) < 0) {
+                    ascii = 2;
+                    break;
+                }
+            }
+        }
+        return ascii == 1;
+    }
+
+    @Override
+    public int length() {
+        return isAscii() ? byteLength : toString().length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (isAscii()) {
+            if (index < 0 || index >= byteLength) {
+                throw new IndexOutOfBoundsException("Index " + index + ", length " + byteLength);
+            }
+            return (char) buffer.get(offset + index);
+        }
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (isAscii()) {
+            if (start < 0 || end > byteLength || start > end) {
+                throw new IndexOutOfBoundsException("Range " + start + "-" + end + ", length " + byteLength);
+            }
+            return new Utf8View().set(buffer, offset + start, end - start);
+        }
+        return toString().subSequence(start, end);
+    }
+
+    /**
+     * Compare with a String char by char without decoding the bytes
+     */
+    public boolean contentEquals(String other) {
+        int units = 0;
+        int end = offset + byteLength;
+        for (int index = offset; index < end; ) {
+            long step = decodeAt(index, end);
+            if (step == MALFORMED) {
+                return toString().equals(other);
+            }
+            int codePoint = (int) (step >>> 8);
+            index += (int) (step & 0xFF);
+            if (codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                if (units + 2 > other.length()
+                        || other.charAt(units) != Character.highSurrogate(codePoint)
+                        || other.charAt(units + 1) != Character.lowSurrogate(codePoint)) {
+                    return false;
+                }
+                units += 2;
+            } else {
+                if (units >= other.length() || other.charAt(units) != codePoint) {
+                    return false;
+                }
+                units++;
+            }
+        }
+        return units == other.length();
+    }
+
+    /**
+     * Compare the raw bytes with another view
+     */
+    public boolean contentEquals(Utf8View other) {
+        if (byteLength != other.byteLength) {
+            return false;
+        }
+        for (int i = 0; i < byteLength; i++) {
+            if (buffer.get(offset + i) != other.buffer.get(other.offset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        return other instanceof Utf8View && contentEquals((Utf8View) other);
+    }
+
+    /**
+     * Same value as {@code toString().hashCode()}, computed from the bytes
+     */
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        int end = offset + byteLength;
+        for (int index = offset; index < end; ) {
+            long step = decodeAt(index, end);
+            if (step == MALFORMED) {
+                return toString().hashCode();
+            }
+            int codePoint = (int) (step >>> 8);
+            index += (int) (step & 0xFF);
+            if (codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                hash = 31 * (31 * hash + Character.highSurrogate(codePoint)) + Character.lowSurrogate(codePoint);
+            } else {
+                hash = 31 * hash + codePoint;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Decode one code point; returns {@code codePoint << 8 | byteCount}, or {@link #MALFORMED}.
+     * Overlong forms, encoded surrogates and values above U+10FFFF are malformed, as they are
+     * to the JDK decoder, which replaces them.
+     */
+    private long decodeAt(int index, int end) {
+        int b = buffer.get(index) & 0xFF;
+        if (b < 0x80) {
+            return ((long) b << 8) | 1;
+        }
+        if (b >= 0xC2 && b <= 0xDF && index + 1 < end && isContinuation(index + 1)) {
+            int codePoint = ((b & 0x1F) << 6) | (buffer.get(index + 1) & 0x3F);
+            return ((long) codePoint << 8) | 2;
+        }
+        if ((b & 0xF0) == 0xE0 && index + 2 < end && isSecondByte(b, index + 1) && isContinuation(index + 2)) {
+            int codePoint = ((b & 0x0F) << 12) | ((buffer.get(index + 1) & 0x3F) << 6) | (buffer.get(index + 2) & 0x3F);
+            return ((long) codePoint << 8) | 3;
+        }
+        if (b >= 0xF0 && b <= 0xF4 && index + 3 < end && isSecondByte(b, index + 1)
+                && isContinuation(index + 2) && isContinuation(index + 3)) {
+            int codePoint = ((b & 0x07) << 18) | ((buffer.get(index + 1) & 0x3F) << 12)
+                    | ((buffer.get(index + 2) & 0x3F) << 6) | (buffer.get(index + 3) & 0x3F);
+            return ((long) codePoint << 8) | 4;
+        }
+        return MALFORMED;
+    }
+
+    private boolean isContinuation(int index) {
+        return (buffer.get(index) & 0xC0) == 0x80;
+    }
+
+    /**
+     * The allowed range of the byte after a 3- or 4-byte lead, which rules out overlong forms
+     * (E0, F0), surrogates (ED) and code points past U+10FFFF (F4)
+     */
+    private boolean isSecondByte(int lead, int index) {
+        int b = buffer.get(index) & 0xFF;
+        switch (lead) {
+            case 0xE0:
+                return b >= 0xA0 && b <= 0xBF;
+            case 0xED:
+                return b >= 0x80 && b <= 0x9F;
+            case 0xF0:
+                return b >= 0x90 && b <= 0xBF;
+            case 0xF4:
+                return b >= 0x80 && b <= 0x8F;
+            default:
+                return b >= 0x80 && b <= 0xBF;
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (decoded == null) {
+            byte[] bytes = new byte[byteLength];
+            buffer.get(offset, bytes, 0, byteLength);
+            decoded = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return decoded;
+    }
+}
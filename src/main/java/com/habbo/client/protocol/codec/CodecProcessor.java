@@ -0,0 +1,274 @@
+package com.habbo.client.protocol.codec;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a reflection-free {@link MessageCodec} for each message with {@link Field} annotations.
+ * <p>
+ * The generated {@code <Message>Codec} sits in the message's package and reads and writes
+ * the fields in straight-line code through their accessors ({@code getX}/{@code isX} and
+ * {@code setX}) or directly when the field is not private. It also computes the exact
+ * encoded size so encoders can size their buffer once.
+ */
+@SupportedAnnotationTypes("com.habbo.client.protocol.codec.Field")
+public class CodecProcessor extends AbstractProcessor {
+    private static final String PROTOCOL_MESSAGE = "com.habbo.client.protocol.ProtocolMessage";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Map<TypeElement, List<VariableElement>> messages = new LinkedHashMap<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(Field.class)) {
+            TypeElement owner = (TypeElement) element.getEnclosingElement();
+            messages.computeIfAbsent(owner, key -> new ArrayList<>()).add((VariableElement) element);
+        }
+
+        for (Map.Entry<TypeElement, List<VariableElement>> entry : messages.entrySet()) {
+            try {
+                generate(entry.getKey(), entry.getValue());
+            } catch (IOException e) {
+                error(entry.getKey(), "Failed to write codec: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private void generate(TypeElement message, List<VariableElement> fields) throws IOException {
+        TypeMirror protocolMessage = processingEnv.getElementUtils().getTypeElement(PROTOCOL_MESSAGE).asType();
+        if (!processingEnv.getTypeUtils().isSubtype(message.asType(), protocolMessage)) {
+            error(message, "@Field is only supported on ProtocolMessage subclasses");
+            return;
+        }
+
+        fields.sort(Comparator.comparingInt(field -> field.getAnnotation(Field.class).order()));
+        List<FieldCode> codes = new ArrayList<>();
+        int previousOrder = Integer.MIN_VALUE;
+        for (VariableElement field : fields) {
+            Field annotation = field.getAnnotation(Field.class);
+            if (annotation.order() == previousOrder) {
+                error(field, "Duplicate @Field order " + annotation.order() + " in " + message.getSimpleName());
+                return;
+            }
+            previousOrder = annotation.order();
+            FieldCode code = fieldCode(message, field, annotation.type());
+            if (code == null) {
+                return;
+            }
+            codes.add(code);
+        }
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(message).getQualifiedName().toString();
+        String messageName = message.getSimpleName().toString();
+        String codecName = messageName + "Codec";
+
+        StringBuilder out = new StringBuilder();
+        out.append("package ").append(packageName).append(";\n\n");
+        out.append("import com.habbo.client.protocol.ProtocolDecoder;\n");
+        out.append("import com.habbo.client.protocol.ProtocolEncoder;\n");
+        out.append("import com.habbo.client.protocol.codec.MessageCodec;\n");
+        out.append("import java.io.IOException;\n\n");
+        out.append("/**\n * Wire codec for {@link ").append(messageName).append("}, generated from its @Field annotations.\n */\n");
+        out.append("@javax.annotation.processing.Generated(\"").append(CodecProcessor.class.getName()).append("\")\n");
+        out.append("public final class ").append(codecName).append(" implements MessageCodec<").append(messageName).append("> {\n");
+        out.append("    public static final ").append(codecName).append(" INSTANCE = new ").append(codecName).append("();\n\n");
+        out.append("    private ").append(codecName).append("() {\n    }\n\n");
+
+        int fixedSize = 2;
+        StringBuilder variableSize = new StringBuilder();
+        for (FieldCode code : codes) {
+            if (code.type.getFixedSize() >= 0) {
+                fixedSize += code.type.getFixedSize();
+            } else {
+                variableSize.append("\n                + ProtocolEncoder.encodedLength(").append(code.read).append(")");
+            }
+        }
+        out.append("    @Override\n    public int encodedSize(").append(messageName).append(" message) {\n");
+        out.append("        return ").append(fixedSize).append(variableSize).append(";\n    }\n\n");
+
+        out.append("    @Override\n    public void encode(").append(messageName)
+                .append(" message, ProtocolEncoder encoder) throws IOException {\n");
+        out.append("        encoder.writeShort((short) message.getMessageId());\n");
+        for (FieldCode code : codes) {
+            out.append("        ").append(code.encode).append(";\n");
+        }
+        out.append("    }\n\n");
+
+        out.append("    @Override\n    public void decode(").append(messageName)
+                .append(" message, ProtocolDecoder decoder) throws IOException {\n");
+        for (FieldCode code : codes) {
+            out.append("        ").append(code.decode).append(";\n");
+        }
+        out.append("    }\n}\n");
+
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(packageName + "." + codecName, message);
+        try (Writer writer = file.openWriter()) {
+            writer.write(out.toString());
+        }
+    }
+
+    /**
+     * Encode/decode statements for one field, or null after reporting an error
+     */
+    private FieldCode fieldCode(TypeElement message, VariableElement field, FieldType type) {
+        String name = field.getSimpleName().toString();
+        TypeMirror fieldType = field.asType();
+        if (!matches(type, fieldType)) {
+            error(field, "@Field type " + type + " does not fit " + fieldType);
+            return null;
+        }
+
+        String read;
+        String assignPrefix;
+        String assignSuffix;
+        if (!field.getModifiers().contains(Modifier.PRIVATE)) {
+            read = "message." + name;
+            assignPrefix = "message." + name + " = ";
+            assignSuffix = "";
+        } else {
+            String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            ExecutableElement getter = findMethod(message, "get" + capitalized, 0);
+            if (getter == null && type == FieldType.BOOLEAN) {
+                getter = findMethod(message, "is" + capitalized, 0);
+            }
+            ExecutableElement setter = findMethod(message, "set" + capitalized, 1);
+            if (getter == null || setter == null) {
+                error(field, "Private @Field '" + name + "' needs a getter and setter");
+                return null;
+            }
+            read = "message." + getter.getSimpleName() + "()";
+            assignPrefix = "message." + setter.getSimpleName() + "(";
+            assignSuffix = ")";
+        }
+
+        String encode;
+        String value;
+        switch (type) {
+            case BYTE:
+                encode = "encoder.writeByte(" + read + ")";
+                value = "decoder.readByte()";
+                break;
+            case SHORT:
+                encode = "encoder.writeShort(" + read + ")";
+                value = "decoder.readShort()";
+                break;
+            case INT:
+                encode = "encoder.writeInt(" + read + ")";
+                value = "decoder.readInt()";
+                break;
+            case BOOLEAN:
+                encode = "encoder.writeByte((byte) (" + read + " ? 1 : 0))";
+                value = "decoder.readByte() != 0";
+                break;
+            case STRING:
+                encode = "encoder.writeString(" + read + ")";
+                value = "decoder.readString()";
+                break;
+            case ENUM_BYTE:
+                if (!hasByteCodes(fieldType)) {
+                    error(field, "ENUM_BYTE @Field '" + name + "' needs an enum with getCode() returning a number"
+                            + " and a static fromCode(byte) returning the enum");
+                    return null;
+                }
+                String enumType = processingEnv.getTypeUtils().erasure(fieldType).toString();
+                encode = "encoder.writeByte((byte) " + read + ".getCode())";
+                value = enumType + ".fromCode(decoder.readByte())";
+                break;
+            default:
+                error(field, "Unsupported @Field type " + type);
+                return null;
+        }
+        return new FieldCode(type, read, encode, assignPrefix + value + assignSuffix);
+    }
+
+    private boolean matches(FieldType type, TypeMirror fieldType) {
+        switch (type) {
+            case BYTE:
+                return fieldType.getKind() == TypeKind.BYTE;
+            case SHORT:
+                return fieldType.getKind() == TypeKind.SHORT;
+            case INT:
+                return fieldType.getKind() == TypeKind.INT;
+            case BOOLEAN:
+                return fieldType.getKind() == TypeKind.BOOLEAN;
+            case STRING:
+                return fieldType.toString().equals("java.lang.String");
+            case ENUM_BYTE:
+                Element element = processingEnv.getTypeUtils().asElement(fieldType);
+                return element != null && element.getKind() == ElementKind.ENUM;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Whether the enum has the {@code getCode()} and static {@code fromCode(byte)} that ENUM_BYTE code calls
+     */
+    private boolean hasByteCodes(TypeMirror enumType) {
+        TypeElement type = (TypeElement) processingEnv.getTypeUtils().asElement(enumType);
+        ExecutableElement getCode = findMethod(type, "getCode", 0);
+        ExecutableElement fromCode = findMethod(type, "fromCode", 1);
+        if (getCode == null || getCode.getModifiers().contains(Modifier.STATIC)
+                || !getCode.getReturnType().getKind().isPrimitive()
+                || getCode.getReturnType().getKind() == TypeKind.BOOLEAN) {
+            return false;
+        }
+        TypeMirror byteType = processingEnv.getTypeUtils().getPrimitiveType(TypeKind.BYTE);
+        return fromCode != null && fromCode.getModifiers().contains(Modifier.STATIC)
+                && processingEnv.getTypeUtils().isAssignable(byteType, fromCode.getParameters().get(0).asType())
+                && processingEnv.getTypeUtils().isAssignable(fromCode.getReturnType(), enumType);
+    }
+
+    private ExecutableElement findMethod(TypeElement type, String name, int parameters) {
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            if (method.getSimpleName().contentEquals(name) && method.getParameters().size() == parameters
+                    && !method.getModifiers().contains(Modifier.PRIVATE)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static final class FieldCode {
+        final FieldType type;
+        final String read;
+        final String encode;
+        final String decode;
+
+        FieldCode(FieldType type, String read, String encode, String decode) {
+            this.type = type;
+            this.read = read;
+            this.encode = encode;
+            this.decode = decode;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.habbo.client.protocol.codec;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a message field as part of the wire format.
+ * {@link CodecProcessor} generates a {@code <Message>Codec} class for every message
+ * with annotated fields, writing the message ID and then the fields by ascending order.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Field {
+
+    /**
+     * Position of the field on the wire; unique within the message
+     */
+    int order();
+
+    FieldType type();
+}
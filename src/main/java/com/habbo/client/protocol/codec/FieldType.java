@@ -0,0 +1,49 @@
+package com.habbo.client.protocol.codec;
+
+/**
+ * Wire encodings understood by {@link CodecProcessor}
+ */
+public enum FieldType {
+    /**
+     * {@code byte}, 1 byte
+     */
+    BYTE(1),
+
+    /**
+     * {@code short}, 2 bytes big-endian
+     */
+    SHORT(2),
+
+    /**
+     * {@code int}, 4 bytes big-endian
+     */
+    INT(4),
+
+    /**
+     * {@code boolean}, 1 byte (0 or 1)
+     */
+    BOOLEAN(1),
+
+    /**
+     * {@code String}, unsigned 16-bit byte length then UTF-8
+     */
+    STRING(-1),
+
+    /**
+     * Enum with {@code getCode()} and a static {@code fromCode(int)}, sent as its code in 1 byte
+     */
+    ENUM_BYTE(1);
+
+    private final int fixedSize;
+
+    FieldType(int fixedSize) {
+        this.fixedSize = fixedSize;
+    }
+
+    /**
+     * Encoded size in bytes, or -1 if it depends on the value
+     */
+    public int getFixedSize() {
+        return fixedSize;
+    }
+}
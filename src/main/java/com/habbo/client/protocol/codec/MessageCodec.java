@@ -0,0 +1,39 @@
+package com.habbo.client.protocol.codec;
+
+import com.habbo.client.protocol.ProtocolDecoder;
+import com.habbo.client.protocol.ProtocolEncoder;
+import com.habbo.client.protocol.ProtocolMessage;
+
+import java.io.IOException;
+
+/**
+ * Wire codec for one message type, normally generated by {@link CodecProcessor}
+ *
+ * @param <M> message type
+ */
+public interface MessageCodec<M extends ProtocolMessage> {
+
+    /**
+     * Exact number of bytes {@link #encode} writes, message ID included
+     */
+    int encodedSize(M message);
+
+    /**
+     * Write the message ID followed by the fields
+     */
+    void encode(M message, ProtocolEncoder encoder) throws IOException;
+
+    /**
+     * Read the fields from a decoder positioned just after the message ID
+     */
+    void decode(M message, ProtocolDecoder decoder) throws IOException;
+
+    /**
+     * Encode into an array allocated once at the exact size
+     */
+    default byte[] serialize(M message) throws IOException {
+        ProtocolEncoder encoder = ProtocolEncoder.wrap(new byte[encodedSize(message)]);
+        encode(message, encoder);
+        return encoder.getBytes();
+    }
+}
@@ -3,16 +3,22 @@ package com.habbo.client.protocol.messages;
 import com.habbo.client.protocol.ProtocolMessage;
 import com.habbo.client.protocol.ProtocolEncoder;
 import com.habbo.client.protocol.ProtocolDecoder;
+import com.habbo.client.protocol.codec.Field;
+import com.habbo.client.protocol.codec.FieldType;
 import java.io.IOException;
 
 /**
  * Authentication request message for Habbo protocol
  */
 public class AuthenticationMessage extends ProtocolMessage {
-    private static final int MESSAGE_ID = 0x0001; // Login message ID
+    public static final int MESSAGE_ID = 0x0001; // Login message ID
+    @Field(order = 1, type = FieldType.STRING)
     private String username;
+    @Field(order = 2, type = FieldType.STRING)
     private String ssoToken;
+    @Field(order = 3, type = FieldType.STRING)
     private String clientVersion;
+    @Field(order = 4, type = FieldType.STRING)
     private String clientIdentifier;
 
     public AuthenticationMessage() {
@@ -29,26 +35,33 @@ public class AuthenticationMessage extends ProtocolMessage {
 
     @Override
     public byte[] serialize() throws IOException {
-        ProtocolEncoder encoder = new ProtocolEncoder();
-        encoder.writeShort((short) MESSAGE_ID);
-        encoder.writeString(username);
-        encoder.writeString(ssoToken);
-        encoder.writeString(clientVersion);
-        encoder.writeString(clientIdentifier);
-        return encoder.getBytes();
+        return AuthenticationMessageCodec.INSTANCE.serialize(this);
+    }
+
+    @Override
+    public void encode(ProtocolEncoder encoder) throws IOException {
+        encoder.ensureCapacity(AuthenticationMessageCodec.INSTANCE.encodedSize(this));
+        AuthenticationMessageCodec.INSTANCE.encode(this, encoder);
     }
 
     @Override
     public void deserialize(byte[] data) throws IOException {
         ProtocolDecoder decoder = new ProtocolDecoder(data);
         decoder.readShort(); // Skip message ID
-        this.username = decoder.readString();
-        this.ssoToken = decoder.readString();
-        this.clientVersion = decoder.readString();
-        this.clientIdentifier = decoder.readString();
+        decode(decoder);
+    }
+
+    @Override
+    public void decode(ProtocolDecoder decoder) throws IOException {
+        AuthenticationMessageCodec.INSTANCE.decode(this, decoder);
     }
 
     // Getters and Setters
+    @Override
+    public int getResponseMessageId() {
+        return AuthenticationResponseMessage.MESSAGE_ID;
+    }
+
     public String getUsername() {
         return username;
     }
@@ -3,13 +3,15 @@ package com.habbo.client.protocol.messages;
 import com.habbo.client.protocol.ProtocolMessage;
 import com.habbo.client.protocol.ProtocolDecoder;
 import com.habbo.client.protocol.ProtocolEncoder;
+import com.habbo.client.protocol.codec.Field;
+import com.habbo.client.protocol.codec.FieldType;
 import java.io.IOException;
 
 /**
  * Server response to authentication request
  */
 public class AuthenticationResponseMessage extends ProtocolMessage {
-    private static final int MESSAGE_ID = 0x0002;
+    public static final int MESSAGE_ID = 0x0002;
     
     public enum AuthStatus {
         SUCCESS(0, "Authentication successful"),
@@ -46,9 +48,13 @@ public class AuthenticationResponseMessage extends ProtocolMessage {
         }
     }
 
+    @Field(order = 1, type = FieldType.ENUM_BYTE)
     private AuthStatus status;
+    @Field(order = 2, type = FieldType.INT)
     private int userId;
+    @Field(order = 3, type = FieldType.STRING)
     private String sessionToken;
+    @Field(order = 4, type = FieldType.STRING)
     private String authMessage;
 
     public AuthenticationResponseMessage() {
@@ -57,23 +63,25 @@ public class AuthenticationResponseMessage extends ProtocolMessage {
 
     @Override
     public byte[] serialize() throws IOException {
-        ProtocolEncoder encoder = new ProtocolEncoder();
-        encoder.writeShort((short) MESSAGE_ID);
-        encoder.writeByte((byte) status.getCode());
-        encoder.writeInt(userId);
-        encoder.writeString(sessionToken);
-        encoder.writeString(authMessage);
-        return encoder.getBytes();
+        return AuthenticationResponseMessageCodec.INSTANCE.serialize(this);
+    }
+
+    @Override
+    public void encode(ProtocolEncoder encoder) throws IOException {
+        encoder.ensureCapacity(AuthenticationResponseMessageCodec.INSTANCE.encodedSize(this));
+        AuthenticationResponseMessageCodec.INSTANCE.encode(this, encoder);
     }
 
     @Override
     public void deserialize(byte[] data) throws IOException {
         ProtocolDecoder decoder = new ProtocolDecoder(data);
         decoder.readShort(); // Skip message ID
-        this.status = AuthStatus.fromCode(decoder.readByte());
-        this.userId = decoder.readInt();
-        this.sessionToken = decoder.readString();
-        this.authMessage = decoder.readString();
+        decode(decoder);
+    }
+
+    @Override
+    public void decode(ProtocolDecoder decoder) throws IOException {
+        AuthenticationResponseMessageCodec.INSTANCE.decode(this, decoder);
     }
 
     // Getters and Setters
@@ -0,0 +1,304 @@
+package com.habbo.client.session;
+
+import com.habbo.client.metrics.LatencyHistogram;
+import com.habbo.client.protocol.messages.AuthenticationResponseMessage.AuthStatus;
+import com.habbo.client.util.TokenBucket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logs in many accounts in parallel, one session per account, without hammering the server.
+ * <p>
+ * Logins fan out through {@link SessionManager#forEach} but each one first takes a permit
+ * from a shared {@link TokenBucket}, so the whole run stays within its rate however many run
+ * at once. Every rejected login or failed connect spends one unit of a shared failure budget;
+ * once it is spent, logins not yet started are skipped, so a wrong password file or a server
+ * refusing logins costs a few attempts rather than thousands.
+ */
+public final class BulkLogin {
+    private static final Logger logger = LoggerFactory.getLogger(BulkLogin.class);
+    public static final int UNLIMITED_FAILURES = Integer.MAX_VALUE;
+
+    private final SessionManager manager;
+    private final TokenBucket limiter;
+    private final int failureBudget;
+
+    /**
+     * @param failureBudget failures tolerated before the rest are skipped, or {@link #UNLIMITED_FAILURES}
+     */
+    public BulkLogin(SessionManager manager, TokenBucket limiter, int failureBudget) {
+        if (failureBudget < 1) {
+            throw new IllegalArgumentException("failureBudget must be at least 1");
+        }
+        this.manager = manager;
+        this.limiter = limiter;
+        this.failureBudget = failureBudget;
+    }
+
+    /**
+     * Read one {@code username:password} (or {@code username password}) per line.
+     * Blank lines and lines starting with {@code #} are ignored.
+     */
+    public static List<Credential> readCredentials(Path file) throws IOException {
+        List<Credential> credentials = new ArrayList<>();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            int separator = trimmed.indexOf(':');
+            if (separator < 0) {
+                separator = indexOfWhitespace(trimmed);
+            }
+            if (separator <= 0 || separator == trimmed.length() - 1) {
+                throw new IOException(file + ":" + lineNumber + ": expected username:password");
+            }
+            credentials.add(new Credential(trimmed.substring(0, separator).trim(),
+                    trimmed.substring(separator + 1).trim()));
+        }
+        return credentials;
+    }
+
+    private static int indexOfWhitespace(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.isWhitespace(value.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Connect and log in every account, creating a session named after the username where
+     * there is none; new connections send their login with the handshake
+     * ({@link com.habbo.client.network.HabboConnection#connectAndLogin}).
+     * Sessions already logged in count as successes without a new login.
+     */
+    public Report run(List<Credential> credentials, String host, int port) {
+        Map<String, Credential> byUsername = new LinkedHashMap<>();
+        for (Credential credential : credentials) {
+            byUsername.putIfAbsent(credential.getUsername(), credential);
+        }
+        List<Session> targets = new ArrayList<>(byUsername.size());
+        for (String username : byUsername.keySet()) {
+            Session session = manager.get(username);
+            targets.add(session != null ? session : manager.create(username, host, port));
+        }
+
+        Run run = new Run();
+        long start = System.nanoTime();
+        manager.forEach(targets, session -> run.login(session, byUsername.get(session.getId()).getPassword()));
+        Report report = run.report(targets.size(), System.nanoTime() - start);
+        logger.info("Bulk login of {} accounts: {} succeeded, {} failed, {} skipped", targets.size(),
+                report.getSucceeded(), report.getFailed(), report.getSkipped());
+        return report;
+    }
+
+    /**
+     * Shared state of one {@link #run}
+     */
+    private final class Run {
+        private final AtomicInteger failuresLeft = new AtomicInteger(failureBudget);
+        private final AtomicIntegerArray statuses = new AtomicIntegerArray(AuthStatus.values().length);
+        private final LatencyHistogram latency = new LatencyHistogram("bulk-login");
+        private final LongAdder connectFailures = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+
+        boolean login(Session session, String password) {
+            if (session.isAuthenticated()) {
+                statuses.incrementAndGet(AuthStatus.SUCCESS.ordinal());
+                return true;
+            }
+            if (failuresLeft.get() <= 0) {
+                skipped.increment();
+                return false;
+            }
+            try {
+                limiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                skipped.increment();
+                return false;
+            }
+            // The budget may have run out while this login waited for its permit
+            if (failuresLeft.get() <= 0) {
+                skipped.increment();
+                return false;
+            }
+            long begin = System.nanoTime();
+            AuthStatus status = session.getConnection().connectAndLogin(session.getId(), password);
+            latency.record(System.nanoTime() - begin);
+            if (!session.isConnected()) {
+                connectFailures.increment();
+                spendFailure();
+                return false;
+            }
+            statuses.incrementAndGet(status.ordinal());
+            if (status != AuthStatus.SUCCESS) {
+                spendFailure();
+                return false;
+            }
+            return true;
+        }
+
+        private void spendFailure() {
+            if (failuresLeft.decrementAndGet() == 0) {
+                logger.warn("Bulk login failure budget of {} spent, skipping remaining logins", failureBudget);
+            }
+        }
+
+        Report report(int accounts, long elapsedNanos) {
+            Map<AuthStatus, Integer> byStatus = new EnumMap<>(AuthStatus.class);
+            for (AuthStatus status : AuthStatus.values()) {
+                int count = statuses.get(status.ordinal());
+                if (count > 0) {
+                    byStatus.put(status, count);
+                }
+            }
+            return new Report(accounts, byStatus, (int) connectFailures.sum(), (int) skipped.sum(),
+                    failuresLeft.get() <= 0, latency.snapshot(), Duration.ofNanos(elapsedNanos));
+        }
+    }
+
+    /**
+     * One account from a credentials file
+     */
+    public static final class Credential {
+        private final String username;
+        private final String password;
+
+        public Credential(String username, String password) {
+            this.username = username;
+            this.password = password;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        @Override
+        public String toString() {
+            return "Credential{username='" + username + "'}";
+        }
+    }
+
+    /**
+     * Outcome of a bulk login
+     */
+    public static final class Report {
+        private final int accounts;
+        private final Map<AuthStatus, Integer> statuses;
+        private final int connectFailures;
+        private final int skipped;
+        private final boolean budgetExhausted;
+        private final LatencyHistogram.Snapshot latency;
+        private final Duration elapsed;
+
+        Report(int accounts, Map<AuthStatus, Integer> statuses, int connectFailures, int skipped,
+               boolean budgetExhausted, LatencyHistogram.Snapshot latency, Duration elapsed) {
+            this.accounts = accounts;
+            this.statuses = Collections.unmodifiableMap(statuses);
+            this.connectFailures = connectFailures;
+            this.skipped = skipped;
+            this.budgetExhausted = budgetExhausted;
+            this.latency = latency;
+            this.elapsed = elapsed;
+        }
+
+        public int getAccounts() {
+            return accounts;
+        }
+
+        public int getSucceeded() {
+            return statuses.getOrDefault(AuthStatus.SUCCESS, 0);
+        }
+
+        /**
+         * Rejected logins and failed connects
+         */
+        public int getFailed() {
+            return accounts - getSucceeded() - skipped;
+        }
+
+        /**
+         * Login attempts per status, including {@code SUCCESS}; statuses never seen are absent
+         */
+        public Map<AuthStatus, Integer> getStatuses() {
+            return statuses;
+        }
+
+        public int getConnectFailures() {
+            return connectFailures;
+        }
+
+        public int getSkipped() {
+            return skipped;
+        }
+
+        public boolean isBudgetExhausted() {
+            return budgetExhausted;
+        }
+
+        /**
+         * Time to ready per login, including the connect when the session had none but not
+         * the wait for a rate-limit permit
+         */
+        public LatencyHistogram.Snapshot getLatency() {
+            return latency;
+        }
+
+        public Duration getElapsed() {
+            return elapsed;
+        }
+
+        /**
+         * Successful logins per second of the whole run
+         */
+        public double getThroughput() {
+            long nanos = elapsed.toNanos();
+            return nanos == 0 ? 0 : getSucceeded() * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+        }
+
+        /**
+         * Multi-line summary, e.g. for the {@code session login-file} command
+         */
+        public String format() {
+            StringBuilder report = new StringBuilder();
+            report.append(String.format("%d accounts in %.2fs: %d logged in (%.1f/s), %d failed, %d skipped%s%n",
+                    accounts, elapsed.toNanos() / 1e9, getSucceeded(), getThroughput(), getFailed(), skipped,
+                    budgetExhausted ? " (failure budget spent)" : ""));
+            report.append("  latency ").append(latency.format());
+            for (Map.Entry<AuthStatus, Integer> status : statuses.entrySet()) {
+                if (status.getKey() != AuthStatus.SUCCESS) {
+                    report.append(String.format("%n  %-20s %d", status.getKey(), status.getValue()));
+                }
+            }
+            if (connectFailures > 0) {
+                report.append(String.format("%n  %-20s %d", "CONNECT_FAILED", connectFailures));
+            }
+            return report.toString();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.habbo.client.session;
+
+import com.habbo.client.protocol.ProtocolMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Messages of several sessions merged into one {@link Flow.Publisher}.
+ * <p>
+ * Each session's connection is asked for at most {@value #PREFETCH} messages ahead of the
+ * subscriber and topped up only as the subscriber consumes them, so when the subscriber stops
+ * requesting every connection soon stops reading its socket. Messages of one session stay in
+ * order; sessions interleave in arrival order. A session whose connection closes, cleanly or
+ * not, simply leaves the merge, which completes once every session has.
+ */
+final class MergedMessagePublisher implements Flow.Publisher<SessionMessage> {
+    private static final Logger logger = LoggerFactory.getLogger(MergedMessagePublisher.class);
+    static final int PREFETCH = 32;
+    private static final int REPLENISH = PREFETCH - PREFETCH / 4;
+
+    private final List<Session> sessions;
+
+    MergedMessagePublisher(Collection<Session> sessions) {
+        this.sessions = new ArrayList<>(sessions);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super SessionMessage> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        MergedSubscription subscription = new MergedSubscription(subscriber, sessions.size());
+        subscriber.onSubscribe(subscription);
+        for (Session session : sessions) {
+            session.getConnection().messages().subscribe(subscription.new Inner(session));
+        }
+        if (sessions.isEmpty()) {
+            subscription.drain();
+        }
+    }
+
+    private static final class Item {
+        final MergedSubscription.Inner inner;
+        final SessionMessage message;
+
+        Item(MergedSubscription.Inner inner, SessionMessage message) {
+            this.inner = inner;
+            this.message = message;
+        }
+    }
+
+    private static final class MergedSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super SessionMessage> downstream;
+        private final Queue<Item> queue = new ConcurrentLinkedQueue<>();
+        private final List<Flow.Subscription> upstreams = new ArrayList<>();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicInteger active;
+        private volatile Throwable error;
+        private volatile boolean cancelled;
+
+        MergedSubscription(Flow.Subscriber<? super SessionMessage> downstream, int sessions) {
+            this.downstream = downstream;
+            this.active = new AtomicInteger(sessions);
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Demand must be positive: " + n);
+                cancelUpstreams();
+            } else {
+                requested.accumulateAndGet(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            cancelUpstreams();
+            queue.clear();
+        }
+
+        private void cancelUpstreams() {
+            synchronized (upstreams) {
+                for (Flow.Subscription upstream : upstreams) {
+                    upstream.cancel();
+                }
+                upstreams.clear();
+            }
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                long demand = requested.get();
+                long emitted = 0;
+                while (emitted != demand && !cancelled && error == null) {
+                    Item item = queue.poll();
+                    if (item == null) {
+                        break;
+                    }
+                    downstream.onNext(item.message);
+                    item.inner.consumed();
+                    emitted++;
+                }
+                if (cancelled) {
+                    return;
+                }
+                if (error != null || (active.get() == 0 && queue.isEmpty())) {
+                    cancelled = true;
+                    queue.clear();
+                    if (error != null) {
+                        downstream.onError(error);
+                    } else {
+                        downstream.onComplete();
+                    }
+                    return;
+                }
+                if (emitted != 0 && demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * Subscriber to one session's messages
+         */
+        final class Inner implements Flow.Subscriber<ProtocolMessage> {
+            private final Session session;
+            private volatile Flow.Subscription upstream;
+            // Only touched by the draining thread
+            private int consumed;
+
+            Inner(Session session) {
+                this.session = session;
+            }
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                synchronized (upstreams) {
+                    if (cancelled || error != null) {
+                        subscription.cancel();
+                        return;
+                    }
+                    upstreams.add(subscription);
+                }
+                upstream = subscription;
+                subscription.request(PREFETCH);
+            }
+
+            @Override
+            public void onNext(ProtocolMessage message) {
+                queue.offer(new Item(this, new SessionMessage(session, message)));
+                drain();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                logger.debug("Session {} left the merged stream: {}", session.getId(), throwable.toString());
+                onComplete();
+            }
+
+            @Override
+            public void onComplete() {
+                active.decrementAndGet();
+                drain();
+            }
+
+            /**
+             * Ask for more once most of the prefetch has reached the subscriber
+             */
+            void consumed() {
+                if (++consumed >= REPLENISH) {
+                    upstream.request(consumed);
+                    consumed = 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.habbo.client.session;
+
+import com.habbo.client.auth.AuthenticationManager;
+import com.habbo.client.network.HabboConnection;
+
+/**
+ * One account's connection in a {@link SessionManager}. The connection owns the
+ * session's {@link AuthenticationManager}; a session adds only its ID.
+ */
+public final class Session {
+    private final String id;
+    private final HabboConnection connection;
+
+    Session(String id, HabboConnection connection) {
+        this.id = id;
+        this.connection = connection;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public HabboConnection getConnection() {
+        return connection;
+    }
+
+    public AuthenticationManager getAuthManager() {
+        return connection.getAuthManager();
+    }
+
+    public boolean isConnected() {
+        return connection.isConnected();
+    }
+
+    public boolean isAuthenticated() {
+        return connection.isAuthenticated();
+    }
+
+    @Override
+    public String toString() {
+        return "Session{" +
+                "id='" + id + '\'' +
+                ", server=" + connection.getHost() + ":" + connection.getPort() +
+                ", connected=" + isConnected() +
+                ", authenticated=" + isAuthenticated() +
+                '}';
+    }
+}
@@ -0,0 +1,182 @@
+package com.habbo.client.session;
+
+import com.habbo.client.auth.TokenCache;
+import com.habbo.client.auth.TokenRefreshScheduler;
+import com.habbo.client.network.HabboConnection;
+import com.habbo.client.util.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Predicate;
+
+/**
+ * Owns many sessions in one process, keyed by session ID. Bulk operations fan out on the
+ * session executor (virtual threads when enabled) with at most {@link #getMaxConcurrency()}
+ * running at once, and wait for all of them.
+ */
+public class SessionManager {
+    private static final Logger logger = LoggerFactory.getLogger(SessionManager.class);
+    public static final int DEFAULT_MAX_CONCURRENCY = Integer.getInteger("habbo.sessions.concurrency", 32);
+
+    private final ConcurrentMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Threads.newTaskExecutor("HabboSession");
+    private volatile int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+
+    /**
+     * Add a session for a new, not yet connected, connection. Its token is refreshed ahead of
+     * expiry by the shared {@link TokenRefreshScheduler} and kept in the default {@link TokenCache}.
+     *
+     * @throws IllegalArgumentException if the ID is taken
+     */
+    public Session create(String id, String host, int port) {
+        Session session = new Session(id, new HabboConnection(host, port));
+        if (sessions.putIfAbsent(id, session) != null) {
+            throw new IllegalArgumentException("Session already exists: " + id);
+        }
+        session.getAuthManager().setTokenCache(TokenCache.getDefault());
+        session.getAuthManager().setRefreshScheduler(TokenRefreshScheduler.shared());
+        return session;
+    }
+
+    public Session get(String id) {
+        return sessions.get(id);
+    }
+
+    /**
+     * All sessions, sorted by ID
+     */
+    public List<Session> getSessions() {
+        List<Session> all = new ArrayList<>(sessions.values());
+        all.sort((a, b) -> a.getId().compareTo(b.getId()));
+        return all;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Disconnect a session and forget it
+     *
+     * @return false if there was no such session
+     */
+    public boolean remove(String id) {
+        Session session = sessions.remove(id);
+        if (session == null) {
+            return false;
+        }
+        if (session.isConnected()) {
+            session.getConnection().disconnect();
+        }
+        return true;
+    }
+
+    /**
+     * Messages of the given sessions merged into one stream, each tagged with its session.
+     * Sessions added later are not included. A subscriber that stops requesting stops every
+     * session's socket reads once a small per-session prefetch is used up.
+     */
+    public Flow.Publisher<SessionMessage> messages(Collection<Session> targets) {
+        return new MergedMessagePublisher(targets);
+    }
+
+    public Map<String, Boolean> connectAll(Collection<Session> targets) {
+        return forEach(targets, session -> session.isConnected() || session.getConnection().connect());
+    }
+
+    public Map<String, Boolean> loginAll(Collection<Session> targets, String password) {
+        return forEach(targets, session -> session.getConnection().authenticate(session.getId(), password));
+    }
+
+    public Map<String, Boolean> logoutAll(Collection<Session> targets) {
+        return forEach(targets, session -> !session.isAuthenticated() || session.getConnection().logout());
+    }
+
+    public Map<String, Boolean> disconnectAll(Collection<Session> targets) {
+        return disconnectAll(targets, true);
+    }
+
+    private Map<String, Boolean> disconnectAll(Collection<Session> targets, boolean forgetCachedTokens) {
+        return forEach(targets, session -> {
+            if (session.isConnected()) {
+                session.getConnection().disconnect(forgetCachedTokens);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Run {@code action} for every target, at most {@link #getMaxConcurrency()} at a time.
+     * An action that throws, or that the executor rejects, counts as failed. If the caller is interrupted, results so far are returned.
+     *
+     * @return success per session ID, sorted by ID
+     */
+    public Map<String, Boolean> forEach(Collection<Session> targets, Predicate<Session> action) {
+        Map<String, Boolean> results = new ConcurrentHashMap<>();
+        Semaphore permits = new Semaphore(maxConcurrency);
+        CountDownLatch done = new CountDownLatch(targets.size());
+        try {
+            for (Session session : targets) {
+                permits.acquire();
+                try {
+                    executor.execute(() -> {
+                        try {
+                            results.put(session.getId(), action.test(session));
+                        } catch (RuntimeException e) {
+                            logger.error("Session {} failed", session.getId(), e);
+                            results.put(session.getId(), false);
+                        } finally {
+                            permits.release();
+                            done.countDown();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // E.g. after shutdown(); the task never runs, so settle it here
+                    logger.error("Session {} not run: executor rejected it", session.getId());
+                    results.put(session.getId(), false);
+                    permits.release();
+                    done.countDown();
+                }
+            }
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return new TreeMap<>(results);
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Limit how many sessions a bulk operation works on at once
+     */
+    public void setMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Disconnect every session and stop the session executor. Cached tokens are kept for the next start.
+     */
+    public void shutdown() {
+        disconnectAll(getSessions(), false);
+        sessions.clear();
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,29 @@
+package com.habbo.client.session;
+
+import com.habbo.client.protocol.ProtocolMessage;
+
+/**
+ * A message received by one of a {@link SessionManager}'s sessions
+ */
+public final class SessionMessage {
+    private final Session session;
+    private final ProtocolMessage message;
+
+    SessionMessage(Session session, ProtocolMessage message) {
+        this.session = session;
+        this.message = message;
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    public ProtocolMessage getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return session.getId() + ": " + message;
+    }
+}
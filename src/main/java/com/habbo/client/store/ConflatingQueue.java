@@ -0,0 +1,200 @@
+package com.habbo.client.store;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BinaryOperator;
+
+/**
+ * FIFO queue of pending updates keyed by an {@code int} ID (a room or user), holding at most
+ * one value per key.
+ * <p>
+ * Offering a key that is already queued replaces its value but keeps its place, so if 50
+ * updates to one room arrive before the consumer runs, it sees the room once, with the latest
+ * value. Keys are delivered in the order they were first queued.
+ * <p>
+ * Replacing loses the values in between, so queue state rather than changes: offer the
+ * {@link com.habbo.client.models.Room} that {@link RoomStore#apply} returns, not the
+ * {@link RoomDelta} applied, or occupancy changes would go missing. To queue changes
+ * themselves, pass a merge function to {@link #offer(int, Object, BinaryOperator)} that folds
+ * them into one.
+ */
+public final class ConflatingQueue<V> {
+
+    /**
+     * Receives drained updates
+     */
+    public interface Consumer<V> {
+        void accept(int key, V value);
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    // Ring positions of queued keys; guarded by lock
+    private final IntIntMap positions;
+    private int[] keys;
+    private Object[] values;
+    private int head;
+    private int size;
+    private long offered;
+    private long conflated;
+
+    public ConflatingQueue() {
+        this(64);
+    }
+
+    public ConflatingQueue(int expectedKeys) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedKeys) - 1) << 1;
+        this.positions = new IntIntMap(capacity);
+        this.keys = new int[capacity];
+        this.values = new Object[capacity];
+    }
+
+    /**
+     * Queue {@code value} for {@code key}, replacing any value still pending for it
+     *
+     * @return true if the key was newly queued, false if an earlier value was replaced
+     */
+    public boolean offer(int key, V value) {
+        return offer(key, value, null);
+    }
+
+    /**
+     * Queue {@code value} for {@code key}, or if a value is still pending for it, replace that
+     * with {@code merge(pending, value)}; a null merge keeps the latest value
+     *
+     * @return true if the key was newly queued, false if it was merged into a pending value
+     */
+    public boolean offer(int key, V value, BinaryOperator<V> merge) {
+        Objects.requireNonNull(value, "value");
+        lock.lock();
+        try {
+            offered++;
+            int position = positions.get(key);
+            if (position != IntIntMap.MISSING) {
+                @SuppressWarnings("unchecked")
+                V pending = (V) values[position];
+                values[position] = merge != null
+                        ? Objects.requireNonNull(merge.apply(pending, value), "merged value") : value;
+                conflated++;
+                return false;
+            }
+            if (size == keys.length) {
+                grow();
+            }
+            position = (head + size) & (keys.length - 1);
+            keys[position] = key;
+            values[position] = value;
+            positions.put(key, position);
+            size++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hand up to {@code max} queued updates to {@code consumer}, oldest key first. The consumer
+     * runs without the lock held, so it may offer more updates.
+     *
+     * @return how many updates were delivered
+     */
+    @SuppressWarnings("unchecked")
+    public int drain(int max, Consumer<? super V> consumer) {
+        int[] drainedKeys;
+        Object[] drainedValues;
+        lock.lock();
+        try {
+            int count = Math.min(max, size);
+            drainedKeys = new int[count];
+            drainedValues = new Object[count];
+            for (int i = 0; i < count; i++) {
+                drainedKeys[i] = keys[head];
+                drainedValues[i] = values[head];
+                values[head] = null;
+                positions.remove(keys[head]);
+                head = (head + 1) & (keys.length - 1);
+            }
+            size -= count;
+        } finally {
+            lock.unlock();
+        }
+        for (int i = 0; i < drainedKeys.length; i++) {
+            consumer.accept(drainedKeys[i], (V) drainedValues[i]);
+        }
+        return drainedKeys.length;
+    }
+
+    /**
+     * Wait until an update is queued
+     *
+     * @return false if {@code timeout} elapsed with the queue still empty
+     */
+    public boolean await(Duration timeout) throws InterruptedException {
+        long nanos = timeout.toNanos();
+        lock.lock();
+        try {
+            while (size == 0) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of keys waiting
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Updates offered since creation
+     */
+    public long getOfferedCount() {
+        lock.lock();
+        try {
+            return offered;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Updates that replaced, or were merged into, a pending value instead of being queued
+     */
+    public long getConflatedCount() {
+        lock.lock();
+        try {
+            return conflated;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void grow() {
+        int[] grownKeys = new int[keys.length * 2];
+        Object[] grownValues = new Object[keys.length * 2];
+        for (int i = 0; i < size; i++) {
+            int position = (head + i) & (keys.length - 1);
+            grownKeys[i] = keys[position];
+            grownValues[i] = values[position];
+            positions.put(keys[position], i);
+        }
+        keys = grownKeys;
+        values = grownValues;
+        head = 0;
+    }
+}
@@ -0,0 +1,98 @@
+package com.habbo.client.store;
+
+/**
+ * Approximate access counts for TinyLFU admission: a count-min sketch of 4-bit counters,
+ * sixteen to a {@code long}, each key counted at four places. Once the sketch has recorded
+ * ten times its capacity every counter is halved, so counts follow what is popular now
+ * rather than what was popular an hour ago. Counts never exceed 15. Not thread-safe.
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777_7777_7777_7777L;
+
+    private long[] table;
+    private int tableMask;
+    private int sampleSize;
+    private int additions;
+
+    FrequencySketch(int expectedEntries) {
+        ensureCapacity(expectedEntries);
+    }
+
+    /**
+     * Grow to suit {@code expectedEntries}; growing forgets all counts
+     */
+    void ensureCapacity(int expectedEntries) {
+        int capacity = Integer.highestOneBit(Math.max(16, Math.min(expectedEntries, 1 << 26)) - 1) << 1;
+        if (table != null && table.length >= capacity) {
+            return;
+        }
+        table = new long[capacity];
+        tableMask = capacity - 1;
+        sampleSize = 10 * capacity;
+        additions = 0;
+    }
+
+    int capacity() {
+        return table.length;
+    }
+
+    /**
+     * Estimated accesses of {@code key}, 0 to 15
+     */
+    int frequency(int key) {
+        int hash = spread(key);
+        // Which group of four counters within each long this key uses
+        int start = (hash & 3) << 2;
+        int frequency = 15;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xF);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    void increment(int key) {
+        int hash = spread(key);
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++additions >= sampleSize) {
+            halve();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xFL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private void halve() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return (int) h & tableMask;
+    }
+
+    private static int spread(int key) {
+        int h = key * 0x9E3779B9;
+        h ^= h >>> 17;
+        h *= 0xed5ad4bb;
+        return h ^ (h >>> 11);
+    }
+}
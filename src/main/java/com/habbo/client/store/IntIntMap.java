@@ -0,0 +1,166 @@
+package com.habbo.client.store;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from {@code int} keys to non-negative {@code int} values, with
+ * linear probing and backward-shift deletion, so there are no boxed keys, entry objects or
+ * tombstones. Not thread-safe; a lookup racing a writer may return a wrong value but always
+ * terminates, so callers can probe under an optimistic read and validate afterwards.
+ */
+final class IntIntMap {
+    static final int MISSING = -1;
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    IntIntMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * @return the value for {@code key}, or {@link #MISSING}
+     */
+    int get(int key) {
+        int[] keys = this.keys;
+        int[] values = this.values;
+        // The two arrays can be from different tables while a writer rehashes
+        int mask = Math.min(keys.length, values.length) - 1;
+        int index = mix(key) & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            int value = values[index];
+            if (value == MISSING) {
+                return MISSING;
+            }
+            if (keys[index] == key) {
+                return value;
+            }
+            index = (index + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    /**
+     * @param value must not be negative
+     * @return the previous value, or {@link #MISSING}
+     */
+    int put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value " + value);
+        }
+        int index = mix(key) & mask;
+        while (values[index] != MISSING) {
+            if (keys[index] == key) {
+                int previous = values[index];
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size > resizeAt) {
+            rehash(keys.length * 2);
+        }
+        return MISSING;
+    }
+
+    /**
+     * @return the removed value, or {@link #MISSING}
+     */
+    int remove(int key) {
+        int index = mix(key) & mask;
+        while (values[index] != MISSING) {
+            if (keys[index] == key) {
+                int removed = values[index];
+                shiftBack(index);
+                size--;
+                return removed;
+            }
+            index = (index + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Call {@code action} for every entry, in table order
+     */
+    void forEach(IntIntConsumer action) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != MISSING) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Refill the hole at {@code hole} with later entries of its probe run
+     */
+    private void shiftBack(int hole) {
+        int index = hole;
+        while (true) {
+            index = (index + 1) & mask;
+            if (values[index] == MISSING) {
+                break;
+            }
+            int home = mix(keys[index]) & mask;
+            // Move the entry back unless its home lies cyclically in (hole, index]
+            if (((index - home) & mask) >= ((index - hole) & mask)) {
+                keys[hole] = keys[index];
+                values[hole] = values[index];
+                hole = index;
+            }
+        }
+        values[hole] = MISSING;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != MISSING) {
+                int index = mix(oldKeys[i]) & mask;
+                while (values[index] != MISSING) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, MISSING);
+        mask = capacity - 1;
+        resizeAt = capacity / 4 * 3;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int needed = (int) Math.min(1 << 30, Math.max(MIN_CAPACITY, (long) expectedSize * 4 / 3 + 1));
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    /**
+     * Spread the bits of sequential IDs; the low bits pick the bucket
+     */
+    static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @FunctionalInterface
+    interface IntIntConsumer {
+        void accept(int key, int value);
+    }
+}
@@ -0,0 +1,119 @@
+package com.habbo.client.store;
+
+import com.habbo.client.models.Room;
+
+/**
+ * One incremental change to a room, applied to the stored room by {@link RoomStore#apply}
+ * instead of replacing the whole room.
+ */
+public final class RoomDelta {
+
+    public enum Kind {
+        /** {@code value} users came in (negative: left) */
+        OCCUPANCY,
+        MAX_USERS,
+        NAME,
+        DESCRIPTION,
+        OWNER,
+        /** {@code value} is 1 for public, 0 for private */
+        VISIBILITY
+    }
+
+    private final int roomId;
+    private final Kind kind;
+    private final int value;
+    private final String text;
+
+    private RoomDelta(int roomId, Kind kind, int value, String text) {
+        this.roomId = roomId;
+        this.kind = kind;
+        this.value = value;
+        this.text = text;
+    }
+
+    public static RoomDelta userEntered(int roomId) {
+        return new RoomDelta(roomId, Kind.OCCUPANCY, 1, null);
+    }
+
+    public static RoomDelta userLeft(int roomId) {
+        return new RoomDelta(roomId, Kind.OCCUPANCY, -1, null);
+    }
+
+    public static RoomDelta occupancy(int roomId, int change) {
+        return new RoomDelta(roomId, Kind.OCCUPANCY, change, null);
+    }
+
+    public static RoomDelta maxUsers(int roomId, int maxUsers) {
+        return new RoomDelta(roomId, Kind.MAX_USERS, maxUsers, null);
+    }
+
+    public static RoomDelta name(int roomId, String name) {
+        return new RoomDelta(roomId, Kind.NAME, 0, name);
+    }
+
+    public static RoomDelta description(int roomId, String description) {
+        return new RoomDelta(roomId, Kind.DESCRIPTION, 0, description);
+    }
+
+    public static RoomDelta owner(int roomId, String owner) {
+        return new RoomDelta(roomId, Kind.OWNER, 0, owner);
+    }
+
+    public static RoomDelta visibility(int roomId, boolean isPublic) {
+        return new RoomDelta(roomId, Kind.VISIBILITY, isPublic ? 1 : 0, null);
+    }
+
+    public int getRoomId() {
+        return roomId;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Apply to {@code room} in place; occupancy never drops below zero
+     */
+    void applyTo(Room room) {
+        switch (kind) {
+            case OCCUPANCY:
+                room.setCurrentUsers(Math.max(0, room.getCurrentUsers() + value));
+                break;
+            case MAX_USERS:
+                room.setMaxUsers(value);
+                break;
+            case NAME:
+                room.setRoomName(text);
+                break;
+            case DESCRIPTION:
+                room.setRoomDescription(text);
+                break;
+            case OWNER:
+                room.setOwner(text);
+                break;
+            case VISIBILITY:
+                room.setPublic(value != 0);
+                break;
+            default:
+                throw new IllegalStateException("Unknown delta " + kind);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RoomDelta{" +
+                "roomId=" + roomId +
+                ", kind=" + kind +
+                (kind == Kind.NAME || kind == Kind.DESCRIPTION || kind == Kind.OWNER
+                        ? ", text='" + text + '\'' : ", value=" + value) +
+                '}';
+    }
+}
@@ -0,0 +1,497 @@
+package com.habbo.client.store;
+
+import com.habbo.client.models.Room;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Rooms keyed by {@code int} room ID, for tracking very many rooms at once.
+ * <p>
+ * Rooms hash into segments, each an {@link IntIntMap} from room ID to a slot plus the slots
+ * themselves, guarded by its own {@link StampedLock}. Reads are optimistic: they take no lock
+ * and retry under the read lock only if a writer touched that segment meanwhile. Writers to
+ * different segments never contend. The store keeps its own copies; {@link #get} returns a
+ * fresh {@link Room} that the caller may change without affecting the store.
+ * <p>
+ * With {@link Layout#OFF_HEAP} each room is a fixed-width record in a direct buffer and its
+ * strings are interned IDs, so a million rooms are a few dozen megabytes outside the heap and
+ * no objects for the collector to trace beyond one string per distinct name, description or
+ * owner still in use. Strings are reference counted, so removed and renamed rooms give theirs back.
+ */
+public final class RoomStore {
+    private static final int SEGMENT_BITS = 4;
+
+    /**
+     * Where room fields live
+     */
+    public enum Layout {
+        /** A copy of each {@link Room} on the heap */
+        HEAP,
+        /** Fixed-width records in direct memory, strings interned */
+        OFF_HEAP
+    }
+
+    private final Layout layout;
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+    private final StringPool strings;
+
+    public RoomStore() {
+        this(Layout.HEAP, 1024);
+    }
+
+    /**
+     * @param expectedRooms rooms to size for up front; the store grows past it as needed
+     */
+    public RoomStore(Layout layout, int expectedRooms) {
+        this.layout = layout;
+        this.strings = layout == Layout.OFF_HEAP ? new StringPool() : null;
+        int perSegment = Math.max(16, expectedRooms / segments.length + 1);
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(layout == Layout.OFF_HEAP ? new OffHeapSlots(perSegment, strings)
+                    : new HeapSlots(perSegment), perSegment);
+        }
+    }
+
+    private Segment segmentFor(int roomId) {
+        // High bits pick the segment; the segment's map buckets by the low bits
+        return segments[IntIntMap.mix(roomId) >>> (32 - SEGMENT_BITS)];
+    }
+
+    /**
+     * Add or replace the room with {@code room}'s ID
+     */
+    public void put(Room room) {
+        segmentFor(room.getRoomId()).put(room);
+    }
+
+    /**
+     * Copy of the stored room, or null
+     */
+    public Room get(int roomId) {
+        return segmentFor(roomId).get(roomId);
+    }
+
+    public boolean contains(int roomId) {
+        return segmentFor(roomId).contains(roomId);
+    }
+
+    /**
+     * @return false if the room was not stored
+     */
+    public boolean remove(int roomId) {
+        return segmentFor(roomId).remove(roomId);
+    }
+
+    /**
+     * Update only the user count, the field that changes most, without rewriting the room
+     *
+     * @return false if the room is not stored
+     */
+    public boolean setCurrentUsers(int roomId, int currentUsers) {
+        return segmentFor(roomId).setCurrentUsers(roomId, currentUsers);
+    }
+
+    /**
+     * Add {@code change} users (negative when they leave), never going below zero
+     *
+     * @return the new user count, or -1 if the room is not stored
+     */
+    public int addCurrentUsers(int roomId, int change) {
+        return segmentFor(roomId).addCurrentUsers(roomId, change);
+    }
+
+    /**
+     * Apply one change to the stored room in place
+     *
+     * @return a copy of the room after the change, or null if it is not stored
+     */
+    public Room apply(RoomDelta delta) {
+        if (delta.getKind() == RoomDelta.Kind.OCCUPANCY) {
+            // Only the count changes, so skip rewriting the rest of the room
+            return addCurrentUsers(delta.getRoomId(), delta.getValue()) < 0 ? null : get(delta.getRoomId());
+        }
+        return segmentFor(delta.getRoomId()).update(delta);
+    }
+
+    /**
+     * @return the room's user count, or -1 if it is not stored
+     */
+    public int getCurrentUsers(int roomId) {
+        return segmentFor(roomId).getCurrentUsers(roomId);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Call {@code action} with a copy of every room, one segment at a time
+     */
+    public void forEach(Consumer<Room> action) {
+        for (Segment segment : segments) {
+            for (Room room : segment.snapshot()) {
+                action.accept(room);
+            }
+        }
+    }
+
+    public Layout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Distinct strings the off-heap layout holds for the rooms now stored; 0 on the heap
+     */
+    public int getInternedStrings() {
+        return strings != null ? strings.size() : 0;
+    }
+
+    /**
+     * Rooms whose IDs share the segment's hash prefix
+     */
+    private static final class Segment {
+        private final StampedLock lock = new StampedLock();
+        private final IntIntMap index;
+        private final Slots slots;
+        // Freed slots, reused before the slot array grows
+        private int[] free = new int[16];
+        private int freeCount;
+        private int nextSlot;
+
+        Segment(Slots slots, int expected) {
+            this.slots = slots;
+            this.index = new IntIntMap(expected);
+        }
+
+        void put(Room room) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = index.get(room.getRoomId());
+                if (slot == IntIntMap.MISSING) {
+                    slot = freeCount > 0 ? free[--freeCount] : nextSlot++;
+                    slots.ensureCapacity(slot + 1);
+                    index.put(room.getRoomId(), slot);
+                }
+                slots.write(slot, room);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        Room get(int roomId) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    int slot = index.get(roomId);
+                    Room room = slot == IntIntMap.MISSING ? null : slots.read(slot);
+                    if (lock.validate(stamp)) {
+                        return room;
+                    }
+                } catch (RuntimeException torn) {
+                    // Read while a writer resized; retry under the lock
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                int slot = index.get(roomId);
+                return slot == IntIntMap.MISSING ? null : slots.read(slot);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        boolean contains(int roomId) {
+            return readInt(roomId, slot -> 1, 0) == 1;
+        }
+
+        int getCurrentUsers(int roomId) {
+            return readInt(roomId, slots::currentUsers, -1);
+        }
+
+        /**
+         * {@code field} of the room's slot, or {@code missing}; the same optimistic read as {@link #get}
+         */
+        private int readInt(int roomId, IntUnaryOperator field, int missing) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    int slot = index.get(roomId);
+                    int value = slot == IntIntMap.MISSING ? missing : field.applyAsInt(slot);
+                    if (lock.validate(stamp)) {
+                        return value;
+                    }
+                } catch (RuntimeException torn) {
+                    // Read while a writer resized; retry under the lock
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                int slot = index.get(roomId);
+                return slot == IntIntMap.MISSING ? missing : field.applyAsInt(slot);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        boolean setCurrentUsers(int roomId, int currentUsers) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = index.get(roomId);
+                if (slot == IntIntMap.MISSING) {
+                    return false;
+                }
+                slots.setCurrentUsers(slot, currentUsers);
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        int addCurrentUsers(int roomId, int change) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = index.get(roomId);
+                if (slot == IntIntMap.MISSING) {
+                    return -1;
+                }
+                int users = Math.max(0, slots.currentUsers(slot) + change);
+                slots.setCurrentUsers(slot, users);
+                return users;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        Room update(RoomDelta delta) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = index.get(delta.getRoomId());
+                if (slot == IntIntMap.MISSING) {
+                    return null;
+                }
+                // Read gives a private copy, and write copies it again
+                Room room = slots.read(slot);
+                delta.applyTo(room);
+                slots.write(slot, room);
+                return room;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        boolean remove(int roomId) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = index.remove(roomId);
+                if (slot == IntIntMap.MISSING) {
+                    return false;
+                }
+                slots.clear(slot);
+                if (freeCount == free.length) {
+                    free = Arrays.copyOf(free, free.length * 2);
+                }
+                free[freeCount++] = slot;
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        int size() {
+            long stamp = lock.readLock();
+            try {
+                return index.size();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        Room[] snapshot() {
+            long stamp = lock.readLock();
+            try {
+                Room[] rooms = new Room[index.size()];
+                int[] next = {0};
+                index.forEach((roomId, slot) -> rooms[next[0]++] = slots.read(slot));
+                return rooms;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    /**
+     * Storage for one segment's rooms by slot number; callers hold the segment lock,
+     * except that reads may also run optimistically and must then tolerate torn state
+     */
+    private interface Slots {
+        void ensureCapacity(int slots);
+
+        void write(int slot, Room room);
+
+        Room read(int slot);
+
+        int currentUsers(int slot);
+
+        void setCurrentUsers(int slot, int currentUsers);
+
+        void clear(int slot);
+    }
+
+    private static final class HeapSlots implements Slots {
+        private Room[] rooms;
+
+        HeapSlots(int capacity) {
+            rooms = new Room[capacity];
+        }
+
+        @Override
+        public void ensureCapacity(int slots) {
+            if (slots > rooms.length) {
+                rooms = Arrays.copyOf(rooms, Math.max(slots, rooms.length * 2));
+            }
+        }
+
+        @Override
+        public void write(int slot, Room room) {
+            rooms[slot] = copy(room, room.getCurrentUsers());
+        }
+
+        @Override
+        public Room read(int slot) {
+            Room room = rooms[slot];
+            return room == null ? null : copy(room, room.getCurrentUsers());
+        }
+
+        @Override
+        public int currentUsers(int slot) {
+            return rooms[slot].getCurrentUsers();
+        }
+
+        @Override
+        public void setCurrentUsers(int slot, int currentUsers) {
+            // Replace rather than mutate, so an optimistic reader copies a consistent room
+            rooms[slot] = copy(rooms[slot], currentUsers);
+        }
+
+        @Override
+        public void clear(int slot) {
+            rooms[slot] = null;
+        }
+
+        private static Room copy(Room room, int currentUsers) {
+            Room copy = new Room(room.getRoomId(), room.getRoomName());
+            copy.setRoomDescription(room.getRoomDescription());
+            copy.setMaxUsers(room.getMaxUsers());
+            copy.setCurrentUsers(currentUsers);
+            copy.setOwner(room.getOwner());
+            copy.setPublic(room.isPublic());
+            return copy;
+        }
+    }
+
+    /**
+     * {@code [roomId][maxUsers][currentUsers][name][description][owner][flags]}: three int
+     * fields, three interned string IDs and a flags byte, padded to {@value #RECORD_SIZE} bytes
+     * per record, in one direct buffer per segment.
+     * A record holds a reference to each of its strings until it is overwritten or cleared.
+     */
+    private static final class OffHeapSlots implements Slots {
+        private static final int ROOM_ID = 0;
+        private static final int MAX_USERS = 4;
+        private static final int CURRENT_USERS = 8;
+        private static final int NAME = 12;
+        private static final int DESCRIPTION = 16;
+        private static final int OWNER = 20;
+        private static final int FLAGS = 24;
+        private static final int RECORD_SIZE = 28;
+        private static final byte PUBLIC = 1;
+        // Set while the record holds references to pooled strings
+        private static final byte LIVE = 2;
+
+        private final StringPool strings;
+        private ByteBuffer records;
+
+        OffHeapSlots(int capacity, StringPool strings) {
+            this.strings = strings;
+            this.records = ByteBuffer.allocateDirect(capacity * RECORD_SIZE);
+        }
+
+        @Override
+        public void ensureCapacity(int slots) {
+            int needed = slots * RECORD_SIZE;
+            if (needed > records.capacity()) {
+                ByteBuffer grown = ByteBuffer.allocateDirect(Math.max(needed, records.capacity() * 2));
+                grown.put(records.duplicate().clear());
+                // The old buffer is freed once unreachable; optimistic readers may still hold it
+                records = grown.clear();
+            }
+        }
+
+        @Override
+        public void write(int slot, Room room) {
+            int base = slot * RECORD_SIZE;
+            // Intern the new strings before releasing the old ones, so an unchanged string keeps its ID
+            int name = strings.intern(room.getRoomName());
+            int description = strings.intern(room.getRoomDescription());
+            int owner = strings.intern(room.getOwner());
+            releaseStrings(base);
+            records.putInt(base + ROOM_ID, room.getRoomId());
+            records.putInt(base + MAX_USERS, room.getMaxUsers());
+            records.putInt(base + CURRENT_USERS, room.getCurrentUsers());
+            records.putInt(base + NAME, name);
+            records.putInt(base + DESCRIPTION, description);
+            records.putInt(base + OWNER, owner);
+            records.put(base + FLAGS, (byte) (LIVE | (room.isPublic() ? PUBLIC : 0)));
+        }
+
+        @Override
+        public Room read(int slot) {
+            ByteBuffer records = this.records;
+            int base = slot * RECORD_SIZE;
+            Room room = new Room(records.getInt(base + ROOM_ID), strings.get(records.getInt(base + NAME)));
+            room.setRoomDescription(strings.get(records.getInt(base + DESCRIPTION)));
+            room.setMaxUsers(records.getInt(base + MAX_USERS));
+            room.setCurrentUsers(records.getInt(base + CURRENT_USERS));
+            room.setOwner(strings.get(records.getInt(base + OWNER)));
+            room.setPublic((records.get(base + FLAGS) & PUBLIC) != 0);
+            return room;
+        }
+
+        @Override
+        public int currentUsers(int slot) {
+            return records.getInt(slot * RECORD_SIZE + CURRENT_USERS);
+        }
+
+        @Override
+        public void setCurrentUsers(int slot, int currentUsers) {
+            records.putInt(slot * RECORD_SIZE + CURRENT_USERS, currentUsers);
+        }
+
+        @Override
+        public void clear(int slot) {
+            int base = slot * RECORD_SIZE;
+            releaseStrings(base);
+            records.put(base + FLAGS, (byte) 0);
+        }
+
+        /**
+         * Give back the record's string references; the caller holds the segment's write lock,
+         * so an optimistic reader that sees a freed or reused ID fails validation and retries
+         */
+        private void releaseStrings(int base) {
+            if ((records.get(base + FLAGS) & LIVE) != 0) {
+                strings.release(records.getInt(base + NAME));
+                strings.release(records.getInt(base + DESCRIPTION));
+                strings.release(records.getInt(base + OWNER));
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.habbo.client.store;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Interns strings as small {@code int} IDs so fixed-width records can refer to them.
+ * Each distinct string is stored once and counted once per {@link #intern}; {@link #release}
+ * drops a reference, and a string nobody refers to is removed and its ID reused. The pool
+ * therefore holds only the distinct values still in use (owners and room names repeat far
+ * more than they vary), however many rooms come and go.
+ */
+final class StringPool {
+    static final int NULL_ID = -1;
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // Guards ID allocation: the array growth, the free list and the count
+    private final ReentrantLock idLock = new ReentrantLock();
+    private volatile String[] strings = new String[256];
+    private int[] freeIds = new int[16];
+    private int freeCount;
+    private int count;
+
+    /**
+     * ID of {@code value}, adding it if new, plus one reference to it; {@link #NULL_ID} for null
+     */
+    int intern(String value) {
+        if (value == null) {
+            return NULL_ID;
+        }
+        // compute runs atomically per key, so a release cannot free the entry under us
+        return entries.compute(value, (key, entry) -> {
+            if (entry == null) {
+                return new Entry(allocate(key));
+            }
+            entry.references++;
+            return entry;
+        }).id;
+    }
+
+    /**
+     * Drop one reference taken by {@link #intern}; the last one frees the string and its ID
+     */
+    void release(int id) {
+        String value = get(id);
+        if (value == null) {
+            return;
+        }
+        entries.computeIfPresent(value, (key, entry) -> {
+            if (--entry.references > 0) {
+                return entry;
+            }
+            free(entry.id);
+            return null;
+        });
+    }
+
+    /**
+     * String for an ID from {@link #intern}; null for {@link #NULL_ID} or an ID from a torn read
+     */
+    String get(int id) {
+        String[] current = strings;
+        return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    /**
+     * Distinct strings in use
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * One past the highest ID handed out so far; IDs below it that were freed resolve to null
+     */
+    int idLimit() {
+        idLock.lock();
+        try {
+            return count;
+        } finally {
+            idLock.unlock();
+        }
+    }
+
+    private int allocate(String value) {
+        idLock.lock();
+        try {
+            String[] current = strings;
+            int id;
+            if (freeCount > 0) {
+                id = freeIds[--freeCount];
+            } else {
+                id = count++;
+                if (id == current.length) {
+                    current = Arrays.copyOf(current, current.length * 2);
+                }
+            }
+            current[id] = value;
+            // Publish the array before the ID, so any holder of the ID can resolve it
+            strings = current;
+            return id;
+        } finally {
+            idLock.unlock();
+        }
+    }
+
+    private void free(int id) {
+        idLock.lock();
+        try {
+            strings[id] = null;
+            if (freeCount == freeIds.length) {
+                freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+            }
+            freeIds[freeCount++] = id;
+        } finally {
+            idLock.unlock();
+        }
+    }
+
+    private static final class Entry {
+        final int id;
+        // Changed only inside the map's compute, which is atomic per key
+        int references = 1;
+
+        Entry(int id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,583 @@
+package com.habbo.client.store;
+
+import com.habbo.client.metrics.ClientMetrics;
+import com.habbo.client.models.User;
+import com.habbo.client.util.CoarseClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bounded cache of decoded {@link User} profiles by user ID, so a profile seen in many rooms
+ * is decoded once.
+ * <p>
+ * Eviction is W-TinyLFU: new users enter a small LRU window (1% of the bound); users leaving
+ * the window are admitted to the main segmented LRU only if a {@link FrequencySketch} says they
+ * are used more often than the main area's next victim. A burst of one-off profiles, such as
+ * a crowded public room, therefore passes through the window without flushing the regulars,
+ * where plain LRU would lose them.
+ * <p>
+ * Reads take no lock: the ID index is probed under an optimistic stamp, and the access is
+ * noted in a lossy ring that the next writer, or a reader that wins a try-lock, applies to the
+ * policy. With {@link #setRefresh} a read of a stale entry returns it at once and reloads it in
+ * the background. Cached users are shared and must be treated as read-only.
+ */
+public final class UserCache {
+    private static final Logger logger = LoggerFactory.getLogger(UserCache.class);
+    private static final int READ_BUFFER_SIZE = 128;
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    private static final int REMOVED = -1;
+
+    private final long maximumWeight;
+    private final ToIntFunction<User> weigher;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+
+    // Writers hold the eviction lock and then this one to change the index; readers only validate
+    private final StampedLock indexLock = new StampedLock();
+    private final IntIntMap index = new IntIntMap(64);
+    private Node[] nodes = new Node[64];
+    private int[] free = new int[16];
+    private int freeCount;
+    private int nextSlot;
+
+    // Policy state, guarded by the eviction lock
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final FrequencySketch sketch;
+    private final AccessOrder window = new AccessOrder();
+    private final AccessOrder probation = new AccessOrder();
+    private final AccessOrder protectedArea = new AccessOrder();
+    private long windowWeight;
+    private long protectedWeight;
+    private long totalWeight;
+
+    private final AtomicReferenceArray<Node> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong reads = new AtomicLong();
+
+    private volatile long refreshAfterMillis;
+    private volatile IntFunction<CompletableFuture<User>> refresher;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+
+    /**
+     * Hold at most {@code maximumEntries} users
+     */
+    public UserCache(int maximumEntries) {
+        this(maximumEntries, user -> 1);
+    }
+
+    /**
+     * Hold users while their total weight is at most {@code maximumWeight}, e.g.
+     * {@code new UserCache(8 << 20, UserCache::estimateBytes)} for about 8 MB
+     */
+    public UserCache(long maximumWeight, ToIntFunction<User> weigher) {
+        if (maximumWeight < 1) {
+            throw new IllegalArgumentException("maximumWeight must be at least 1");
+        }
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        this.windowMaximum = Math.max(1, maximumWeight / 100);
+        this.protectedMaximum = (maximumWeight - windowMaximum) * 8 / 10;
+        this.sketch = new FrequencySketch((int) Math.min(maximumWeight, 1024));
+    }
+
+    /**
+     * Rough retained size of a user and its strings, for a memory bound
+     */
+    public static int estimateBytes(User user) {
+        return 40 + stringBytes(user.getUsername()) + stringBytes(user.getMotto());
+    }
+
+    private static int stringBytes(String value) {
+        // String and its compact (Latin-1) array headers plus one byte per character
+        return value == null ? 0 : 40 + value.length();
+    }
+
+    /**
+     * Reload entries older than {@code refreshAfter} in the background when next read.
+     * {@code refresher} returns the fresh profile, or completes with null to keep the old one.
+     */
+    public void setRefresh(Duration refreshAfter, IntFunction<CompletableFuture<User>> refresher) {
+        this.refresher = refresher;
+        this.refreshAfterMillis = refreshAfter.toMillis();
+    }
+
+    /**
+     * Cached user, or null
+     */
+    public User get(int userId) {
+        Node node = find(userId);
+        User user = node != null ? node.value : null;
+        if (user == null) {
+            misses.increment();
+            ClientMetrics.global().userCacheLookup(false);
+            return null;
+        }
+        hits.increment();
+        ClientMetrics.global().userCacheLookup(true);
+        recordRead(node);
+        refreshIfStale(node);
+        return user;
+    }
+
+    /**
+     * Cached user, or the one {@code loader} builds (for example by decoding), which is then cached.
+     * Concurrent misses for one ID may each load; the last one stays.
+     */
+    public User get(int userId, IntFunction<User> loader) {
+        User user = get(userId);
+        if (user == null) {
+            user = loader.apply(userId);
+            if (user != null) {
+                put(user);
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Add or replace the user with {@code user}'s ID, evicting others if over the bound
+     */
+    public void put(User user) {
+        Objects.requireNonNull(user, "user");
+        int weight = weigh(user);
+        evictionLock.lock();
+        try {
+            drainReads();
+            sketch.increment(user.getUserId());
+            Node node = nodeAt(index.get(user.getUserId()));
+            if (node != null) {
+                update(node, user, weight);
+                onAccess(node);
+            } else {
+                node = new Node(user.getUserId(), user, weight);
+                link(node);
+                node.queue = WINDOW;
+                window.add(node);
+                windowWeight += weight;
+                totalWeight += weight;
+                if (index.size() > sketch.capacity()) {
+                    sketch.ensureCapacity(index.size() * 2);
+                }
+            }
+            evict();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Apply one changed field to the cached user, replacing it with an updated copy
+     *
+     * @return the updated user, or null if the user is not cached
+     */
+    public User apply(UserDelta delta) {
+        evictionLock.lock();
+        try {
+            Node node = nodeAt(index.get(delta.getUserId()));
+            User current = node != null ? node.value : null;
+            if (current == null) {
+                return null;
+            }
+            User changed = delta.applyTo(current);
+            update(node, changed, weigh(changed));
+            evict();
+            return node.queue != REMOVED ? changed : null;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * @return false if the user was not cached
+     */
+    public boolean remove(int userId) {
+        evictionLock.lock();
+        try {
+            Node node = nodeAt(index.get(userId));
+            if (node == null) {
+                return false;
+            }
+            discard(node);
+            return true;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public int size() {
+        long stamp = indexLock.readLock();
+        try {
+            return index.size();
+        } finally {
+            indexLock.unlockRead(stamp);
+        }
+    }
+
+    public long getWeightedSize() {
+        evictionLock.lock();
+        try {
+            return totalWeight;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getRefreshCount() {
+        return refreshes.sum();
+    }
+
+    /**
+     * Hits as a fraction of lookups, 0 before any lookup
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    /**
+     * Apply reads not yet seen by the eviction policy
+     */
+    void cleanUp() {
+        evictionLock.lock();
+        try {
+            drainReads();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private int weigh(User user) {
+        int weight = weigher.applyAsInt(user);
+        if (weight < 0) {
+            throw new IllegalArgumentException("Negative weight " + weight + " for user " + user.getUserId());
+        }
+        return weight;
+    }
+
+    private Node find(int userId) {
+        long stamp = indexLock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                Node node = nodeAt(index.get(userId));
+                if (indexLock.validate(stamp)) {
+                    return node != null && node.userId == userId ? node : null;
+                }
+            } catch (RuntimeException torn) {
+                // Read while a writer resized; retry under the lock
+            }
+        }
+        stamp = indexLock.readLock();
+        try {
+            return nodeAt(index.get(userId));
+        } finally {
+            indexLock.unlockRead(stamp);
+        }
+    }
+
+    private Node nodeAt(int slot) {
+        Node[] current = nodes;
+        return slot >= 0 && slot < current.length ? current[slot] : null;
+    }
+
+    private void recordRead(Node node) {
+        long count = reads.getAndIncrement();
+        int slot = (int) count & (READ_BUFFER_SIZE - 1);
+        readBuffer.lazySet(slot, node);
+        // The ring is lossy: if no one drains in time, older reads are overwritten
+        if (slot == READ_BUFFER_SIZE - 1 && evictionLock.tryLock()) {
+            try {
+                drainReads();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void drainReads() {
+        for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+            Node node = readBuffer.getAndSet(i, null);
+            if (node != null && node.queue != REMOVED) {
+                sketch.increment(node.userId);
+                onAccess(node);
+            }
+        }
+    }
+
+    /**
+     * Move a used entry up: to the window's tail, or from probation into the protected area
+     */
+    private void onAccess(Node node) {
+        switch (node.queue) {
+            case WINDOW:
+                window.moveToTail(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                node.queue = PROTECTED;
+                protectedArea.add(node);
+                protectedWeight += node.weight;
+                while (protectedWeight > protectedMaximum && protectedArea.head != null) {
+                    Node demoted = protectedArea.head;
+                    protectedArea.remove(demoted);
+                    protectedWeight -= demoted.weight;
+                    demoted.queue = PROBATION;
+                    probation.add(demoted);
+                }
+                break;
+            case PROTECTED:
+                protectedArea.moveToTail(node);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void update(Node node, User user, int weight) {
+        int delta = weight - node.weight;
+        node.weight = weight;
+        node.value = user;
+        node.writtenAt = CoarseClock.currentTimeMillis();
+        totalWeight += delta;
+        if (node.queue == WINDOW) {
+            windowWeight += delta;
+        } else if (node.queue == PROTECTED) {
+            protectedWeight += delta;
+        }
+    }
+
+    private void evict() {
+        while (windowWeight > windowMaximum && window.head != null) {
+            Node candidate = window.head;
+            window.remove(candidate);
+            windowWeight -= candidate.weight;
+            candidate.queue = PROBATION;
+            probation.add(candidate);
+            admit(candidate);
+        }
+        // Weight changes on update can leave the cache over its bound without a new candidate
+        while (totalWeight > maximumWeight) {
+            Node victim = probation.head != null ? probation.head
+                    : protectedArea.head != null ? protectedArea.head : window.head;
+            if (victim == null) {
+                break;
+            }
+            evicted(victim);
+        }
+    }
+
+    /**
+     * TinyLFU admission: while over the bound, the candidate from the window and the main
+     * area's least recently used entry compete, and the less frequently used one goes
+     */
+    private void admit(Node candidate) {
+        while (totalWeight > maximumWeight) {
+            Node victim = probation.head != candidate ? probation.head : protectedArea.head;
+            if (victim == null || sketch.frequency(candidate.userId) <= sketch.frequency(victim.userId)) {
+                evicted(candidate);
+                return;
+            }
+            evicted(victim);
+        }
+    }
+
+    private void evicted(Node node) {
+        discard(node);
+        evictions.increment();
+        ClientMetrics.global().userCacheEvicted();
+    }
+
+    private void discard(Node node) {
+        switch (node.queue) {
+            case WINDOW:
+                window.remove(node);
+                windowWeight -= node.weight;
+                break;
+            case PROBATION:
+                probation.remove(node);
+                break;
+            case PROTECTED:
+                protectedArea.remove(node);
+                protectedWeight -= node.weight;
+                break;
+            default:
+                return;
+        }
+        totalWeight -= node.weight;
+        node.queue = REMOVED;
+        node.value = null;
+        unlink(node);
+    }
+
+    private void link(Node node) {
+        long stamp = indexLock.writeLock();
+        try {
+            int slot = freeCount > 0 ? free[--freeCount] : nextSlot++;
+            if (slot == nodes.length) {
+                nodes = Arrays.copyOf(nodes, nodes.length * 2);
+            }
+            nodes[slot] = node;
+            index.put(node.userId, slot);
+        } finally {
+            indexLock.unlockWrite(stamp);
+        }
+    }
+
+    private void unlink(Node node) {
+        long stamp = indexLock.writeLock();
+        try {
+            int slot = index.remove(node.userId);
+            if (slot != IntIntMap.MISSING) {
+                nodes[slot] = null;
+                if (freeCount == free.length) {
+                    free = Arrays.copyOf(free, free.length * 2);
+                }
+                free[freeCount++] = slot;
+            }
+        } finally {
+            indexLock.unlockWrite(stamp);
+        }
+    }
+
+    private void refreshIfStale(Node node) {
+        IntFunction<CompletableFuture<User>> load = refresher;
+        long after = refreshAfterMillis;
+        if (load == null || after <= 0 || CoarseClock.currentTimeMillis() - node.writtenAt < after
+                || !Node.REFRESHING.compareAndSet(node, 0, 1)) {
+            return;
+        }
+        CompletableFuture<User> reload;
+        try {
+            reload = load.apply(node.userId);
+        } catch (RuntimeException e) {
+            logger.warn("Refresh of user {} failed", node.userId, e);
+            node.refreshing = 0;
+            return;
+        }
+        reload.whenComplete((user, error) -> {
+            try {
+                if (error != null) {
+                    logger.debug("Refresh of user {} failed: {}", node.userId, error.toString());
+                } else if (user != null && user.getUserId() == node.userId) {
+                    replace(node, user);
+                }
+            } finally {
+                node.refreshing = 0;
+            }
+        });
+    }
+
+    /**
+     * Store a refreshed profile unless its entry was evicted or replaced meanwhile
+     */
+    private void replace(Node node, User user) {
+        int weight = weigh(user);
+        evictionLock.lock();
+        try {
+            if (node.queue != REMOVED) {
+                update(node, user, weight);
+                refreshes.increment();
+                evict();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static final class Node {
+        static final AtomicIntegerFieldUpdater<Node> REFRESHING =
+                AtomicIntegerFieldUpdater.newUpdater(Node.class, "refreshing");
+
+        final int userId;
+        volatile User value;
+        volatile long writtenAt;
+        volatile int refreshing;
+        // Guarded by the eviction lock
+        int weight;
+        int queue;
+        Node prev;
+        Node next;
+
+        Node(int userId, User value, int weight) {
+            this.userId = userId;
+            this.value = value;
+            this.weight = weight;
+            this.writtenAt = CoarseClock.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Intrusive doubly linked list, least recently used at the head
+     */
+    private static final class AccessOrder {
+        Node head;
+        Node tail;
+
+        void add(Node node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+        }
+
+        void remove(Node node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+
+        void moveToTail(Node node) {
+            if (tail != node) {
+                remove(node);
+                add(node);
+            }
+        }
+    }
+}
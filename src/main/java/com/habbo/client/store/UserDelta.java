@@ -0,0 +1,81 @@
+package com.habbo.client.store;
+
+import com.habbo.client.models.User;
+
+/**
+ * One changed field of a user, applied to the cached profile by {@link UserCache#apply}
+ */
+public final class UserDelta {
+
+    public enum Kind {
+        USERNAME,
+        MOTTO,
+        LEVEL,
+        /** {@code value} is 1 for admin, 0 otherwise */
+        ADMIN
+    }
+
+    private final int userId;
+    private final Kind kind;
+    private final int value;
+    private final String text;
+
+    private UserDelta(int userId, Kind kind, int value, String text) {
+        this.userId = userId;
+        this.kind = kind;
+        this.value = value;
+        this.text = text;
+    }
+
+    public static UserDelta username(int userId, String username) {
+        return new UserDelta(userId, Kind.USERNAME, 0, username);
+    }
+
+    public static UserDelta motto(int userId, String motto) {
+        return new UserDelta(userId, Kind.MOTTO, 0, motto);
+    }
+
+    public static UserDelta level(int userId, int level) {
+        return new UserDelta(userId, Kind.LEVEL, level, null);
+    }
+
+    public static UserDelta admin(int userId, boolean admin) {
+        return new UserDelta(userId, Kind.ADMIN, admin ? 1 : 0, null);
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * A copy of {@code user} with this change; cached users are shared, so never changed in place
+     */
+    User applyTo(User user) {
+        User changed = new User(user.getUserId(), kind == Kind.USERNAME ? text : user.getUsername());
+        changed.setMotto(kind == Kind.MOTTO ? text : user.getMotto());
+        changed.setLevel(kind == Kind.LEVEL ? value : user.getLevel());
+        changed.setAdmin(kind == Kind.ADMIN ? value != 0 : user.isAdmin());
+        return changed;
+    }
+
+    @Override
+    public String toString() {
+        return "UserDelta{" +
+                "userId=" + userId +
+                ", kind=" + kind +
+                (kind == Kind.USERNAME || kind == Kind.MOTTO ? ", text='" + text + '\'' : ", value=" + value) +
+                '}';
+    }
+}
@@ -0,0 +1,333 @@
+package com.habbo.client.store;
+
+import com.habbo.client.models.User;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BinaryOperator;
+
+/**
+ * All known users held column by column for scans and aggregates: user IDs and levels in
+ * {@code int} arrays, the admin flag as a bitset, and usernames and mottos as IDs into a
+ * dictionary of distinct strings.
+ * <p>
+ * A query reads only the columns it needs, front to back, with no pointer chasing: counting
+ * admins is a popcount over one {@code long} per 64 users, and a motto search tests each
+ * distinct motto once and then compares {@code int} IDs. The loops are plain indexed loops over
+ * primitive arrays, which the JIT can vectorize. Tables of more than {@value #PARALLEL_THRESHOLD}
+ * users are scanned in chunks on the common fork-join pool.
+ * <p>
+ * Rows are kept dense: removing a user moves the last row into its place. Each row holds a
+ * reference to its username and motto, released when the row is overwritten or removed, so the
+ * dictionary holds only strings still in use. Writers take the write lock; queries share the
+ * read lock, so they see a consistent table.
+ */
+public final class UserTable {
+    static final int CHUNK_SIZE = 16 * 1024;
+    static final int PARALLEL_THRESHOLD = 2 * CHUNK_SIZE;
+
+    private final StampedLock lock = new StampedLock();
+    private final IntIntMap rows;
+    private final StringPool strings = new StringPool();
+    // Columns, rows 0 to size - 1; guarded by lock
+    private int[] userIds;
+    private int[] levels;
+    private int[] usernames;
+    private int[] mottos;
+    private long[] admins;
+    private int size;
+
+    public UserTable() {
+        this(1024);
+    }
+
+    public UserTable(int expectedUsers) {
+        int capacity = Math.max(64, expectedUsers);
+        this.rows = new IntIntMap(capacity);
+        this.userIds = new int[capacity];
+        this.levels = new int[capacity];
+        this.usernames = new int[capacity];
+        this.mottos = new int[capacity];
+        this.admins = new long[(capacity + 63) >>> 6];
+    }
+
+    /**
+     * Add the user, or overwrite the row with the same user ID
+     */
+    public void put(User user) {
+        Objects.requireNonNull(user, "user");
+        long stamp = lock.writeLock();
+        try {
+            // Intern the new strings before releasing the old ones, so an unchanged string keeps its ID
+            int username = strings.intern(user.getUsername());
+            int motto = strings.intern(user.getMotto());
+            int row = rows.get(user.getUserId());
+            if (row == IntIntMap.MISSING) {
+                if (size == userIds.length) {
+                    grow();
+                }
+                row = size++;
+                rows.put(user.getUserId(), row);
+            } else {
+                strings.release(usernames[row]);
+                strings.release(mottos[row]);
+            }
+            userIds[row] = user.getUserId();
+            levels[row] = user.getLevel();
+            usernames[row] = username;
+            mottos[row] = motto;
+            setAdmin(row, user.isAdmin());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return false if the user was not in the table
+     */
+    public boolean remove(int userId) {
+        long stamp = lock.writeLock();
+        try {
+            int row = rows.remove(userId);
+            if (row == IntIntMap.MISSING) {
+                return false;
+            }
+            strings.release(usernames[row]);
+            strings.release(mottos[row]);
+            int last = --size;
+            if (row != last) {
+                userIds[row] = userIds[last];
+                levels[row] = levels[last];
+                usernames[row] = usernames[last];
+                mottos[row] = mottos[last];
+                setAdmin(row, isAdmin(last));
+                rows.put(userIds[row], row);
+            }
+            setAdmin(last, false);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * A new {@link User} built from the user's row, or null
+     */
+    public User get(int userId) {
+        long stamp = lock.readLock();
+        try {
+            int row = rows.get(userId);
+            if (row == IntIntMap.MISSING) {
+                return null;
+            }
+            User user = new User(userId, strings.get(usernames[row]));
+            user.setMotto(strings.get(mottos[row]));
+            user.setLevel(levels[row]);
+            user.setAdmin(isAdmin(row));
+            return user;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public boolean contains(int userId) {
+        long stamp = lock.readLock();
+        try {
+            return rows.get(userId) != IntIntMap.MISSING;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Distinct usernames and mottos of the users in the table; a string leaves the dictionary with its last user
+     */
+    public int getDistinctStrings() {
+        return strings.size();
+    }
+
+    public int countAdmins() {
+        return query((from, to) -> {
+            // Chunks start on a word boundary, and bits past the last row are always clear
+            int count = 0;
+            for (int word = from >>> 6, end = (to + 63) >>> 6; word < end; word++) {
+                count += Long.bitCount(admins[word]);
+            }
+            return count;
+        }, Integer::sum);
+    }
+
+    public long sumLevels() {
+        return query((from, to) -> {
+            long sum = 0;
+            for (int row = from; row < to; row++) {
+                sum += levels[row];
+            }
+            return sum;
+        }, Long::sum);
+    }
+
+    public int countLevelAtLeast(int minimumLevel) {
+        return query((from, to) -> {
+            int count = 0;
+            for (int row = from; row < to; row++) {
+                count += levels[row] >= minimumLevel ? 1 : 0;
+            }
+            return count;
+        }, Integer::sum);
+    }
+
+    /**
+     * Users per level, index 0 to {@code maxLevel}; lower levels count as 0 and higher ones as {@code maxLevel}
+     */
+    public long[] levelHistogram(int maxLevel) {
+        if (maxLevel < 0) {
+            throw new IllegalArgumentException("maxLevel must not be negative");
+        }
+        return query((from, to) -> {
+            long[] histogram = new long[maxLevel + 1];
+            for (int row = from; row < to; row++) {
+                histogram[Math.min(Math.max(levels[row], 0), maxLevel)]++;
+            }
+            return histogram;
+        }, (a, b) -> {
+            for (int i = 0; i < a.length; i++) {
+                a[i] += b[i];
+            }
+            return a;
+        });
+    }
+
+    /**
+     * IDs of users whose motto contains {@code text}, in no particular order
+     */
+    public int[] findByMottoContaining(String text) {
+        Objects.requireNonNull(text, "text");
+        long stamp = lock.readLock();
+        try {
+            // Test each distinct string once; the scan then only compares dictionary IDs
+            int idLimit = strings.idLimit();
+            long[] matching = new long[(idLimit + 63) >>> 6];
+            for (int id = 0; id < idLimit; id++) {
+                String value = strings.get(id);
+                if (value != null && value.contains(text)) {
+                    matching[id >>> 6] |= 1L << id;
+                }
+            }
+            return scan((from, to) -> {
+                int[] found = new int[16];
+                int count = 0;
+                for (int row = from; row < to; row++) {
+                    int motto = mottos[row];
+                    if (motto != StringPool.NULL_ID && (matching[motto >>> 6] & (1L << motto)) != 0) {
+                        if (count == found.length) {
+                            found = Arrays.copyOf(found, count * 2);
+                        }
+                        found[count++] = userIds[row];
+                    }
+                }
+                return Arrays.copyOf(found, count);
+            }, UserTable::concat);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private <R> R query(ChunkScan<R> chunkScan, BinaryOperator<R> merge) {
+        long stamp = lock.readLock();
+        try {
+            return scan(chunkScan, merge);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Run {@code chunkScan} over every row, in parallel chunks for large tables; read lock held
+     */
+    private <R> R scan(ChunkScan<R> chunkScan, BinaryOperator<R> merge) {
+        if (size < PARALLEL_THRESHOLD) {
+            return chunkScan.scan(0, size);
+        }
+        // The read lock is not tied to a thread, so it covers the workers too
+        return ForkJoinPool.commonPool().invoke(new ScanTask<>(chunkScan, merge, 0, size));
+    }
+
+    private boolean isAdmin(int row) {
+        return (admins[row >>> 6] & (1L << row)) != 0;
+    }
+
+    private void setAdmin(int row, boolean admin) {
+        if (admin) {
+            admins[row >>> 6] |= 1L << row;
+        } else {
+            admins[row >>> 6] &= ~(1L << row);
+        }
+    }
+
+    private void grow() {
+        int capacity = userIds.length * 2;
+        userIds = Arrays.copyOf(userIds, capacity);
+        levels = Arrays.copyOf(levels, capacity);
+        usernames = Arrays.copyOf(usernames, capacity);
+        mottos = Arrays.copyOf(mottos, capacity);
+        admins = Arrays.copyOf(admins, (capacity + 63) >>> 6);
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        int[] joined = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, joined, a.length, b.length);
+        return joined;
+    }
+
+    private interface ChunkScan<R> {
+        /**
+         * Result for rows {@code from} (inclusive) to {@code to} (exclusive)
+         */
+        R scan(int from, int to);
+    }
+
+    private static final class ScanTask<R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+
+        private final ChunkScan<R> chunkScan;
+        private final BinaryOperator<R> merge;
+        private final int from;
+        private final int to;
+
+        ScanTask(ChunkScan<R> chunkScan, BinaryOperator<R> merge, int from, int to) {
+            this.chunkScan = chunkScan;
+            this.merge = merge;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from <= CHUNK_SIZE) {
+                return chunkScan.scan(from, to);
+            }
+            // Split on a chunk boundary, which is also a bitset word boundary
+            int middle = from + ((to - from) / CHUNK_SIZE / 2) * CHUNK_SIZE;
+            if (middle == from) {
+                middle += CHUNK_SIZE;
+            }
+            ScanTask<R> left = new ScanTask<>(chunkScan, merge, from, middle);
+            left.fork();
+            R right = new ScanTask<>(chunkScan, merge, middle, to).compute();
+            return merge.apply(left.join(), right);
+        }
+    }
+}
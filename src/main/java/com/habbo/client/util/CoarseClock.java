@@ -0,0 +1,29 @@
+package com.habbo.client.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall-clock time refreshed by the shared timer every {@link #TICK_MILLIS} milliseconds
+ * ({@code -Dhabbo.clock.tick}), for hot paths that only need coarse expiry checks.
+ * Reading it is a single volatile load instead of a call into the OS clock.
+ */
+public final class CoarseClock {
+    public static final int TICK_MILLIS = Math.max(1, Integer.getInteger("habbo.clock.tick", 10));
+
+    private static volatile long now = System.currentTimeMillis();
+
+    static {
+        Threads.scheduler().scheduleAtFixedRate(() -> now = System.currentTimeMillis(),
+                TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private CoarseClock() {
+    }
+
+    /**
+     * Milliseconds since the epoch, at most one tick behind {@link System#currentTimeMillis()}
+     */
+    public static long currentTimeMillis() {
+        return now;
+    }
+}
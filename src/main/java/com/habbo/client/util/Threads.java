@@ -0,0 +1,136 @@
+package com.habbo.client.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the threads used for receivers and command execution.
+ * When virtual threads are enabled and the runtime supports them (Java 21+),
+ * they are used instead of platform threads. The virtual-thread API is
+ * reached reflectively so the project still builds and runs on Java 17.
+ */
+public final class Threads {
+    private static final Logger logger = LoggerFactory.getLogger(Threads.class);
+
+    private static final Method OF_VIRTUAL = findMethod(Thread.class, "ofVirtual");
+    private static final Method VIRTUAL_EXECUTOR = findMethod(Executors.class, "newVirtualThreadPerTaskExecutor");
+    private static final Method BUILDER_NAME = OF_VIRTUAL == null ? null
+            : findMethod(OF_VIRTUAL.getReturnType(), "name", String.class);
+    private static final Method BUILDER_UNSTARTED = OF_VIRTUAL == null ? null
+            : findMethod(OF_VIRTUAL.getReturnType(), "unstarted", Runnable.class);
+
+    private static volatile ScheduledExecutorService scheduler;
+    private static volatile boolean virtualThreads = "virtual".equalsIgnoreCase(System.getProperty("habbo.threads"));
+
+    private Threads() {
+    }
+
+    /**
+     * Whether the running JVM can create virtual threads
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return OF_VIRTUAL != null && VIRTUAL_EXECUTOR != null && BUILDER_NAME != null && BUILDER_UNSTARTED != null;
+    }
+
+    public static boolean isVirtualThreadsEnabled() {
+        return virtualThreads;
+    }
+
+    /**
+     * Switch new threads to virtual threads; returns false if the runtime cannot provide them
+     */
+    public static boolean setVirtualThreadsEnabled(boolean enabled) {
+        if (enabled && !isVirtualThreadsSupported()) {
+            logger.warn("Virtual threads require Java 21+, running on {}", Runtime.version());
+            virtualThreads = false;
+            return false;
+        }
+        virtualThreads = enabled;
+        return true;
+    }
+
+    /**
+     * Create an unstarted thread; platform threads are daemons so they never block exit
+     */
+    public static Thread newThread(String name, Runnable task) {
+        if (useVirtual()) {
+            try {
+                Object builder = OF_VIRTUAL.invoke(null);
+                builder = BUILDER_NAME.invoke(builder, name);
+                return (Thread) BUILDER_UNSTARTED.invoke(builder, task);
+            } catch (ReflectiveOperationException e) {
+                logger.warn("Falling back to platform thread for {}", name, e);
+            }
+        }
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Executor that runs each task on its own thread: one virtual thread per task,
+     * or a cached pool of daemon platform threads
+     */
+    public static ExecutorService newTaskExecutor(String namePrefix) {
+        if (useVirtual()) {
+            try {
+                return (ExecutorService) VIRTUAL_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                logger.warn("Falling back to platform executor for {}", namePrefix, e);
+            }
+        }
+        return Executors.newCachedThreadPool(daemonFactory(namePrefix));
+    }
+
+    /**
+     * Shared timer thread for short delayed tasks (flush windows and similar).
+     * Tasks must be quick and never block.
+     */
+    public static ScheduledExecutorService scheduler() {
+        ScheduledExecutorService current = scheduler;
+        if (current == null) {
+            synchronized (Threads.class) {
+                current = scheduler;
+                if (current == null) {
+                    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, daemonFactory("HabboTimer"));
+                    executor.setRemoveOnCancelPolicy(true);
+                    current = executor;
+                    scheduler = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Factory for named daemon platform threads
+     */
+    public static ThreadFactory daemonFactory(String namePrefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, namePrefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static boolean useVirtual() {
+        return virtualThreads && isVirtualThreadsSupported();
+    }
+
+    private static Method findMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.habbo.client.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate limiter allowing {@code permitsPerSecond} on average with bursts of up to {@code burst}.
+ * <p>
+ * Kept as a single theoretical arrival time (GCRA) rather than a refilled token count, so
+ * taking a permit is one compare-and-set and waiters need no lock or queue: each caller
+ * reserves the next slot and then sleeps until it is due. Unused capacity accumulates up
+ * to the burst size, never beyond it.
+ */
+public final class TokenBucket {
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final int burst;
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (!(permitsPerSecond > 0) || burst < 1) {
+            throw new IllegalArgumentException("Rate must be positive and burst at least 1");
+        }
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.toleranceNanos = intervalNanos * (burst - 1);
+        this.burst = burst;
+    }
+
+    /**
+     * Take a permit, sleeping until it is available
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Take a permit only if one is available now
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            long now = System.nanoTime();
+            long current = theoreticalArrival.get();
+            long base = Math.max(current, now);
+            if (base - toleranceNanos > now) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(current, base + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Claim the next permit
+     *
+     * @return nanoseconds until it may be used
+     */
+    long reserve() {
+        while (true) {
+            long now = System.nanoTime();
+            long current = theoreticalArrival.get();
+            long base = Math.max(current, now);
+            if (theoreticalArrival.compareAndSet(current, base + intervalNanos)) {
+                return Math.max(0, base - toleranceNanos - now);
+            }
+        }
+    }
+
+    public double getPermitsPerSecond() {
+        return (double) TimeUnit.SECONDS.toNanos(1) / intervalNanos;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+}
@@ -3,6 +3,9 @@ package com.habbo.client.auth;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.Assert.*;
 
 public class AuthenticationTest {
@@ -96,4 +99,56 @@ public class AuthenticationTest {
         assertTrue("Should contain username", authStatus.contains("xiony"));
         assertTrue("Should show expiration", authStatus.contains("Token expires"));
     }
+
+    @Test
+    public void testRefreshAfterLogoutFails() {
+        authManager.authenticate("xiony", "password123");
+        SSOToken token = authManager.getCurrentToken();
+        authManager.logout();
+
+        assertFalse("Logout should revoke the token", token.isValid());
+        assertFalse("Nothing to refresh after logout", authManager.refreshToken());
+        assertFalse(token.refresh("ticket"));
+        assertEquals("Not authenticated", authManager.getAuthenticationStatus());
+    }
+
+    @Test
+    public void testTokenRevokedOutsideManager() {
+        authManager.authenticate("xiony", "password123");
+        authManager.getCurrentToken().revoke();
+
+        assertFalse("A revoked token no longer authenticates", authManager.isAuthenticated());
+        assertFalse("A revoked token cannot be refreshed", authManager.refreshToken());
+        assertEquals("Token expired", authManager.getAuthenticationStatus());
+    }
+
+    @Test
+    public void testConcurrentReadersDuringTransitions() throws InterruptedException {
+        authManager.authenticate("xiony", "password123");
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger inconsistent = new AtomicInteger();
+        Thread[] readers = new Thread[4];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(() -> {
+                while (running.get()) {
+                    String status = authManager.getAuthenticationStatus();
+                    if (!status.equals("Not authenticated") && !status.startsWith("Authenticated as: xiony")) {
+                        inconsistent.incrementAndGet();
+                    }
+                }
+            });
+            readers[i].start();
+        }
+        for (int i = 0; i < 200; i++) {
+            assertTrue(authManager.refreshToken());
+            authManager.logout();
+            assertTrue(authManager.authenticate("xiony", "password123"));
+        }
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertEquals(0, inconsistent.get());
+        assertTrue(authManager.isAuthenticated());
+    }
 }
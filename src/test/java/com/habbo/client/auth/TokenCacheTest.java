@@ -0,0 +1,105 @@
+package com.habbo.client.auth;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.*;
+
+public class TokenCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSurvivesReopen() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("tokens.cache");
+        try (TokenCache cache = TokenCache.open(file)) {
+            assertTrue(cache.put("xiony", "token-1", 1000, 2000));
+            assertTrue(cache.put("bot", "token-2", 1000, 3000));
+            assertTrue(cache.put("xiony", "token-3", 1500, 4000));
+            assertTrue(cache.remove("bot"));
+        }
+
+        try (TokenCache cache = TokenCache.open(file)) {
+            assertEquals(1, cache.size());
+            assertEquals("token-3", cache.get("xiony").getToken());
+            assertEquals(4000, cache.get("xiony").getExpiresAt());
+            assertNull(cache.get("bot"));
+        }
+        String raw = new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1);
+        assertFalse("Entries are encrypted at rest", raw.contains("xiony") || raw.contains("token-3"));
+    }
+
+    @Test
+    public void testTruncatesCorruptedTail() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("tokens.cache");
+        try (TokenCache cache = TokenCache.open(file)) {
+            cache.put("first", "token-1", 1000, 2000);
+        }
+        long goodEnd = Files.size(file);
+        try (TokenCache cache = TokenCache.open(file)) {
+            cache.put("second", "token-2", 1000, 2000);
+        }
+        // Flip a byte in the second record's ciphertext, then append garbage
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            channel.read(one, goodEnd + 20);
+            one.put(0, (byte) (one.get(0) ^ 0xFF));
+            channel.write(one.rewind(), goodEnd + 20);
+        }
+
+        try (TokenCache cache = TokenCache.open(file)) {
+            assertEquals("token-1", cache.get("first").getToken());
+            assertNull("Corrupted record is dropped", cache.get("second"));
+            assertTrue("Appends continue after the truncation point", cache.put("third", "token-3", 1000, 2000));
+        }
+        try (TokenCache cache = TokenCache.open(file)) {
+            assertEquals(2, cache.size());
+            assertEquals("token-3", cache.get("third").getToken());
+        }
+    }
+
+    @Test
+    public void testCompactsStaleRecords() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("tokens.cache");
+        try (TokenCache cache = TokenCache.open(file)) {
+            for (int i = 0; i < 500; i++) {
+                cache.put("xiony", "token-" + i, i, i + 1000);
+            }
+        }
+        assertTrue("Rewritten with live entries only: " + Files.size(file), Files.size(file) < 64 * 1024);
+        try (TokenCache cache = TokenCache.open(file)) {
+            assertEquals("token-499", cache.get("xiony").getToken());
+        }
+    }
+
+    @Test
+    public void testWarmRestartReusesToken() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("tokens.cache");
+        String token;
+        try (TokenCache cache = TokenCache.open(file)) {
+            AuthenticationManager first = new AuthenticationManager();
+            first.setTokenCache(cache);
+            assertTrue(first.authenticate("xiony", "password123"));
+            token = first.getCurrentToken().getToken();
+        }
+
+        try (TokenCache cache = TokenCache.open(file)) {
+            AuthenticationManager restarted = new AuthenticationManager();
+            restarted.setTokenCache(cache);
+            assertTrue(restarted.authenticate("xiony", "password123"));
+            assertEquals("Valid cached token is reused", token, restarted.getCurrentToken().getToken());
+
+            restarted.logout();
+            assertNull("Logout forgets the token", cache.get("xiony"));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.habbo.client.auth;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TokenRefreshSchedulerTest {
+    private TokenRefreshScheduler scheduler;
+
+    @After
+    public void tearDown() {
+        if (scheduler != null) {
+            scheduler.close();
+        }
+    }
+
+    /**
+     * Refreshes within about 100 ms of login
+     */
+    private static TokenRefreshScheduler soon(int maxConcurrent) {
+        return new TokenRefreshScheduler(Duration.ofMillis(SSOToken.LIFETIME_MILLIS - 100), Duration.ofMillis(50),
+                maxConcurrent, Duration.ofMillis(10));
+    }
+
+    @Test
+    public void testRefreshesBeforeExpiry() throws InterruptedException {
+        scheduler = soon(4);
+        AuthenticationManager manager = new AuthenticationManager();
+        manager.setRefreshScheduler(scheduler);
+        assertTrue(manager.authenticate("xiony", "password123"));
+        long firstExpiry = manager.getCurrentToken().getExpiresAt();
+        assertEquals(1, scheduler.getScheduledCount());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (scheduler.getRefreshedCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue("Token should be refreshed proactively", scheduler.getRefreshedCount() >= 1);
+        assertTrue(manager.getCurrentToken().getExpiresAt() > firstExpiry);
+
+        manager.logout();
+        assertEquals("Logout cancels the pending refresh", 0, scheduler.getScheduledCount());
+    }
+
+    @Test
+    public void testCapsConcurrentRefreshes() throws InterruptedException {
+        scheduler = soon(2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch refreshedOnce = new CountDownLatch(12);
+        List<AuthenticationManager> managers = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            AuthenticationManager manager = new AuthenticationManager() {
+                private boolean counted;
+
+                @Override
+                public boolean refreshToken() {
+                    peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(20);
+                        return super.refreshToken();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    } finally {
+                        running.decrementAndGet();
+                        if (!counted) {
+                            counted = true;
+                            refreshedOnce.countDown();
+                        }
+                    }
+                }
+            };
+            manager.setRefreshScheduler(scheduler);
+            assertTrue(manager.authenticate("bot" + i, "password"));
+            managers.add(manager);
+        }
+
+        assertTrue(refreshedOnce.await(10, TimeUnit.SECONDS));
+        for (AuthenticationManager manager : managers) {
+            manager.logout();
+        }
+        assertTrue("At most 2 refreshes at once, saw " + peak.get(), peak.get() <= 2);
+        assertTrue(peak.get() >= 1);
+    }
+
+    @Test
+    public void testLoginAfterCloseStillSucceeds() {
+        scheduler = soon(2);
+        AuthenticationManager manager = new AuthenticationManager();
+        manager.setRefreshScheduler(scheduler);
+        scheduler.close();
+
+        assertTrue("A closed scheduler only stops refreshes", manager.authenticate("xiony", "password123"));
+        assertTrue(manager.isAuthenticated());
+        assertTrue(manager.refreshToken());
+        assertEquals(0, scheduler.getScheduledCount());
+    }
+
+    @Test
+    public void testJitterStaysWithinBounds() {
+        scheduler = new TokenRefreshScheduler(Duration.ofMinutes(5), Duration.ofMinutes(1), 1, Duration.ofSeconds(1));
+        long now = 1_000_000;
+        long expiresAt = now + TimeUnit.HOURS.toMillis(1);
+        for (int i = 0; i < 1000; i++) {
+            long delay = scheduler.refreshDelayMillis(expiresAt, now);
+            assertTrue(delay <= TimeUnit.MINUTES.toMillis(55));
+            assertTrue(delay >= TimeUnit.MINUTES.toMillis(54));
+        }
+        assertEquals(0, scheduler.refreshDelayMillis(now, now));
+    }
+}
@@ -0,0 +1,55 @@
+package com.habbo.client.diagnostics;
+
+import com.habbo.client.auth.AuthenticationManager;
+import com.habbo.client.cli.CommandInterpreter;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class FlightRecordingTest {
+    private Path file;
+
+    @After
+    public void tearDown() throws Exception {
+        FlightRecording.stop();
+        if (file != null) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testRecordsClientEvents() throws Exception {
+        file = Files.createTempFile("habbo-test", ".jfr");
+        FlightRecording.start(file);
+        assertEquals(file, FlightRecording.getDestination());
+
+        new AuthenticationManager().authenticate("xiony", "password123");
+        new CommandInterpreter().executeCommand("stats");
+
+        assertEquals(file, FlightRecording.stop());
+        assertNull(FlightRecording.getDestination());
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        List<RecordedEvent> auth = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.habbo.client.Authentication"))
+                .collect(Collectors.toList());
+        assertEquals(1, auth.size());
+        assertEquals("xiony", auth.get(0).getString("username"));
+        assertTrue(auth.get(0).getBoolean("success"));
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("com.habbo.client.Command")
+                && "stats".equals(e.getString("command"))));
+    }
+
+    @Test
+    public void testStopWithoutRecording() {
+        assertNull(FlightRecording.stop());
+    }
+}
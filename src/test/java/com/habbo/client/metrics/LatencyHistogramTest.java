@@ -0,0 +1,48 @@
+package com.habbo.client.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketsCoverRangeWithoutGaps() {
+        int previous = -1;
+        for (long value = 0; value < 1 << 20; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue("Index must not decrease at " + value, index >= previous);
+            assertTrue(value <= LatencyHistogram.highestValueAt(index));
+            previous = index;
+        }
+    }
+
+    @Test
+    public void testPercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1000);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(10_000, snapshot.getCount());
+        assertEquals(10_000_000, snapshot.getMax());
+        assertEquals(5_000_000, snapshot.getValueAtPercentile(50), 5_000_000 * 0.016);
+        assertEquals(9_900_000, snapshot.getValueAtPercentile(99), 9_900_000 * 0.016);
+        assertEquals(5_000_500, snapshot.getMean(), 1);
+    }
+
+    @Test
+    public void testOutOfRangeValuesAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.getCount());
+        assertEquals(0, snapshot.getValueAtPercentile(50));
+        assertEquals((1L << 40) - 1, snapshot.getMax());
+
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().getCount());
+        assertEquals(0, histogram.snapshot().getValueAtPercentile(99));
+    }
+}
@@ -0,0 +1,100 @@
+package com.habbo.client.network;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FrameDecoderTest {
+    private FrameDecoder decoder;
+    private ByteBuffer shared;
+    private List<byte[]> frames;
+
+    @Before
+    public void setUp() {
+        decoder = new FrameDecoder(1024);
+        shared = ByteBuffer.allocate(64);
+        frames = new ArrayList<>();
+    }
+
+    private void feed(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            ByteBuffer target = decoder.readTarget(shared);
+            int chunk = Math.min(target.remaining(), bytes.length - offset);
+            target.put(bytes, offset, chunk);
+            offset += chunk;
+            decoder.decode(target, frame -> {
+                byte[] copy = new byte[frame.remaining()];
+                frame.get(copy);
+                frames.add(copy);
+            });
+        }
+    }
+
+    private static byte[] frame(int length, int seed) {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + length);
+        buffer.putInt(length);
+        for (int i = 0; i < length; i++) {
+            buffer.put((byte) (seed + i));
+        }
+        return buffer.array();
+    }
+
+    @Test
+    public void testSeveralFramesInOneRead() throws IOException {
+        byte[] first = frame(3, 1);
+        byte[] second = frame(5, 10);
+        ByteBuffer both = ByteBuffer.allocate(first.length + second.length).put(first).put(second);
+
+        feed(both.array());
+
+        assertEquals(2, frames.size());
+        assertArrayEquals(new byte[]{1, 2, 3}, frames.get(0));
+        assertArrayEquals(new byte[]{10, 11, 12, 13, 14}, frames.get(1));
+        assertFalse(decoder.hasPartialFrame());
+    }
+
+    @Test
+    public void testFrameSplitAcrossReads() throws IOException {
+        byte[] data = frame(10, 0);
+        feed(Arrays.copyOfRange(data, 0, 2));
+        assertTrue("Header fragment should be kept", decoder.hasPartialFrame());
+        feed(Arrays.copyOfRange(data, 2, 9));
+        assertTrue(frames.isEmpty());
+        feed(Arrays.copyOfRange(data, 9, data.length));
+
+        assertEquals(1, frames.size());
+        assertEquals(10, frames.get(0).length);
+        assertFalse("Partial buffer should be released", decoder.hasPartialFrame());
+    }
+
+    @Test
+    public void testFrameLargerThanSharedBuffer() throws IOException {
+        byte[] data = frame(500, 7);
+        feed(data);
+
+        assertEquals(1, frames.size());
+        assertEquals(500, frames.get(0).length);
+        assertEquals((byte) 7, frames.get(0)[0]);
+        assertEquals(0, shared.position());
+    }
+
+    @Test
+    public void testEmptyFrame() throws IOException {
+        feed(frame(0, 0));
+        assertEquals(1, frames.size());
+        assertEquals(0, frames.get(0).length);
+    }
+
+    @Test(expected = IOException.class)
+    public void testOversizedFrameRejected() throws IOException {
+        feed(frame(2000, 0));
+    }
+}
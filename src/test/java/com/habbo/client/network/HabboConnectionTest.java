@@ -0,0 +1,490 @@
+package com.habbo.client.network;
+
+import com.habbo.client.auth.TokenCache;
+import com.habbo.client.metrics.ClientMetrics;
+import com.habbo.client.protocol.MessageRegistry;
+import com.habbo.client.protocol.ProtocolMessage;
+import com.habbo.client.protocol.messages.AuthenticationMessage;
+import com.habbo.client.protocol.messages.AuthenticationResponseMessage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class HabboConnectionTest {
+    private ServerSocket server;
+    private Thread echoThread;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new ServerSocket(0);
+        echoThread = new Thread(() -> {
+            try {
+                while (!server.isClosed()) {
+                    Socket client = server.accept();
+                    Thread worker = new Thread(() -> echo(client));
+                    worker.setDaemon(true);
+                    worker.start();
+                }
+            } catch (IOException ignored) {
+                // server closed
+            }
+        });
+        echoThread.setDaemon(true);
+        echoThread.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    private static void echo(Socket client) {
+        try (Socket socket = client) {
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            while (true) {
+                int length = in.readInt();
+                byte[] data = new byte[length];
+                in.readFully(data);
+                out.writeInt(length);
+                out.write(data);
+                out.flush();
+            }
+        } catch (IOException ignored) {
+            // client went away
+        }
+    }
+
+    @Test
+    public void testNioEcho() throws Exception {
+        assertEcho(TransportMode.NIO);
+    }
+
+    @Test
+    public void testBlockingEcho() throws Exception {
+        assertEcho(TransportMode.BLOCKING);
+    }
+
+    @Test
+    public void testTimeWindowFlush() throws Exception {
+        assertBurst(TransportMode.NIO, FlushPolicy.timeWindow(Duration.ofMillis(5)));
+    }
+
+    @Test
+    public void testSizeThresholdFlush() throws Exception {
+        assertBurst(TransportMode.BLOCKING, FlushPolicy.sizeThreshold(1024, Duration.ofMillis(5)));
+    }
+
+    private void assertBurst(TransportMode mode, FlushPolicy policy) throws Exception {
+        HabboConnection connection = new HabboConnection("localhost", server.getLocalPort(), mode);
+        connection.setFlushPolicy(policy);
+        RecordingListener listener = new RecordingListener();
+        connection.setConnectionListener(listener);
+        assertTrue(connection.connect());
+
+        CompletableFuture<?>[] sends = new CompletableFuture<?>[200];
+        for (int i = 0; i < sends.length; i++) {
+            sends[i] = connection.send(new byte[]{(byte) i});
+        }
+        CompletableFuture.allOf(sends).get(5, TimeUnit.SECONDS);
+
+        for (int i = 0; i < sends.length; i++) {
+            assertArrayEquals("Frames should arrive in order", new byte[]{(byte) i}, listener.frames.poll(5, TimeUnit.SECONDS));
+        }
+        connection.disconnect();
+    }
+
+    private void assertEcho(TransportMode mode) throws Exception {
+        HabboConnection connection = new HabboConnection("localhost", server.getLocalPort(), mode);
+        RecordingListener listener = new RecordingListener();
+        connection.setConnectionListener(listener);
+
+        assertTrue("Should connect", connection.connect());
+        assertTrue(connection.isConnected());
+
+        // Large enough to be split across several reads
+        byte[] large = new byte[100_000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) i;
+        }
+        connection.send(new byte[]{1, 2, 3});
+        connection.send(large).get(5, TimeUnit.SECONDS);
+
+        assertArrayEquals(new byte[]{1, 2, 3}, listener.frames.poll(5, TimeUnit.SECONDS));
+        assertArrayEquals(large, listener.frames.poll(5, TimeUnit.SECONDS));
+
+        connection.disconnect();
+        assertFalse(connection.isConnected());
+        assertTrue(listener.disconnected.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testQueuedDispatchBlocksReads() throws Exception {
+        GatedListener listener = new GatedListener();
+        HabboConnection connection = new HabboConnection("localhost", server.getLocalPort(), TransportMode.NIO);
+        connection.setDispatchPolicy(DispatchPolicy.queued(4, DispatchPolicy.Overflow.BLOCK_READS));
+        connection.setConnectionListener(listener);
+        assertTrue(connection.connect());
+
+        for (int i = 0; i < 200; i++) {
+            connection.send(new byte[]{(byte) i});
+        }
+        assertTrue(listener.entered.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        // Reads stop once the queue fills; at most the rest of one read lands beyond capacity
+        assertTrue("Queue should be bounded: " + connection.getInboundQueueDepth(),
+                connection.getInboundQueueDepth() < 200);
+        listener.gate.countDown();
+
+        for (int i = 0; i < 200; i++) {
+            assertArrayEquals("Frames should arrive in order", new byte[]{(byte) i}, listener.frames.poll(5, TimeUnit.SECONDS));
+        }
+        assertEquals(0, connection.getInboundQueueDepth());
+        connection.disconnect();
+        assertTrue(listener.disconnected.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testQueuedDispatchDisconnectsOnOverflow() throws Exception {
+        GatedListener listener = new GatedListener();
+        HabboConnection connection = new HabboConnection("localhost", server.getLocalPort(), TransportMode.BLOCKING);
+        connection.setDispatchPolicy(DispatchPolicy.queued(2, DispatchPolicy.Overflow.DISCONNECT));
+        connection.setConnectionListener(listener);
+        assertTrue(connection.connect());
+
+        for (int i = 0; i < 50; i++) {
+            connection.send(new byte[]{(byte) i});
+        }
+        assertTrue(listener.entered.await(5, TimeUnit.SECONDS));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (connection.isConnected() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse("Overflow should close the connection", connection.isConnected());
+        // Frames queued before the overflow are still delivered, then the disconnect
+        listener.gate.countDown();
+        assertTrue(listener.disconnected.await(5, TimeUnit.SECONDS));
+        assertArrayEquals(new byte[]{0}, listener.frames.poll());
+    }
+
+    @Test
+    public void testPublisherReadsOnlyOnDemand() throws Exception {
+        HabboConnection connection = new HabboConnection("localhost", server.getLocalPort(), TransportMode.NIO);
+        assertTrue(connection.connect());
+        BlockingQueue<ProtocolMessage> received = new LinkedBlockingQueue<>();
+        CountDownLatch completed = new CountDownLatch(1);
+        AtomicReference<Flow.Subscription> subscription = new AtomicReference<>();
+        connection.messages().subscribe(new Flow.Subscriber<ProtocolMessage>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription.set(s);
+                s.request(1);
+            }
+
+            @Override
+            public void onNext(ProtocolMessage message) {
+                received.add(message);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+                completed.countDown();
+            }
+        });
+
+        // About 400 KB of echoes, several times the 64 KB read buffer
+        String padding = "x".repeat(1000);
+        long framesBefore = ClientMetrics.global().getFramesIn();
+        for (int i = 0; i < 400; i++) {
+            connection.send(new AuthenticationMessage("user" + i, padding));
+        }
+        assertNotNull(received.poll(5, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        assertNull("No demand, no delivery", received.poll());
+        long read = ClientMetrics.global().getFramesIn() - framesBefore;
+        assertTrue("Reads should stop without demand, read " + read, read < 200);
+
+        subscription.get().request(Long.MAX_VALUE);
+        for (int i = 1; i < 400; i++) {
+            AuthenticationMessage message = (AuthenticationMessage) received.poll(5, TimeUnit.SECONDS);
+            assertNotNull("Missing message " + i, message);
+            assertEquals("user" + i, message.getUsername());
+        }
+        connection.disconnect();
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testDispatchPolicyParse() {
+        assertSame(DispatchPolicy.inline(), DispatchPolicy.parse("inline", null));
+        DispatchPolicy queued = DispatchPolicy.parse("queue:100", null);
+        assertEquals(DispatchPolicy.Mode.QUEUED, queued.getMode());
+        assertEquals(100, queued.getCapacity());
+        assertEquals(DispatchPolicy.Overflow.BLOCK_READS, queued.getOverflow());
+        assertEquals(DispatchPolicy.Overflow.DROP_OLDEST, DispatchPolicy.parse("queue:8:drop-oldest", null).getOverflow());
+        assertEquals("queue:8:disconnect", DispatchPolicy.parse(DispatchPolicy.parse("queue:8:disconnect", null).toString(), null).toString());
+        assertNull(DispatchPolicy.parse("queue:0", null));
+        assertNull(DispatchPolicy.parse("queue:8:sometimes", null));
+    }
+
+    @Test
+    public void testPipelinedRequests() throws Exception {
+        HabboConnection connection = new HabboConnection("localhost", server.getLocalPort(), TransportMode.NIO);
+        assertTrue(connection.connect());
+
+        // The echo server answers each request with itself, so replies match by request ID
+        @SuppressWarnings("unchecked")
+        CompletableFuture<AuthenticationMessage>[] replies = new CompletableFuture[100];
+        for (int i = 0; i < replies.length; i++) {
+            replies[i] = connection.sendRequest(new AuthenticationMessage("user" + i, "token"),
+                    AuthenticationMessage.MESSAGE_ID, Duration.ofSeconds(5));
+        }
+        for (int i = 0; i < replies.length; i++) {
+            assertEquals("user" + i, replies[i].get(5, TimeUnit.SECONDS).getUsername());
+        }
+        assertEquals(0, connection.getPendingRequestCount());
+        connection.disconnect();
+    }
+
+    @Test
+    public void testRequestTimeoutAndDisconnect() throws Exception {
+        HabboConnection connection = new HabboConnection("localhost", server.getLocalPort(), TransportMode.BLOCKING);
+        assertTrue(connection.connect());
+
+        CompletableFuture<AuthenticationResponseMessage> timed = connection.sendRequest(
+                new AuthenticationMessage("xiony", "token"), AuthenticationResponseMessage.MESSAGE_ID, Duration.ofMillis(50));
+        try {
+            timed.get(5, TimeUnit.SECONDS);
+            fail("Echo server never sends an authentication response");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+
+        CompletableFuture<AuthenticationResponseMessage> waiting = connection.sendRequest(
+                new AuthenticationMessage("xiony", "token"), AuthenticationResponseMessage.MESSAGE_ID, null);
+        connection.disconnect();
+        try {
+            waiting.get(5, TimeUnit.SECONDS);
+            fail("Disconnect should fail outstanding requests");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void testConnectAndLoginWritesLoginFirst() throws Exception {
+        HabboConnection connection = new HabboConnection("localhost", server.getLocalPort(), TransportMode.NIO);
+        connection.setRequestTimeout(Duration.ofMillis(200));
+        BlockingQueue<ProtocolMessage> received = new LinkedBlockingQueue<>();
+        connection.messages().subscribe(new Flow.Subscriber<ProtocolMessage>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                s.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ProtocolMessage message) {
+                received.add(message);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        connection.setConnectionListener(new RecordingListener() {
+            @Override
+            public void onConnected() {
+                connection.send(new AuthenticationMessage("listener", "token"));
+            }
+        });
+
+        // The echo server never answers the login, so it times out once the frame is back
+        assertEquals(AuthenticationResponseMessage.AuthStatus.SERVER_ERROR,
+                connection.connectAndLogin("xiony", "password123"));
+        assertTrue(connection.isConnected());
+        assertFalse(connection.isAuthenticated());
+
+        AuthenticationMessage first = (AuthenticationMessage) received.poll(5, TimeUnit.SECONDS);
+        AuthenticationMessage second = (AuthenticationMessage) received.poll(5, TimeUnit.SECONDS);
+        assertEquals("Login goes out before anything the listener sends", "xiony", first.getUsername());
+        assertEquals("listener", second.getUsername());
+        connection.disconnect();
+    }
+
+    @Test
+    public void testDisconnectDoesNotWaitForLogin() throws Exception {
+        HabboConnection connection = new HabboConnection("localhost", server.getLocalPort(), TransportMode.NIO);
+        connection.setRequestTimeout(Duration.ofSeconds(30));
+        assertTrue(connection.connect());
+
+        // The echo server never answers the login, so it waits until the disconnect
+        CompletableFuture<AuthenticationResponseMessage.AuthStatus> login =
+                CompletableFuture.supplyAsync(() -> connection.login("xiony", "password123"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (connection.getPendingRequestCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, connection.getPendingRequestCount());
+        assertEquals("A second login is refused while the first waits",
+                AuthenticationResponseMessage.AuthStatus.SERVER_ERROR, connection.login("xiony", "password123"));
+
+        long start = System.nanoTime();
+        connection.disconnect();
+        assertEquals(AuthenticationResponseMessage.AuthStatus.SERVER_ERROR, login.get(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertFalse(connection.isAuthenticated());
+    }
+
+    @Test
+    public void testSubscribedFrameDecodedOnce() throws Exception {
+        AtomicInteger decoded = new AtomicInteger();
+        BlockingQueue<ProtocolMessage> handled = new LinkedBlockingQueue<>();
+        MessageRegistry<HabboConnection> registry = new MessageRegistry<HabboConnection>()
+                .register(AuthenticationMessage.MESSAGE_ID, () -> {
+                    decoded.incrementAndGet();
+                    return new AuthenticationMessage();
+                }, (HabboConnection context, AuthenticationMessage message) -> handled.add(message));
+        HabboConnection connection = new HabboConnection("localhost", server.getLocalPort(), TransportMode.NIO);
+        connection.setMessageRegistry(registry);
+        BlockingQueue<ProtocolMessage> published = new LinkedBlockingQueue<>();
+        connection.messages().subscribe(new Flow.Subscriber<ProtocolMessage>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                s.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ProtocolMessage message) {
+                published.add(message);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        assertTrue(connection.connect());
+        long unknownBefore = registry.getUnknownCount();
+
+        connection.send(new AuthenticationMessage("xiony", "token"));
+        ProtocolMessage message = handled.poll(5, TimeUnit.SECONDS);
+        assertSame("Subscriber and handler share one decoded message", message, published.poll(5, TimeUnit.SECONDS));
+        assertEquals(1, decoded.get());
+        assertEquals(1, registry.getDispatchedCount(AuthenticationMessage.MESSAGE_ID));
+        assertEquals(unknownBefore, registry.getUnknownCount());
+        connection.disconnect();
+    }
+
+    @Test
+    public void testTransportFailuresKeepCachedToken() throws Exception {
+        Path file = Files.createTempFile("tokens", ".cache");
+        try (TokenCache cache = TokenCache.open(file)) {
+            // Reply timeout: the echo server never answers the login
+            HabboConnection connection = new HabboConnection("localhost", server.getLocalPort(), TransportMode.NIO);
+            connection.setRequestTimeout(Duration.ofMillis(100));
+            connection.getAuthManager().setTokenCache(cache);
+            assertEquals(AuthenticationResponseMessage.AuthStatus.SERVER_ERROR,
+                    connection.connectAndLogin("xiony", "password123"));
+            assertNotNull("A timeout keeps the token", cache.get("xiony"));
+            connection.disconnect();
+
+            // Connect failure
+            int closedPort;
+            try (ServerSocket unused = new ServerSocket(0)) {
+                closedPort = unused.getLocalPort();
+            }
+            HabboConnection unreachable = new HabboConnection("localhost", closedPort, TransportMode.NIO);
+            unreachable.getAuthManager().setTokenCache(cache);
+            assertEquals(AuthenticationResponseMessage.AuthStatus.SERVER_ERROR,
+                    unreachable.connectAndLogin("bot", "password123"));
+            assertNotNull("A failed connect keeps the token", cache.get("bot"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testConnectFailure() throws IOException {
+        int port;
+        try (ServerSocket unused = new ServerSocket(0)) {
+            port = unused.getLocalPort();
+        }
+        HabboConnection connection = new HabboConnection("localhost", port, TransportMode.NIO);
+        assertFalse(connection.connect());
+        assertTrue(connection.send(new byte[]{1}).isCompletedExceptionally());
+    }
+
+    /**
+     * Holds the dispatch thread on the first frame until the gate opens
+     */
+    private static class GatedListener extends RecordingListener {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch gate = new CountDownLatch(1);
+
+        @Override
+        public void onMessageReceived(byte[] data) {
+            entered.countDown();
+            try {
+                gate.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.onMessageReceived(data);
+        }
+    }
+
+    private static class RecordingListener implements HabboConnection.ConnectionListener {
+        final BlockingQueue<byte[]> frames = new LinkedBlockingQueue<>();
+        final CountDownLatch disconnected = new CountDownLatch(1);
+
+        @Override
+        public void onConnected() {
+        }
+
+        @Override
+        public void onDisconnected() {
+            disconnected.countDown();
+        }
+
+        @Override
+        public void onMessageReceived(byte[] data) {
+            frames.add(data);
+        }
+
+        @Override
+        public void onError(Exception e) {
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.habbo.client.network;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class InboundQueueTest {
+
+    @Test
+    public void testDropOldestSkipsQueuedTasks() throws Exception {
+        CountDownLatch firstDelivered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch allDone = new CountDownLatch(1);
+        List<String> delivered = new CopyOnWriteArrayList<>();
+        InboundQueue queue = new InboundQueue(DispatchPolicy.queued(4, DispatchPolicy.Overflow.DROP_OLDEST),
+                new InboundQueue.Owner() {
+                    @Override
+                    public void deliver(ByteBuffer frame) {
+                        delivered.add("frame" + frame.get(0));
+                        firstDelivered.countDown();
+                        try {
+                            release.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+
+                    @Override
+                    public void suspendReads() {
+                    }
+
+                    @Override
+                    public void resumeReads() {
+                    }
+
+                    @Override
+                    public void overflowed() {
+                    }
+                });
+
+        // Hold the worker on frame 0 so everything after it queues up
+        queue.offer(frame(0));
+        assertTrue(firstDelivered.await(5, TimeUnit.SECONDS));
+        queue.execute(() -> delivered.add("task"));
+        for (int i = 1; i <= 10; i++) {
+            queue.offer(frame(i));
+            assertTrue("Bound of 4 exceeded: " + queue.size(), queue.size() <= 4);
+        }
+        queue.execute(allDone::countDown);
+
+        release.countDown();
+        assertTrue(allDone.await(5, TimeUnit.SECONDS));
+        // The task keeps its place at the front; only the newest frames survive
+        assertEquals(List.of("frame0", "task", "frame8", "frame9", "frame10"), delivered);
+    }
+
+    private static ByteBuffer frame(int id) {
+        return ByteBuffer.wrap(new byte[]{(byte) id, 0});
+    }
+}
@@ -0,0 +1,75 @@
+package com.habbo.client.network;
+
+import com.habbo.client.protocol.ProtocolMessage;
+import com.habbo.client.protocol.messages.AuthenticationResponseMessage;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+public class PendingRequestsTest {
+    private static final int REPLY_ID = AuthenticationResponseMessage.MESSAGE_ID;
+
+    @Test
+    public void testTimedOutRequestDropsLateReplyThenLeaves() throws Exception {
+        PendingRequests pending = new PendingRequests();
+        CompletableFuture<ProtocolMessage> timed = register(pending, Duration.ofMillis(100));
+        try {
+            timed.get(5, TimeUnit.SECONDS);
+            fail("No reply was sent");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+
+        // Within the grace period a late reply is consumed by the timed-out request
+        CompletableFuture<ProtocolMessage> next = register(pending, null);
+        assertTrue(pending.complete(REPLY_ID, new AuthenticationResponseMessage(), null));
+        assertFalse(next.isDone());
+        assertEquals(1, pending.size());
+
+        // After it, a reply that never came no longer holds up the line
+        CompletableFuture<ProtocolMessage> lost = register(pending, Duration.ofMillis(50));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (pending.size() > 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(lost.isCompletedExceptionally());
+        assertEquals(1, pending.size());
+        AuthenticationResponseMessage reply = new AuthenticationResponseMessage();
+        assertTrue(pending.complete(REPLY_ID, reply, null));
+        assertSame(reply, next.get(5, TimeUnit.SECONDS));
+        assertEquals(0, pending.size());
+        assertFalse(pending.isAwaiting(REPLY_ID));
+    }
+
+    @Test
+    public void testUnwrittenRequestLeavesAtOnce() throws Exception {
+        PendingRequests pending = new PendingRequests();
+        CompletableFuture<ProtocolMessage> unwritten = register(pending, null);
+        CompletableFuture<ProtocolMessage> written = register(pending, null);
+
+        pending.fail(REPLY_ID, unwritten, new IOException("write failed"));
+        assertTrue(unwritten.isCompletedExceptionally());
+        assertEquals(1, pending.size());
+
+        AuthenticationResponseMessage reply = new AuthenticationResponseMessage();
+        assertTrue(pending.complete(REPLY_ID, reply, null));
+        assertSame(reply, written.get(5, TimeUnit.SECONDS));
+        assertEquals(0, pending.size());
+    }
+
+    private static CompletableFuture<ProtocolMessage> register(PendingRequests pending, Duration timeout) {
+        pending.lock().lock();
+        try {
+            return pending.register(REPLY_ID, timeout);
+        } finally {
+            pending.lock().unlock();
+        }
+    }
+}
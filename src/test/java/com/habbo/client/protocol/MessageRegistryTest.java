@@ -0,0 +1,72 @@
+package com.habbo.client.protocol;
+
+import com.habbo.client.protocol.messages.AuthenticationResponseMessage;
+import com.habbo.client.protocol.messages.AuthenticationResponseMessage.AuthStatus;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MessageRegistryTest {
+    private MessageRegistry<List<ProtocolMessage>> registry;
+    private List<ProtocolMessage> received;
+
+    @Before
+    public void setUp() {
+        registry = new MessageRegistry<>();
+        received = new ArrayList<>();
+    }
+
+    private static ByteBuffer responseFrame() throws Exception {
+        AuthenticationResponseMessage response = new AuthenticationResponseMessage();
+        response.setStatus(AuthStatus.SUCCESS);
+        response.setUserId(42);
+        response.setSessionToken("session");
+        response.setAuthMessage("welcome");
+        return ByteBuffer.wrap(response.serialize());
+    }
+
+    @Test
+    public void testDispatchToTypedHandler() throws Exception {
+        registry.register(AuthenticationResponseMessage.MESSAGE_ID, AuthenticationResponseMessage::new,
+                (List<ProtocolMessage> context, AuthenticationResponseMessage message) -> context.add(message));
+
+        ByteBuffer frame = responseFrame();
+        assertTrue(registry.dispatch(received, frame));
+        assertEquals("Frame position must not move", 0, frame.position());
+
+        AuthenticationResponseMessage message = (AuthenticationResponseMessage) received.get(0);
+        assertTrue(message.isSuccessful());
+        assertEquals(42, message.getUserId());
+        assertEquals("welcome", message.getAuthMessage());
+        assertEquals(1, registry.getDispatchedCount(AuthenticationResponseMessage.MESSAGE_ID));
+    }
+
+    @Test
+    public void testUnknownIdCountedAndSkipped() throws Exception {
+        ByteBuffer frame = ByteBuffer.allocate(6).putShort(0, (short) 0x7FFF);
+        assertFalse(registry.dispatch(received, frame));
+        assertNull(registry.decode(frame));
+        assertEquals(2, registry.getUnknownCount());
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void testRegisteredWithoutHandlerNotDispatched() throws Exception {
+        registry.register(AuthenticationResponseMessage.MESSAGE_ID, AuthenticationResponseMessage::new);
+        ByteBuffer frame = responseFrame();
+
+        assertFalse(registry.dispatch(received, frame));
+        assertEquals(0, registry.getUnknownCount());
+        assertTrue(registry.decode(frame) instanceof AuthenticationResponseMessage);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIdOutOfRange() {
+        registry.register(0x10000, AuthenticationResponseMessage::new);
+    }
+}
@@ -0,0 +1,116 @@
+package com.habbo.client.protocol;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ProtocolDecoderTest {
+    private byte[] encoded;
+
+    @Before
+    public void setUp() throws IOException {
+        ProtocolEncoder encoder = new ProtocolEncoder();
+        encoder.writeShort((short) 7);
+        encoder.writeInt(123456);
+        encoder.writeByte((byte) -3);
+        encoder.writeString("xiony");
+        encoder.writeString("Grüße 🏨");
+        encoder.writeString("");
+        encoded = encoder.getBytes();
+    }
+
+    private void assertDecodes(ProtocolDecoder decoder) throws IOException {
+        assertEquals(7, decoder.readShort());
+        assertEquals(123456, decoder.readInt());
+        assertEquals(-3, decoder.readByte());
+        assertEquals("xiony", decoder.readString());
+        assertEquals("Grüße 🏨", decoder.readString());
+        assertEquals("", decoder.readString());
+        assertFalse(decoder.hasMoreData());
+    }
+
+    @Test
+    public void testHeapBuffer() throws IOException {
+        assertDecodes(new ProtocolDecoder(encoded));
+    }
+
+    @Test
+    public void testDirectBufferRegion() throws IOException {
+        ByteBuffer direct = ByteBuffer.allocateDirect(encoded.length + 10);
+        direct.position(5);
+        direct.put(encoded);
+
+        ProtocolDecoder decoder = new ProtocolDecoder();
+        assertDecodes(decoder.reset(direct, 5, encoded.length));
+        assertEquals("Buffer position must not move", 5 + encoded.length, direct.position());
+    }
+
+    @Test
+    public void testStringView() throws IOException {
+        ProtocolDecoder decoder = new ProtocolDecoder(encoded);
+        decoder.skip(7);
+
+        Utf8View ascii = decoder.readStringView(new Utf8View());
+        assertTrue(ascii.isAscii());
+        assertTrue(ascii.contentEquals("xiony"));
+        assertFalse(ascii.contentEquals("xion"));
+        assertEquals("xiony".hashCode(), ascii.hashCode());
+        assertEquals('n', ascii.charAt(3));
+
+        Utf8View multibyte = decoder.readStringView(new Utf8View());
+        assertFalse(multibyte.isAscii());
+        assertTrue(multibyte.contentEquals("Grüße 🏨"));
+        assertFalse(multibyte.contentEquals("Grusse"));
+        assertEquals("Grüße 🏨".hashCode(), multibyte.hashCode());
+        assertEquals("Grüße 🏨".length(), multibyte.length());
+        assertEquals("Grüße 🏨", multibyte.toString());
+    }
+
+    @Test
+    public void testStringViewAgreesWithJdkOnMalformedInput() {
+        int[][] inputs = {
+                {0xC0, 0xAF},             // overlong '/'
+                {0xC1, 0xBF},             // overlong two-byte
+                {0xE0, 0x80, 0xAF},       // overlong three-byte
+                {0xF0, 0x80, 0x80, 0xAF}, // overlong four-byte
+                {0xED, 0xA0, 0x80},       // encoded high surrogate
+                {0xED, 0xBF, 0xBF},       // encoded low surrogate
+                {0xF4, 0x90, 0x80, 0x80}, // above U+10FFFF
+                {0xF5, 0x80, 0x80, 0x80}, // lead byte past the Unicode range
+                // Valid at the edges of those ranges
+                {0xE0, 0xA0, 0x80},       // U+0800
+                {0xED, 0x9F, 0xBF},       // U+D7FF
+                {0xF0, 0x90, 0x80, 0x80}, // U+10000
+                {0xF4, 0x8F, 0xBF, 0xBF}, // U+10FFFF
+        };
+        for (int[] input : inputs) {
+            byte[] bytes = new byte[input.length + 2];
+            bytes[0] = 'a';
+            for (int i = 0; i < input.length; i++) {
+                bytes[i + 1] = (byte) input[i];
+            }
+            bytes[bytes.length - 1] = 'b';
+            String expected = new String(bytes, StandardCharsets.UTF_8);
+
+            Utf8View view = new Utf8View().set(ByteBuffer.wrap(bytes), 0, bytes.length);
+            String label = Arrays.toString(input);
+            assertEquals(label, expected.hashCode(), view.hashCode());
+            assertTrue(label, view.contentEquals(expected));
+            assertEquals(label, expected.length(), view.length());
+            assertEquals(label, expected.charAt(1), view.charAt(1));
+        }
+    }
+
+    @Test(expected = EOFException.class)
+    public void testReadPastEnd() throws IOException {
+        ProtocolDecoder decoder = new ProtocolDecoder(new byte[]{0, 1});
+        decoder.readInt();
+    }
+}
@@ -0,0 +1,74 @@
+package com.habbo.client.protocol;
+
+import com.habbo.client.protocol.messages.AuthenticationMessage;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class ProtocolEncoderTest {
+
+    @Test
+    public void testStringMatchesJdkEncoding() throws IOException {
+        String value = "Grüße 🏨 \ud800 done";
+        ProtocolEncoder encoder = new ProtocolEncoder();
+        encoder.writeString(value);
+
+        byte[] expected = value.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer written = ByteBuffer.wrap(encoder.getBytes());
+        assertEquals(expected.length, written.getShort());
+        byte[] body = new byte[written.remaining()];
+        written.get(body);
+        assertArrayEquals(expected, body);
+        assertEquals(2 + expected.length, ProtocolEncoder.encodedLength(value));
+    }
+
+    @Test
+    public void testFrameHeaderBackpatched() throws IOException {
+        BufferPool pool = new BufferPool(64, 4, false);
+        ProtocolEncoder encoder = new ProtocolEncoder(pool);
+        AuthenticationMessage message = new AuthenticationMessage("xiony", "token");
+
+        encoder.beginFrame();
+        message.encode(encoder);
+        ByteBuffer frame = encoder.finishFrame();
+
+        byte[] serialized = message.serialize();
+        assertEquals(4 + serialized.length, frame.remaining());
+        assertEquals(serialized.length, frame.getInt(0));
+        byte[] body = new byte[serialized.length];
+        frame.get(4, body, 0, body.length);
+        assertArrayEquals(serialized, body);
+    }
+
+    @Test
+    public void testPoolReusesReleasedBuffers() throws IOException {
+        BufferPool pool = new BufferPool(64, 4, true);
+        ProtocolEncoder encoder = new ProtocolEncoder(pool);
+
+        encoder.beginFrame();
+        encoder.writeInt(1);
+        ByteBuffer first = encoder.finishFrame();
+        assertTrue(first.isDirect());
+        pool.release(first);
+
+        encoder.beginFrame();
+        encoder.writeInt(2);
+        assertSame("Released buffer should be reused", first, encoder.finishFrame());
+    }
+
+    @Test
+    public void testGrowsBeyondPooledSize() throws IOException {
+        BufferPool pool = new BufferPool(64, 4, false);
+        ProtocolEncoder encoder = new ProtocolEncoder(pool);
+
+        encoder.beginFrame();
+        encoder.writeBytes(new byte[1000]);
+        ByteBuffer frame = encoder.finishFrame();
+        assertEquals(1004, frame.remaining());
+        assertEquals(1000, frame.getInt(0));
+    }
+}
@@ -0,0 +1,58 @@
+package com.habbo.client.protocol.codec;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CodecProcessorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRejectsEnumWithoutByteCodes() throws Exception {
+        Path source = folder.getRoot().toPath().resolve("BadMessage.java");
+        Files.writeString(source, String.join("\n",
+                "import com.habbo.client.protocol.ProtocolMessage;",
+                "import com.habbo.client.protocol.codec.Field;",
+                "import com.habbo.client.protocol.codec.FieldType;",
+                "public class BadMessage extends ProtocolMessage {",
+                "    public enum Color { RED, GREEN }",
+                "    @Field(order = 0, type = FieldType.ENUM_BYTE) Color color;",
+                "    public BadMessage() { super(999); }",
+                "    @Override public byte[] serialize() { return new byte[0]; }",
+                "    @Override public void deserialize(byte[] data) { }",
+                "}"), StandardCharsets.UTF_8);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            List<String> options = List.of(
+                    "-classpath", System.getProperty("java.class.path"),
+                    "-processor", CodecProcessor.class.getName(),
+                    "-d", folder.newFolder("classes").getPath(),
+                    "-s", folder.newFolder("generated").getPath());
+            Boolean compiled = compiler.getTask(null, files, diagnostics, options, null,
+                    files.getJavaFileObjects(new File(source.toString()))).call();
+            assertFalse(compiled);
+        }
+
+        List<Diagnostic<? extends JavaFileObject>> errors = diagnostics.getDiagnostics();
+        assertEquals(errors.toString(), 1, errors.size());
+        assertTrue(errors.get(0).getMessage(null), errors.get(0).getMessage(null).contains("fromCode(byte)"));
+    }
+}
@@ -0,0 +1,60 @@
+package com.habbo.client.protocol.codec;
+
+import com.habbo.client.protocol.ProtocolDecoder;
+import com.habbo.client.protocol.ProtocolEncoder;
+import com.habbo.client.protocol.messages.AuthenticationMessage;
+import com.habbo.client.protocol.messages.AuthenticationMessageCodec;
+import com.habbo.client.protocol.messages.AuthenticationResponseMessage;
+import com.habbo.client.protocol.messages.AuthenticationResponseMessageCodec;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class GeneratedCodecTest {
+
+    @Test
+    public void testEncodedSizeIsExact() throws IOException {
+        AuthenticationMessage message = new AuthenticationMessage("Grüße", "sso-ticket");
+        byte[] bytes = message.serialize();
+        assertEquals(AuthenticationMessageCodec.INSTANCE.encodedSize(message), bytes.length);
+    }
+
+    @Test
+    public void testSerializeFillsTheExactSizeArray() throws IOException {
+        AuthenticationMessage message = new AuthenticationMessage("xiony", "tok-abcdef");
+        byte[] target = new byte[AuthenticationMessageCodec.INSTANCE.encodedSize(message)];
+        ProtocolEncoder encoder = ProtocolEncoder.wrap(target);
+        AuthenticationMessageCodec.INSTANCE.encode(message, encoder);
+        assertSame(target, encoder.getBytes());
+
+        // Multi-byte characters still fit exactly
+        AuthenticationMessage accented = new AuthenticationMessage("Grüße 😀", "sso-ticket");
+        target = new byte[AuthenticationMessageCodec.INSTANCE.encodedSize(accented)];
+        encoder = ProtocolEncoder.wrap(target);
+        AuthenticationMessageCodec.INSTANCE.encode(accented, encoder);
+        assertSame(target, encoder.getBytes());
+    }
+
+    @Test
+    public void testResponseRoundTrip() throws IOException {
+        AuthenticationResponseMessage response = new AuthenticationResponseMessage();
+        response.setStatus(AuthenticationResponseMessage.AuthStatus.SUCCESS);
+        response.setUserId(4242);
+        response.setSessionToken("session");
+        response.setAuthMessage("welcome");
+
+        byte[] bytes = AuthenticationResponseMessageCodec.INSTANCE.serialize(response);
+        ProtocolDecoder decoder = new ProtocolDecoder(bytes);
+        assertEquals(AuthenticationResponseMessage.MESSAGE_ID, decoder.readShort());
+
+        AuthenticationResponseMessage decoded = new AuthenticationResponseMessage();
+        AuthenticationResponseMessageCodec.INSTANCE.decode(decoded, decoder);
+        assertEquals(AuthenticationResponseMessage.AuthStatus.SUCCESS, decoded.getStatus());
+        assertEquals(4242, decoded.getUserId());
+        assertEquals("session", decoded.getSessionToken());
+        assertEquals("welcome", decoded.getAuthMessage());
+        assertFalse(decoder.hasMoreData());
+    }
+}
@@ -0,0 +1,139 @@
+package com.habbo.client.session;
+
+import com.habbo.client.protocol.ProtocolEncoder;
+import com.habbo.client.protocol.messages.AuthenticationMessage;
+import com.habbo.client.protocol.messages.AuthenticationResponseMessage;
+import com.habbo.client.protocol.messages.AuthenticationResponseMessage.AuthStatus;
+import com.habbo.client.util.TokenBucket;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class BulkLoginTest {
+    private ServerSocket server;
+    private SessionManager manager;
+
+    /**
+     * Accepts every login except usernames starting with "banned"
+     */
+    @Before
+    public void setUp() throws IOException {
+        server = new ServerSocket(0);
+        Thread acceptor = new Thread(() -> {
+            try {
+                while (!server.isClosed()) {
+                    Socket client = server.accept();
+                    Thread handler = new Thread(() -> answerLogins(client));
+                    handler.setDaemon(true);
+                    handler.start();
+                }
+            } catch (IOException ignored) {
+                // server closed
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+        manager = new SessionManager();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        manager.shutdown();
+        server.close();
+    }
+
+    private static void answerLogins(Socket client) {
+        try (Socket socket = client; DataInputStream in = new DataInputStream(socket.getInputStream());
+             OutputStream out = socket.getOutputStream()) {
+            while (true) {
+                byte[] frame = new byte[in.readInt()];
+                in.readFully(frame);
+                AuthenticationMessage login = new AuthenticationMessage();
+                login.deserialize(frame);
+                AuthenticationResponseMessage response = new AuthenticationResponseMessage();
+                response.setStatus(login.getUsername().startsWith("banned") ? AuthStatus.USER_BANNED : AuthStatus.SUCCESS);
+                response.setSessionToken("session");
+                response.setAuthMessage(response.getStatus().getMessage());
+                ProtocolEncoder encoder = new ProtocolEncoder();
+                encoder.beginFrame();
+                response.encode(encoder);
+                ByteBuffer encoded = encoder.finishFrame();
+                out.write(encoded.array(), encoded.arrayOffset() + encoded.position(), encoded.remaining());
+                out.flush();
+            }
+        } catch (IOException ignored) {
+            // client went away
+        }
+    }
+
+    @Test
+    public void testReadCredentials() throws IOException {
+        Path file = Files.createTempFile("credentials", ".txt");
+        try {
+            Files.write(file, "# bots\nbot-1:secret\n\nbot-2   other pass\n".getBytes(StandardCharsets.UTF_8));
+            List<BulkLogin.Credential> credentials = BulkLogin.readCredentials(file);
+            assertEquals(2, credentials.size());
+            assertEquals("bot-1", credentials.get(0).getUsername());
+            assertEquals("secret", credentials.get(0).getPassword());
+            assertEquals("bot-2", credentials.get(1).getUsername());
+            assertEquals("other pass", credentials.get(1).getPassword());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testRateLimitedLogins() {
+        List<BulkLogin.Credential> credentials = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            credentials.add(new BulkLogin.Credential("bot-" + i, "password"));
+        }
+        credentials.add(new BulkLogin.Credential("banned-1", "password"));
+
+        BulkLogin bulk = new BulkLogin(manager, new TokenBucket(50, 4), BulkLogin.UNLIMITED_FAILURES);
+        BulkLogin.Report report = bulk.run(credentials, "localhost", server.getLocalPort());
+
+        assertEquals(13, report.getAccounts());
+        assertEquals(12, report.getSucceeded());
+        assertEquals(1, report.getFailed());
+        assertEquals(Integer.valueOf(1), report.getStatuses().get(AuthStatus.USER_BANNED));
+        assertEquals(13, report.getLatency().getCount());
+        // 4 at once, then one every 20 ms
+        assertTrue("Took " + report.getElapsed(), report.getElapsed().toMillis() >= 8 * 20 - 5);
+        assertTrue(manager.get("bot-3").isAuthenticated());
+        assertTrue(report.format().contains("USER_BANNED"));
+    }
+
+    @Test
+    public void testFailureBudgetSkipsRemainingLogins() {
+        manager.setMaxConcurrency(1);
+        List<BulkLogin.Credential> credentials = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            credentials.add(new BulkLogin.Credential("banned-" + i, "password"));
+        }
+        BulkLogin bulk = new BulkLogin(manager, new TokenBucket(1000, 10), 3);
+        BulkLogin.Report report = bulk.run(credentials, "localhost", server.getLocalPort());
+
+        assertTrue(report.isBudgetExhausted());
+        assertEquals(Integer.valueOf(3), report.getStatuses().get(AuthStatus.USER_BANNED));
+        assertEquals(7, report.getSkipped());
+        assertEquals(3, report.getFailed());
+        assertFalse(manager.get("banned-9").isConnected());
+        assertTrue(TimeUnit.SECONDS.toMillis(5) > report.getElapsed().toMillis());
+    }
+}
@@ -0,0 +1,183 @@
+package com.habbo.client.session;
+
+import com.habbo.client.protocol.messages.AuthenticationMessage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SessionManagerTest {
+    private ServerSocket server;
+    private SessionManager manager;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new ServerSocket(0);
+        Thread acceptor = new Thread(() -> {
+            try {
+                while (!server.isClosed()) {
+                    Socket client = server.accept();
+                    Thread echo = new Thread(() -> echo(client));
+                    echo.setDaemon(true);
+                    echo.start();
+                }
+            } catch (IOException ignored) {
+                // server closed
+            }
+        });
+        acceptor.setDaemon(true);
+        acceptor.start();
+        manager = new SessionManager();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        manager.shutdown();
+        server.close();
+    }
+
+    private static void echo(Socket client) {
+        try (Socket socket = client; InputStream in = socket.getInputStream(); OutputStream out = socket.getOutputStream()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException ignored) {
+            // client went away
+        }
+    }
+
+    @Test
+    public void testBulkConnectAndDisconnect() {
+        for (int i = 0; i < 20; i++) {
+            manager.create("bot-" + i, "localhost", server.getLocalPort());
+        }
+        assertEquals(20, manager.size());
+
+        Map<String, Boolean> connected = manager.connectAll(manager.getSessions());
+        assertEquals(20, connected.size());
+        assertFalse(connected.containsValue(false));
+        assertTrue(manager.get("bot-7").isConnected());
+
+        manager.disconnectAll(manager.getSessions());
+        assertFalse(manager.get("bot-7").isConnected());
+        assertTrue(manager.remove("bot-7"));
+        assertFalse(manager.remove("bot-7"));
+        assertEquals(19, manager.size());
+    }
+
+    @Test
+    public void testMergedMessages() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            manager.create("bot-" + i, "localhost", server.getLocalPort());
+        }
+        manager.connectAll(manager.getSessions());
+        Map<String, List<String>> received = new ConcurrentHashMap<>();
+        CountDownLatch all = new CountDownLatch(3 * 100);
+        CountDownLatch completed = new CountDownLatch(1);
+        manager.messages(manager.getSessions()).subscribe(new Flow.Subscriber<SessionMessage>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(SessionMessage item) {
+                received.computeIfAbsent(item.getSession().getId(), id -> new CopyOnWriteArrayList<>())
+                        .add(((AuthenticationMessage) item.getMessage()).getUsername());
+                all.countDown();
+                // One at a time, to exercise the prefetch top-ups
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+                completed.countDown();
+            }
+        });
+
+        for (Session session : manager.getSessions()) {
+            for (int i = 0; i < 100; i++) {
+                session.getConnection().send(new AuthenticationMessage(session.getId() + "/" + i, "token"));
+            }
+        }
+        assertTrue(all.await(5, TimeUnit.SECONDS));
+        for (int s = 0; s < 3; s++) {
+            List<String> names = received.get("bot-" + s);
+            for (int i = 0; i < 100; i++) {
+                assertEquals("bot-" + s + "/" + i, names.get(i));
+            }
+        }
+        manager.disconnectAll(manager.getSessions());
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateId() {
+        manager.create("xiony", "localhost", server.getLocalPort());
+        manager.create("xiony", "localhost", server.getLocalPort());
+    }
+
+    @Test
+    public void testConcurrencyLimit() {
+        for (int i = 0; i < 30; i++) {
+            manager.create("bot-" + i, "localhost", server.getLocalPort());
+        }
+        manager.setMaxConcurrency(3);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        Map<String, Boolean> results = manager.forEach(manager.getSessions(), session -> {
+            peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return !session.getId().equals("bot-3");
+        });
+
+        assertEquals(30, results.size());
+        assertFalse(results.get("bot-3"));
+        assertTrue(results.get("bot-4"));
+        assertTrue("At most 3 sessions at once, saw " + peak.get(), peak.get() <= 3);
+    }
+
+    @Test(timeout = 10_000)
+    public void testForEachAfterShutdownFailsInsteadOfHanging() {
+        for (int i = 0; i < 5; i++) {
+            manager.create("bot-" + i, "localhost", server.getLocalPort());
+        }
+        manager.setMaxConcurrency(2);
+        List<Session> sessions = manager.getSessions();
+        manager.shutdown();
+
+        Map<String, Boolean> results = manager.forEach(sessions, session -> true);
+        assertEquals(5, results.size());
+        assertFalse(results.containsValue(true));
+    }
+}
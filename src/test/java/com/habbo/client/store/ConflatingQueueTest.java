@@ -0,0 +1,95 @@
+package com.habbo.client.store;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BinaryOperator;
+
+import static org.junit.Assert.*;
+
+public class ConflatingQueueTest {
+
+    @Test
+    public void testKeepsOnlyLatestValuePerKey() {
+        ConflatingQueue<Integer> queue = new ConflatingQueue<>();
+        assertTrue(queue.offer(7, 0));
+        for (int i = 1; i < 50; i++) {
+            assertFalse(queue.offer(7, i));
+        }
+        assertEquals(1, queue.size());
+        assertEquals(50, queue.getOfferedCount());
+        assertEquals(49, queue.getConflatedCount());
+
+        List<String> seen = new ArrayList<>();
+        assertEquals(1, queue.drain(Integer.MAX_VALUE, (key, value) -> seen.add(key + "=" + value)));
+        assertEquals(List.of("7=49"), seen);
+        assertEquals(0, queue.size());
+
+        // Once drained, the key queues again
+        assertTrue(queue.offer(7, 50));
+    }
+
+    @Test
+    public void testDeliversKeysInFirstQueuedOrderAcrossGrowth() {
+        ConflatingQueue<String> queue = new ConflatingQueue<>(16);
+        // Start part way round the ring so growing has to unwrap it
+        for (int i = 0; i < 10; i++) {
+            queue.offer(-i - 1, "skip");
+        }
+        assertEquals(10, queue.drain(10, (key, value) -> { }));
+
+        for (int key = 0; key < 100; key++) {
+            queue.offer(key, "a" + key);
+        }
+        for (int key = 99; key >= 0; key -= 3) {
+            queue.offer(key, "b" + key);
+        }
+        assertEquals(100, queue.size());
+
+        List<Integer> keys = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        assertEquals(40, queue.drain(40, (key, value) -> {
+            keys.add(key);
+            values.add(value);
+        }));
+        queue.drain(Integer.MAX_VALUE, (key, value) -> {
+            keys.add(key);
+            values.add(value);
+        });
+        for (int key = 0; key < 100; key++) {
+            assertEquals(key, (int) keys.get(key));
+            assertEquals((key % 3 == 0 ? "b" : "a") + key, values.get(key));
+        }
+    }
+
+    @Test
+    public void testMergeFoldsPendingDeltas() {
+        ConflatingQueue<RoomDelta> queue = new ConflatingQueue<>();
+        BinaryOperator<RoomDelta> sum = (pending, next) ->
+                RoomDelta.occupancy(pending.getRoomId(), pending.getValue() + next.getValue());
+        for (int i = 0; i < 50; i++) {
+            queue.offer(7, i % 5 == 4 ? RoomDelta.userLeft(7) : RoomDelta.userEntered(7), sum);
+        }
+        queue.offer(8, RoomDelta.userEntered(8), sum);
+
+        List<RoomDelta> seen = new ArrayList<>();
+        assertEquals(2, queue.drain(Integer.MAX_VALUE, (key, delta) -> seen.add(delta)));
+        assertEquals(30, seen.get(0).getValue());
+        assertEquals(8, seen.get(1).getRoomId());
+        assertEquals(49, queue.getConflatedCount());
+    }
+
+    @Test
+    public void testAwaitWakesOnOffer() throws Exception {
+        ConflatingQueue<String> queue = new ConflatingQueue<>();
+        assertFalse(queue.await(Duration.ofMillis(10)));
+
+        Thread producer = new Thread(() -> queue.offer(1, "room"));
+        producer.start();
+        assertTrue(queue.await(Duration.ofSeconds(5)));
+        producer.join();
+        assertEquals(1, queue.size());
+    }
+}
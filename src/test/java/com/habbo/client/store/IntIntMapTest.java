@@ -0,0 +1,54 @@
+package com.habbo.client.store;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class IntIntMapTest {
+
+    @Test
+    public void testMatchesHashMapUnderRandomOperations() {
+        IntIntMap map = new IntIntMap(4);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            // A small key range forces long probe runs, growth and many removals
+            int key = random.nextInt(5000) - 2500;
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(key);
+                assertEquals(removed == null ? IntIntMap.MISSING : removed, map.remove(key));
+            } else {
+                int value = random.nextInt(Integer.MAX_VALUE);
+                Integer previous = expected.put(key, value);
+                assertEquals(previous == null ? IntIntMap.MISSING : previous, map.put(key, value));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (int key = -2500; key < 2500; key++) {
+            Integer value = expected.get(key);
+            assertEquals(value == null ? IntIntMap.MISSING : value, map.get(key));
+        }
+        int[] seen = {0};
+        map.forEach((key, value) -> {
+            assertEquals(expected.get(key).intValue(), value);
+            seen[0]++;
+        });
+        assertEquals(expected.size(), seen[0]);
+    }
+
+    @Test
+    public void testZeroAndExtremeKeys() {
+        IntIntMap map = new IntIntMap(16);
+        map.put(0, 1);
+        map.put(Integer.MIN_VALUE, 2);
+        map.put(Integer.MAX_VALUE, 3);
+        assertEquals(1, map.get(0));
+        assertEquals(2, map.get(Integer.MIN_VALUE));
+        assertEquals(3, map.get(Integer.MAX_VALUE));
+        assertEquals(IntIntMap.MISSING, map.get(1));
+    }
+}
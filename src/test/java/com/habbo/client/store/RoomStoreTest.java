@@ -0,0 +1,195 @@
+package com.habbo.client.store;
+
+import com.habbo.client.models.Room;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class RoomStoreTest {
+
+    @Test
+    public void testHeapLayout() {
+        assertStoreBehaviour(new RoomStore(RoomStore.Layout.HEAP, 16));
+    }
+
+    @Test
+    public void testOffHeapLayout() {
+        RoomStore store = new RoomStore(RoomStore.Layout.OFF_HEAP, 16);
+        assertStoreBehaviour(store);
+        // 5,001 rooms left with distinct names, but their five owners and one description are stored once each
+        assertEquals(5_007, store.getInternedStrings());
+    }
+
+    @Test
+    public void testOffHeapReleasesStringsOfRemovedRooms() {
+        RoomStore store = new RoomStore(RoomStore.Layout.OFF_HEAP, 16);
+        for (int round = 0; round < 20; round++) {
+            for (int id = 0; id < 500; id++) {
+                Room room = room(id);
+                room.setRoomDescription("Round " + round + " room " + id);
+                store.put(room);
+            }
+            for (int id = 0; id < 500; id += 2) {
+                store.remove(id);
+            }
+        }
+        // Only the 250 rooms left: a name and a description each, plus the five odd-ID owners
+        assertEquals(250, store.size());
+        assertEquals(505, store.getInternedStrings());
+        Room room = store.get(499);
+        assertEquals("Round 19 room 499", room.getRoomDescription());
+        assertEquals("Room 499", room.getRoomName());
+        assertEquals("owner9", room.getOwner());
+    }
+
+    private static void assertStoreBehaviour(RoomStore store) {
+        for (int id = 0; id < 10_000; id++) {
+            store.put(room(id));
+        }
+        assertEquals(10_000, store.size());
+
+        Room room = store.get(1234);
+        assertEquals(1234, room.getRoomId());
+        assertEquals("Room 1234", room.getRoomName());
+        assertEquals("owner4", room.getOwner());
+        assertEquals("Lobby", room.getRoomDescription());
+        assertEquals(50, room.getMaxUsers());
+        assertEquals(1234 % 50, room.getCurrentUsers());
+        assertFalse(room.isPublic());
+        assertNull(store.get(10_000));
+
+        room.setRoomName("Changed by caller");
+        assertEquals("Room 1234", store.get(1234).getRoomName());
+
+        assertTrue(store.setCurrentUsers(1234, 49));
+        assertEquals(49, store.getCurrentUsers(1234));
+        assertEquals(49, store.get(1234).getCurrentUsers());
+        assertFalse(store.setCurrentUsers(-5, 1));
+        assertEquals(-1, store.getCurrentUsers(-5));
+
+        for (int id = 0; id < 10_000; id += 2) {
+            assertTrue(store.remove(id));
+        }
+        assertFalse(store.remove(0));
+        assertFalse(store.contains(1000));
+        assertTrue(store.contains(1001));
+        assertEquals(5_000, store.size());
+
+        // Freed slots are reused
+        Room replacement = room(-7);
+        replacement.setOwner(null);
+        store.put(replacement);
+        assertNull(store.get(-7).getOwner());
+        assertEquals("Room 1001", store.get(1001).getRoomName());
+
+        int[] visited = {0};
+        store.forEach(r -> visited[0]++);
+        assertEquals(5_001, visited[0]);
+    }
+
+    @Test
+    public void testApplyDeltas() {
+        for (RoomStore.Layout layout : RoomStore.Layout.values()) {
+            RoomStore store = new RoomStore(layout, 16);
+            store.put(room(1234));
+            store.setCurrentUsers(1234, 49);
+
+            assertEquals(50, store.addCurrentUsers(1234, 1));
+            assertEquals(48, store.apply(RoomDelta.occupancy(1234, -2)).getCurrentUsers());
+            assertEquals(0, store.addCurrentUsers(1234, -100));
+            assertEquals(-1, store.addCurrentUsers(-5, 1));
+            assertNull(store.apply(RoomDelta.userEntered(-5)));
+
+            Room renamed = store.apply(RoomDelta.name(1234, "Renamed"));
+            assertEquals("Renamed", renamed.getRoomName());
+            assertEquals("owner4", renamed.getOwner());
+            assertTrue(store.apply(RoomDelta.visibility(1234, true)).isPublic());
+            store.apply(RoomDelta.maxUsers(1234, 75));
+            Room changed = store.get(1234);
+            assertEquals("Renamed", changed.getRoomName());
+            assertEquals(75, changed.getMaxUsers());
+            assertEquals(0, changed.getCurrentUsers());
+            assertTrue(changed.isPublic());
+        }
+    }
+
+    @Test
+    public void testConflatedStateKeepsEveryDelta() {
+        RoomStore store = new RoomStore();
+        store.put(room(7));
+        store.setCurrentUsers(7, 0);
+        ConflatingQueue<Room> updates = new ConflatingQueue<>();
+        for (int i = 0; i < 50; i++) {
+            // Queue the room after the change, not the change itself
+            Room room = store.apply(i % 5 == 4 ? RoomDelta.userLeft(7) : RoomDelta.userEntered(7));
+            updates.offer(room.getRoomId(), room);
+        }
+
+        List<Room> seen = new ArrayList<>();
+        updates.drain(Integer.MAX_VALUE, (roomId, room) -> seen.add(room));
+        assertEquals(1, seen.size());
+        assertEquals(30, seen.get(0).getCurrentUsers());
+        assertEquals(store.getCurrentUsers(7), seen.get(0).getCurrentUsers());
+    }
+
+    @Test
+    public void testReadersSeeWholeRoomsWhileWritersChurn() throws Exception {
+        for (RoomStore.Layout layout : RoomStore.Layout.values()) {
+            RoomStore store = new RoomStore(layout, 16);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                boolean writer = t < 2;
+                threads.add(new Thread(() -> {
+                    try {
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        for (int i = 0; i < 50_000; i++) {
+                            int id = random.nextInt(20_000);
+                            if (writer) {
+                                if (random.nextInt(4) == 0) {
+                                    store.remove(id);
+                                } else {
+                                    store.put(room(id));
+                                }
+                            } else {
+                                Room room = store.get(id);
+                                if (room != null) {
+                                    // Every field of a stored room is derived from its ID
+                                    assertEquals(id, room.getRoomId());
+                                    assertEquals("Room " + id, room.getRoomName());
+                                    assertEquals("owner" + id % 10, room.getOwner());
+                                }
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            if (failure.get() != null) {
+                throw new AssertionError(layout + " reader saw a torn room", failure.get());
+            }
+        }
+    }
+
+    private static Room room(int id) {
+        Room room = new Room(id, "Room " + id);
+        room.setOwner("owner" + Math.abs(id % 10));
+        room.setRoomDescription("Lobby");
+        room.setMaxUsers(50);
+        room.setCurrentUsers(Math.abs(id % 50));
+        room.setPublic(id % 2 != 0);
+        return room;
+    }
+}
@@ -0,0 +1,186 @@
+package com.habbo.client.store;
+
+import com.habbo.client.metrics.ClientMetrics;
+import com.habbo.client.models.User;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class UserCacheTest {
+
+    @Test
+    public void testPutGetRemove() {
+        UserCache cache = new UserCache(10);
+        User user = new User(7, "xiony");
+        cache.put(user);
+        assertSame(user, cache.get(7));
+        assertNull(cache.get(8));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.5, cache.getHitRate(), 1e-9);
+
+        AtomicInteger decoded = new AtomicInteger();
+        User loaded = cache.get(8, id -> {
+            decoded.incrementAndGet();
+            return new User(id, "decoded");
+        });
+        assertSame(loaded, cache.get(8, id -> {
+            decoded.incrementAndGet();
+            return new User(id, "again");
+        }));
+        assertEquals(1, decoded.get());
+
+        assertTrue(cache.remove(7));
+        assertFalse(cache.remove(7));
+        assertNull(cache.get(7));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testApplyReplacesWithUpdatedCopy() {
+        UserCache cache = new UserCache(10);
+        User user = new User(7, "xiony");
+        user.setMotto("hi");
+        user.setLevel(3);
+        cache.put(user);
+
+        User changed = cache.apply(UserDelta.level(7, 4));
+        assertSame(changed, cache.get(7));
+        assertEquals(4, changed.getLevel());
+        assertEquals("xiony", changed.getUsername());
+        assertEquals("hi", changed.getMotto());
+        // The instance callers already hold is left alone
+        assertEquals(3, user.getLevel());
+
+        assertTrue(cache.apply(UserDelta.admin(7, true)).isAdmin());
+        assertEquals("bye", cache.apply(UserDelta.motto(7, "bye")).getMotto());
+        assertEquals(4, cache.get(7).getLevel());
+        assertNull(cache.apply(UserDelta.level(8, 1)));
+        assertNull(cache.get(8));
+    }
+
+    @Test
+    public void testStaysWithinBound() {
+        UserCache cache = new UserCache(100);
+        for (int id = 0; id < 10_000; id++) {
+            cache.put(new User(id, "user" + id));
+        }
+        assertEquals(100, cache.size());
+        assertEquals(100, cache.getWeightedSize());
+        assertEquals(9_900, cache.getEvictionCount());
+
+        UserCache bytes = new UserCache(10_000, UserCache::estimateBytes);
+        for (int id = 0; id < 1_000; id++) {
+            User user = new User(id, "user" + id);
+            user.setMotto("x".repeat(id % 100));
+            bytes.put(user);
+        }
+        assertTrue(bytes.getWeightedSize() <= 10_000);
+        assertTrue(bytes.size() > 10);
+    }
+
+    /**
+     * A hot set read half the time, interleaved with a scan of one-off users. Plain LRU
+     * keeps evicting the hot set for scan entries; TinyLFU admission keeps it.
+     */
+    @Test
+    public void testBeatsLruOnSkewedAccess() {
+        int capacity = 200;
+        UserCache cache = new UserCache(capacity);
+        Map<Integer, User> lru = new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, User> eldest) {
+                return size() > capacity;
+            }
+        };
+        Random random = new Random(7);
+        int lruHits = 0;
+        int lookups = 200_000;
+        int scan = 1_000_000;
+        for (int i = 0; i < lookups; i++) {
+            int id = random.nextBoolean() ? random.nextInt(150) : scan++;
+            cache.get(id, userId -> new User(userId, "user"));
+            if (lru.get(id) != null) {
+                lruHits++;
+            } else {
+                lru.put(id, new User(id, "user"));
+            }
+        }
+        double lruHitRate = (double) lruHits / lookups;
+        assertTrue("TinyLFU " + cache.getHitRate() + " vs LRU " + lruHitRate, cache.getHitRate() > lruHitRate + 0.2);
+        assertTrue(cache.getHitRate() > 0.45);
+    }
+
+    @Test
+    public void testRefreshesStaleEntriesInBackground() throws Exception {
+        UserCache cache = new UserCache(10);
+        CompletableFuture<User> pending = new CompletableFuture<>();
+        AtomicInteger reloads = new AtomicInteger();
+        cache.setRefresh(Duration.ofMillis(1), id -> {
+            reloads.incrementAndGet();
+            return pending;
+        });
+        User old = new User(1, "before");
+        cache.put(old);
+        Thread.sleep(50);
+
+        assertSame("Stale entry is served while it reloads", old, cache.get(1));
+        assertSame(old, cache.get(1));
+        assertEquals("One reload in flight at a time", 1, reloads.get());
+
+        User fresh = new User(1, "after");
+        pending.complete(fresh);
+        assertSame(fresh, cache.get(1));
+        assertEquals(1, cache.getRefreshCount());
+    }
+
+    @Test
+    public void testExportsCounters() {
+        ClientMetrics metrics = ClientMetrics.global();
+        long hits = metrics.getUserCacheHits();
+        long misses = metrics.getUserCacheMisses();
+        long evictions = metrics.getUserCacheEvictions();
+        UserCache cache = new UserCache(1);
+        cache.put(new User(1, "a"));
+        cache.get(1);
+        cache.put(new User(2, "b"));
+        cache.get(3);
+        assertTrue(metrics.getUserCacheHits() > hits);
+        assertTrue(metrics.getUserCacheMisses() > misses);
+        assertTrue(metrics.getUserCacheEvictions() > evictions);
+        assertTrue(metrics.report().contains("user cache:"));
+    }
+
+    @Test
+    public void testConcurrentReadersAndWriters() throws Exception {
+        UserCache cache = new UserCache(500);
+        Thread[] threads = new Thread[4];
+        AtomicInteger wrong = new AtomicInteger();
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                Random random = new Random();
+                for (int i = 0; i < 100_000; i++) {
+                    int id = random.nextInt(2_000);
+                    User user = cache.get(id, userId -> new User(userId, "user" + userId));
+                    if (user.getUserId() != id) {
+                        wrong.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        assertEquals(0, wrong.get());
+        assertTrue(cache.size() <= 500);
+    }
+}
@@ -0,0 +1,128 @@
+package com.habbo.client.store;
+
+import com.habbo.client.models.User;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class UserTableTest {
+
+    @Test
+    public void testPutGetRemove() {
+        UserTable table = new UserTable(4);
+        table.put(user(1, 10, true, "hello"));
+        table.put(user(2, 20, false, null));
+        table.put(user(3, 30, true, "hello"));
+
+        User user = table.get(1);
+        assertEquals("user1", user.getUsername());
+        assertEquals("hello", user.getMotto());
+        assertEquals(10, user.getLevel());
+        assertTrue(user.isAdmin());
+        assertNull(table.get(2).getMotto());
+        assertNull(table.get(4));
+
+        table.put(user(1, 11, false, "changed"));
+        table.put(user(1, 11, false, "changed"));
+        assertEquals(3, table.size());
+        // user1, user2, user3, hello (still user 3's), changed
+        assertEquals(5, table.getDistinctStrings());
+        assertEquals(11, table.get(1).getLevel());
+        assertFalse(table.get(1).isAdmin());
+
+        // The last row moves into the gap and keeps its admin bit
+        assertTrue(table.remove(1));
+        assertFalse(table.remove(1));
+        assertFalse(table.contains(1));
+        assertTrue(table.get(3).isAdmin());
+        assertEquals(1, table.countAdmins());
+        assertEquals(50, table.sumLevels());
+        // user2, user3, hello; user 1's strings go with it
+        assertEquals(3, table.getDistinctStrings());
+    }
+
+    @Test
+    public void testChurnFreesStrings() {
+        UserTable table = new UserTable(16);
+        for (int round = 0; round < 20; round++) {
+            for (int id = 0; id < 100; id++) {
+                table.put(user(id, 1, false, "motto " + round + "/" + id));
+            }
+            for (int id = 0; id < 100; id += 2) {
+                assertTrue(table.remove(id));
+            }
+        }
+        // The 50 odd users and the mottos from their last put
+        assertEquals(100, table.getDistinctStrings());
+        // Freed dictionary IDs are skipped
+        int[] found = table.findByMottoContaining("motto 19/");
+        Arrays.sort(found);
+        assertEquals(50, found.length);
+        assertEquals(1, found[0]);
+        assertEquals(0, table.findByMottoContaining("motto 18/").length);
+
+        for (int id = 1; id < 100; id += 2) {
+            assertTrue(table.remove(id));
+        }
+        assertEquals(0, table.getDistinctStrings());
+    }
+
+    @Test
+    public void testQueriesMatchObjectScan() {
+        // Large enough to be scanned in parallel chunks, with a partial last chunk
+        int users = UserTable.PARALLEL_THRESHOLD * 3 + 1_234;
+        UserTable table = new UserTable(16);
+        Map<Integer, User> expected = new HashMap<>();
+        Random random = new Random(42);
+        String[] mottos = {"Enjoy the pool", "Trading rares", null, "pool party tonight", "afk"};
+        for (int id = 0; id < users; id++) {
+            User user = user(id, random.nextInt(60) - 5, random.nextInt(7) == 0, mottos[random.nextInt(mottos.length)]);
+            table.put(user);
+            expected.put(id, user);
+        }
+        for (int id = 0; id < users; id += 5) {
+            assertTrue(table.remove(id));
+            expected.remove(id);
+        }
+        assertEquals(expected.size(), table.size());
+
+        int admins = 0;
+        long levelSum = 0;
+        int atLeastThirty = 0;
+        long[] histogram = new long[51];
+        List<Integer> pool = new ArrayList<>();
+        for (User user : expected.values()) {
+            admins += user.isAdmin() ? 1 : 0;
+            levelSum += user.getLevel();
+            atLeastThirty += user.getLevel() >= 30 ? 1 : 0;
+            histogram[Math.min(Math.max(user.getLevel(), 0), 50)]++;
+            if (user.getMotto() != null && user.getMotto().contains("pool")) {
+                pool.add(user.getUserId());
+            }
+        }
+        assertEquals(admins, table.countAdmins());
+        assertEquals(levelSum, table.sumLevels());
+        assertEquals(atLeastThirty, table.countLevelAtLeast(30));
+        assertArrayEquals(histogram, table.levelHistogram(50));
+
+        int[] found = table.findByMottoContaining("pool");
+        Arrays.sort(found);
+        assertArrayEquals(pool.stream().mapToInt(Integer::intValue).sorted().toArray(), found);
+        assertEquals(0, table.findByMottoContaining("nobody says this").length);
+    }
+
+    private static User user(int id, int level, boolean admin, String motto) {
+        User user = new User(id, "user" + id);
+        user.setLevel(level);
+        user.setAdmin(admin);
+        user.setMotto(motto);
+        return user;
+    }
+}
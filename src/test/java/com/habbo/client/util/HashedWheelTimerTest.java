@@ -0,0 +1,56 @@
+package com.habbo.client.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class HashedWheelTimerTest {
+    private HashedWheelTimer timer;
+
+    @Before
+    public void setUp() {
+        // A small wheel so the longer timeouts need several rounds
+        timer = new HashedWheelTimer("TestWheel", 5, TimeUnit.MILLISECONDS, 8);
+    }
+
+    @After
+    public void tearDown() {
+        timer.close();
+    }
+
+    @Test
+    public void testExpiresInDeadlineOrder() throws InterruptedException {
+        List<Integer> fired = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        long start = System.nanoTime();
+        timer.newTimeout(() -> { fired.add(150); done.countDown(); }, 150, TimeUnit.MILLISECONDS);
+        timer.newTimeout(() -> { fired.add(0); done.countDown(); }, 0, TimeUnit.MILLISECONDS);
+        timer.newTimeout(() -> { fired.add(60); done.countDown(); }, 60, TimeUnit.MILLISECONDS);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(0, 60, 150), fired);
+        assertTrue("Never early", System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(150));
+        assertEquals(0, timer.pendingTimeouts());
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        HashedWheelTimer.Timeout cancelled = timer.newTimeout(ran::countDown, 30, TimeUnit.MILLISECONDS);
+        assertEquals(1, timer.pendingTimeouts());
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+        assertEquals(0, timer.pendingTimeouts());
+
+        assertFalse(ran.await(200, TimeUnit.MILLISECONDS));
+        assertTrue(cancelled.isCancelled());
+        assertFalse(cancelled.isExpired());
+    }
+}
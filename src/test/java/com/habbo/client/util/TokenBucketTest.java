@@ -0,0 +1,38 @@
+package com.habbo.client.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TokenBucketTest {
+
+    @Test
+    public void testBurstThenRate() {
+        TokenBucket bucket = new TokenBucket(10, 5);
+        for (int i = 0; i < 5; i++) {
+            assertTrue("Burst permit " + i, bucket.tryAcquire());
+        }
+        assertFalse(bucket.tryAcquire());
+        long wait = bucket.reserve();
+        assertTrue("Next permit is one interval away: " + wait,
+                wait > TimeUnit.MILLISECONDS.toNanos(50) && wait <= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void testAcquireHoldsRate() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(200, 1);
+        long start = System.nanoTime();
+        for (int i = 0; i < 21; i++) {
+            bucket.acquire();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("20 intervals of 5 ms took " + elapsedMillis + " ms", elapsedMillis >= 95);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsZeroRate() {
+        new TokenBucket(0, 1);
+    }
+}